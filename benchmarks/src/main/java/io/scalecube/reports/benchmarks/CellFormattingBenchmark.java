@@ -0,0 +1,66 @@
+package io.scalecube.reports.benchmarks;
+
+import io.scalecube.reports.benchmarks.Items.Item;
+import io.scalecube.reports.csv.CsvReport;
+import io.scalecube.reports.csv.CsvRow;
+import io.scalecube.reports.csv.CsvRowEncoder;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Single column reports, one per formatting path. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CellFormattingBenchmark {
+
+  private static final int ROWS = 1024;
+
+  @Param
+  public Items.Kind kind;
+
+  private List<Item> items;
+  private CsvReport<Item> report;
+  private CsvRowEncoder<Item> encoder;
+  private CsvRow row;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    items = Items.items(ROWS, 16, new SplittableRandom(42));
+    final var builder = new CsvReport.Builder<Item>().zoneId(Items.ZONE_ID);
+    Items.column(builder, "Value", kind);
+    report = builder.build();
+    encoder = report.newEncoder();
+    row = new CsvRow(1);
+  }
+
+  @Benchmark
+  public String[] mapRow() {
+    return report.mapRow(nextItem());
+  }
+
+  @Benchmark
+  public CsvRow encode() {
+    encoder.encode(nextItem(), row);
+    return row;
+  }
+
+  private Item nextItem() {
+    return items.get(index++ & (ROWS - 1));
+  }
+}
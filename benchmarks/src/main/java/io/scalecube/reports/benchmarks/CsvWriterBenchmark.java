@@ -0,0 +1,87 @@
+package io.scalecube.reports.benchmarks;
+
+import io.scalecube.reports.csv.BufferedCsvWriter;
+import io.scalecube.reports.csv.ByteSink;
+import io.scalecube.reports.csv.CsvWriter;
+import io.scalecube.reports.csv.Utf8CsvWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CsvWriterBenchmark {
+
+  private static final int ROWS = 1024;
+
+  @Param({"8", "32"})
+  public int columns;
+
+  @Param({"16"})
+  public int fieldWidth;
+
+  @Param({"clean", "quoted"})
+  public String fields;
+
+  private String[][] lines;
+  private CsvWriter csvWriter;
+  private BufferedCsvWriter bufferedCsvWriter;
+  private Utf8CsvWriter utf8CsvWriter;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    lines = Rows.lines(ROWS, columns, fieldWidth, "quoted".equals(fields), new SplittableRandom(42));
+    csvWriter = new CsvWriter(Writer.nullWriter());
+    bufferedCsvWriter = new BufferedCsvWriter(Writer.nullWriter());
+    utf8CsvWriter = new Utf8CsvWriter(new NullByteSink());
+  }
+
+  @Benchmark
+  public void csvWriter() {
+    csvWriter.writeNext(nextLine());
+  }
+
+  @Benchmark
+  public void bufferedCsvWriter() {
+    bufferedCsvWriter.writeNext(nextLine());
+  }
+
+  @Benchmark
+  public void utf8CsvWriter() {
+    utf8CsvWriter.writeNext(nextLine());
+  }
+
+  private String[] nextLine() {
+    return lines[index++ & (ROWS - 1)];
+  }
+
+  private static final class NullByteSink implements ByteSink {
+
+    @Override
+    public void write(ByteBuffer buffer) {
+      buffer.position(buffer.limit());
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+  }
+}
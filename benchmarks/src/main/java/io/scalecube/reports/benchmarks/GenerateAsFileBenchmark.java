@@ -0,0 +1,66 @@
+package io.scalecube.reports.benchmarks;
+
+import io.scalecube.reports.benchmarks.Items.Item;
+import io.scalecube.reports.csv.CsvGenerator;
+import java.io.File;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** End-to-end report generation into a temp file, one report per operation. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class GenerateAsFileBenchmark {
+
+  @Param({"8", "32"})
+  public int columns;
+
+  @Param({"10000", "100000"})
+  public int rows;
+
+  @Param({"8", "32"})
+  public int fieldWidth;
+
+  private List<Item> items;
+  private File report;
+  private int sequence;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    items = Items.items(rows, fieldWidth, new SplittableRandom(42));
+  }
+
+  @Benchmark
+  public File generateAsFile() {
+    // Report file names have millisecond resolution, keep base names unique
+    report =
+        CsvGenerator.generateAsFile(
+            builder -> Items.report(builder, columns), items.stream(), "benchmark-" + sequence++);
+    return report;
+  }
+
+  @TearDown(Level.Invocation)
+  public void deleteReport() {
+    if (report != null) {
+      report.delete();
+      report = null;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package io.scalecube.reports.benchmarks;
+
+import io.scalecube.reports.csv.ColumnType;
+import io.scalecube.reports.csv.CsvReport;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+final class Items {
+
+  static final ZoneId ZONE_ID = ZoneId.of("Europe/Paris");
+
+  private static final long START_SECONDS =
+      LocalDateTime.parse("2024-01-01T00:00:00").toEpochSecond(ZoneOffset.UTC);
+
+  enum Kind {
+    STRING,
+    LONG,
+    BIG_DECIMAL,
+    LOCAL_DATE,
+    LOCAL_DATE_TIME,
+    SECONDS_DATE_TIME,
+    MILLISECONDS_DATE_TIME
+  }
+
+  record Item(
+      long id,
+      String name,
+      BigDecimal amount,
+      LocalDate date,
+      LocalDateTime timestamp,
+      long createdAtSeconds,
+      long createdAtMillis) {}
+
+  private Items() {
+    // Do not instantiate
+  }
+
+  static List<Item> items(int count, int fieldWidth, SplittableRandom random) {
+    final var items = new ArrayList<Item>(count);
+    for (int i = 0; i < count; i++) {
+      // Rows come in time order, few seconds apart
+      final long seconds = START_SECONDS + i * 7L + random.nextInt(7);
+      final long millis = seconds * 1000 + random.nextInt(1000);
+      items.add(
+          new Item(
+              random.nextLong(1_000_000_000L),
+              Rows.field(fieldWidth, false, random),
+              BigDecimal.valueOf(random.nextLong(100_000_000L), 2),
+              LocalDate.ofEpochDay(seconds / 86_400),
+              LocalDateTime.ofEpochSecond(seconds, (int) (millis % 1000) * 1_000_000, ZoneOffset.UTC),
+              seconds,
+              millis));
+    }
+    return items;
+  }
+
+  /** Report with {@code columns} columns cycling through all value kinds. */
+  static void report(CsvReport.Builder<Item> builder, int columns) {
+    builder.zoneId(ZONE_ID);
+    final Kind[] kinds = Kind.values();
+    for (int i = 0; i < columns; i++) {
+      column(builder, "Column " + i, kinds[i % kinds.length]);
+    }
+  }
+
+  static void column(CsvReport.Builder<Item> builder, String name, Kind kind) {
+    switch (kind) {
+      case STRING:
+        builder.addColumn(name, Item::name);
+        break;
+      case LONG:
+        builder.addColumn(name, Item::id);
+        break;
+      case BIG_DECIMAL:
+        builder.addColumn(name, Item::amount);
+        break;
+      case LOCAL_DATE:
+        builder.addColumn(name, Item::date);
+        break;
+      case LOCAL_DATE_TIME:
+        builder.addColumn(name, Item::timestamp);
+        break;
+      case SECONDS_DATE_TIME:
+        builder.addColumn(name, ColumnType.SECONDS_DATE_TIME, Item::createdAtSeconds);
+        break;
+      case MILLISECONDS_DATE_TIME:
+        builder.addColumn(name, ColumnType.MILLISECONDS_DATE_TIME, Item::createdAtMillis);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown kind: " + kind);
+    }
+  }
+}
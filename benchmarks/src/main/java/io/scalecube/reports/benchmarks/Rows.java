@@ -0,0 +1,33 @@
+package io.scalecube.reports.benchmarks;
+
+import java.util.SplittableRandom;
+
+final class Rows {
+
+  private static final String CLEAN_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789 .-";
+  private static final String QUOTED_CHARS = CLEAN_CHARS + ",\"\n";
+
+  private Rows() {
+    // Do not instantiate
+  }
+
+  static String[][] lines(
+      int rows, int columns, int fieldWidth, boolean quoted, SplittableRandom random) {
+    final var lines = new String[rows][columns];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        lines[i][j] = field(fieldWidth, quoted, random);
+      }
+    }
+    return lines;
+  }
+
+  static String field(int width, boolean quoted, SplittableRandom random) {
+    final String alphabet = quoted ? QUOTED_CHARS : CLEAN_CHARS;
+    final var sb = new StringBuilder(width);
+    for (int i = 0; i < width; i++) {
+      sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,163 @@
+package io.scalecube.reports.csv;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Writes {@link BigDecimal} cells as plain strings, either with trailing zeros stripped or with a
+ * fixed scale. Values of up to 15 digits are written digit by digit from the unscaled long, which
+ * is recovered exactly from {@link BigDecimal#doubleValue()} (computed by a single division for
+ * compact values), other values go through {@link BigDecimal#toPlainString()}.
+ */
+final class BigDecimalCellFormatter implements CellFormatter {
+
+  private static final int MAX_FAST_PRECISION = 15;
+  private static final int MAX_FAST_SCALE = 22;
+  private static final int MAX_LONG_PRECISION = 18;
+
+  private static final long[] LONG_TEN_POWERS = new long[MAX_LONG_PRECISION + 1];
+  // Exact doubles
+  private static final double[] DOUBLE_TEN_POWERS = new double[MAX_FAST_SCALE + 1];
+
+  static {
+    LONG_TEN_POWERS[0] = 1;
+    for (int i = 1; i < LONG_TEN_POWERS.length; i++) {
+      LONG_TEN_POWERS[i] = LONG_TEN_POWERS[i - 1] * 10;
+    }
+    DOUBLE_TEN_POWERS[0] = 1;
+    for (int i = 1; i < DOUBLE_TEN_POWERS.length; i++) {
+      DOUBLE_TEN_POWERS[i] = DOUBLE_TEN_POWERS[i - 1] * 10;
+    }
+  }
+
+  // Negative to strip trailing zeros
+  private final int scale;
+  private final RoundingMode roundingMode;
+
+  BigDecimalCellFormatter(int scale, RoundingMode roundingMode) {
+    this.scale = scale;
+    this.roundingMode = roundingMode;
+  }
+
+  @Override
+  public void format(Object value, CsvRow row) {
+    final BigDecimal decimal = (BigDecimal) value;
+    if (decimal.getClass() != BigDecimal.class || !formatFast(decimal, row)) {
+      row.append(formatGeneral(decimal)).endCell();
+    }
+  }
+
+  private boolean formatFast(BigDecimal decimal, CsvRow row) {
+    final int precision = decimal.precision();
+    final int valueScale = decimal.scale();
+    long unscaled;
+    if (valueScale == 0 && precision <= MAX_LONG_PRECISION) {
+      unscaled = decimal.longValue();
+    } else if (valueScale > 0 && valueScale <= MAX_FAST_SCALE && precision <= MAX_FAST_PRECISION) {
+      // |unscaled| < 10^15, the relative error of two roundings stays below 0.5
+      unscaled = Math.round(decimal.doubleValue() * DOUBLE_TEN_POWERS[valueScale]);
+    } else {
+      return false;
+    }
+
+    int targetScale = valueScale;
+    if (scale < 0) {
+      while (targetScale > 0 && unscaled % 10 == 0) {
+        unscaled /= 10;
+        targetScale--;
+      }
+    } else if (scale < valueScale) {
+      if (valueScale - scale > MAX_LONG_PRECISION) {
+        return false;
+      }
+      unscaled = round(unscaled, valueScale - scale);
+      targetScale = scale;
+    } else {
+      targetScale = scale;
+    }
+
+    appendPlain(row, unscaled, targetScale, targetScale - valueScale);
+    row.endCell();
+    return true;
+  }
+
+  private String formatGeneral(BigDecimal decimal) {
+    if (scale < 0) {
+      return decimal.stripTrailingZeros().toPlainString();
+    }
+    return decimal.setScale(scale, roundingMode).toPlainString();
+  }
+
+  // Same as BigDecimal.setScale(scale, roundingMode) for the unscaled value
+  private long round(long unscaled, int drop) {
+    final long divisor = LONG_TEN_POWERS[drop];
+    final long quotient = unscaled / divisor;
+    final long remainder = unscaled % divisor;
+    if (remainder == 0) {
+      return quotient;
+    }
+    final int signum = unscaled < 0 ? -1 : 1;
+    final boolean increment;
+    switch (roundingMode) {
+      case UP:
+        increment = true;
+        break;
+      case DOWN:
+        increment = false;
+        break;
+      case CEILING:
+        increment = signum > 0;
+        break;
+      case FLOOR:
+        increment = signum < 0;
+        break;
+      case UNNECESSARY:
+        throw new ArithmeticException("Rounding necessary");
+      default:
+        final int half = Long.compare(2 * Math.abs(remainder), divisor);
+        if (half != 0) {
+          increment = half > 0;
+        } else if (roundingMode == RoundingMode.HALF_UP) {
+          increment = true;
+        } else if (roundingMode == RoundingMode.HALF_DOWN) {
+          increment = false;
+        } else {
+          increment = (quotient & 1) != 0;
+        }
+    }
+    return increment ? quotient + signum : quotient;
+  }
+
+  // Writes unscaled * 10^-scale, the last trailingZeros digits of the fraction are zeros
+  private static void appendPlain(CsvRow row, long unscaled, int scale, int trailingZeros) {
+    if (unscaled < 0) {
+      row.append('-');
+      unscaled = -unscaled;
+    }
+    final int zeros = Math.max(trailingZeros, 0);
+    final int digits = digitCount(unscaled);
+    final int totalDigits = digits + zeros;
+    if (totalDigits <= scale) {
+      row.append('0').append('.');
+      for (int i = totalDigits; i < scale; i++) {
+        row.append('0');
+      }
+    }
+    final int integerDigits = totalDigits - scale;
+    for (int i = 0; i < totalDigits; i++) {
+      if (i == integerDigits && i > 0) {
+        row.append('.');
+      }
+      final int power = digits - 1 - i;
+      row.append(power < 0 ? '0' : (char) ('0' + (unscaled / LONG_TEN_POWERS[power]) % 10));
+    }
+  }
+
+  private static int digitCount(long value) {
+    int digits = 1;
+    while (digits < LONG_TEN_POWERS.length && value >= LONG_TEN_POWERS[digits]) {
+      digits++;
+    }
+    return digits;
+  }
+}
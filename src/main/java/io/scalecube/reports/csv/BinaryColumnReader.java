@@ -0,0 +1,243 @@
+package io.scalecube.reports.csv;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reads typed values of a report column for binary output formats, typed by value class as
+ * described by {@link OutputFormat}. A column must produce values of a single type.
+ */
+final class BinaryColumnReader<T> {
+
+  enum Type {
+    INT64,
+    FLOAT64,
+    DECIMAL,
+    /** Microseconds since 1970-01-01T00:00 of the local date-time in the report zone. */
+    TIMESTAMP,
+    /** Days since 1970-01-01. */
+    DATE,
+    BOOL,
+    TEXT
+  }
+
+  private final CsvReport<T> report;
+  private final CsvColumn<T> column;
+  private final int index;
+  private final ZoneRules zoneRules;
+
+  private final Predicate<T> presence;
+  private final ToLongFunction<T> longMapper;
+  private final ToDoubleFunction<T> doubleMapper;
+  private final Type primitiveType;
+  private final Function<T, Object> mapper;
+
+  // Monomorphic cache of the value class
+  private Class<?> cachedClass;
+  private Type cachedType;
+  private CellFormatter cachedFormatter;
+  private final CsvRow textRow = new CsvRow(1);
+
+  private Type columnType;
+  private long longValue;
+  private double doubleValue;
+  private Object objectValue;
+
+  BinaryColumnReader(CsvReport<T> report, int index) {
+    this.report = report;
+    this.column = report.columns().get(index);
+    this.index = index;
+    final ZoneId zoneId = report.zoneId();
+    this.zoneRules = zoneId == null || zoneId.equals(ZoneOffset.UTC) ? null : zoneId.getRules();
+    this.mapper = column.mapper();
+
+    // Custom formatters registered for the boxed type take precedence, as in CSV
+    final CsvColumn.PrimitiveMapper<T> primitiveMapper = column.primitiveMapper();
+    if (primitiveMapper instanceof CsvColumn.LongMapper<T> longColumn
+        && report.findCustomFormatter(Long.class) == null) {
+      presence = longColumn.presence();
+      longMapper = longColumn.mapper();
+      doubleMapper = null;
+      primitiveType = column.type() != null ? Type.TIMESTAMP : Type.INT64;
+    } else if (primitiveMapper instanceof CsvColumn.IntMapper<T> intColumn
+        && report.findCustomFormatter(Integer.class) == null) {
+      presence = intColumn.presence();
+      longMapper = intColumn.mapper()::applyAsInt;
+      doubleMapper = null;
+      primitiveType = Type.INT64;
+    } else if (primitiveMapper instanceof CsvColumn.DoubleMapper<T> doubleColumn
+        && report.findCustomFormatter(Double.class) == null) {
+      presence = doubleColumn.presence();
+      longMapper = null;
+      doubleMapper = doubleColumn.mapper();
+      primitiveType = Type.FLOAT64;
+    } else {
+      presence = null;
+      longMapper = null;
+      doubleMapper = null;
+      primitiveType = null;
+    }
+  }
+
+  /** Reads value of the row, returns its type or {@code null} for a null value. */
+  Type read(T row) {
+    final Type type = readValue(row);
+    if (type != null && type != columnType) {
+      if (columnType != null) {
+        throw new IllegalStateException(
+            "Report column["
+                + index
+                + "] values could not be of both "
+                + columnType
+                + " and "
+                + type
+                + " types");
+      }
+      columnType = type;
+    }
+    return type;
+  }
+
+  /** Type of the values read so far, {@code null} when all were null. */
+  Type columnType() {
+    return columnType;
+  }
+
+  long longValue() {
+    return longValue;
+  }
+
+  double doubleValue() {
+    return doubleValue;
+  }
+
+  BigDecimal decimalValue() {
+    return (BigDecimal) objectValue;
+  }
+
+  String textValue() {
+    return (String) objectValue;
+  }
+
+  private Type readValue(T row) {
+    if (primitiveType != null) {
+      if (presence != null && !presence.test(row)) {
+        return null;
+      }
+      if (doubleMapper != null) {
+        doubleValue = doubleMapper.applyAsDouble(row);
+      } else if (primitiveType == Type.TIMESTAMP) {
+        longValue = epochTimestamp(longMapper.applyAsLong(row));
+      } else {
+        longValue = longMapper.applyAsLong(row);
+      }
+      return primitiveType;
+    }
+
+    final Object value = mapper.apply(row);
+    if (value == null) {
+      return null;
+    }
+    final Class<?> valueClass = value.getClass();
+    if (valueClass != cachedClass) {
+      cachedType = resolveType(valueClass);
+      cachedFormatter =
+          cachedType == Type.TEXT ? report.resolveFormatter(valueClass, column) : null;
+      cachedClass = valueClass;
+    }
+    switch (cachedType) {
+      case INT64 -> longValue = ((Number) value).longValue();
+      case FLOAT64 -> doubleValue = ((Number) value).doubleValue();
+      case DECIMAL -> objectValue = decimal(value);
+      case TIMESTAMP -> longValue =
+          value instanceof LocalDateTime dateTime
+              ? localMicros(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano())
+              : epochTimestamp((Long) value);
+      case DATE -> longValue = ((LocalDate) value).toEpochDay();
+      case BOOL -> longValue = (Boolean) value ? 1 : 0;
+      default -> {
+        if (value instanceof String text && cachedFormatter == CellFormatters.STRING) {
+          objectValue = text;
+        } else {
+          textRow.clear();
+          cachedFormatter.format(value, textRow);
+          objectValue = textRow.get(0);
+          if (objectValue == null) {
+            return null;
+          }
+        }
+      }
+    }
+    return cachedType;
+  }
+
+  private Type resolveType(Class<?> valueClass) {
+    if (report.findCustomFormatter(valueClass) != null) {
+      return Type.TEXT;
+    }
+    if (valueClass == Long.class && column.type() != null) {
+      return Type.TIMESTAMP;
+    }
+    if (valueClass == Long.class
+        || valueClass == Integer.class
+        || valueClass == Short.class
+        || valueClass == Byte.class) {
+      return Type.INT64;
+    }
+    if (valueClass == Double.class || valueClass == Float.class) {
+      return Type.FLOAT64;
+    }
+    if (BigDecimal.class.isAssignableFrom(valueClass) || valueClass == BigInteger.class) {
+      return Type.DECIMAL;
+    }
+    if (valueClass == LocalDateTime.class) {
+      return Type.TIMESTAMP;
+    }
+    if (valueClass == LocalDate.class) {
+      return Type.DATE;
+    }
+    if (valueClass == Boolean.class) {
+      return Type.BOOL;
+    }
+    return Type.TEXT;
+  }
+
+  private BigDecimal decimal(Object value) {
+    final BigDecimal decimal =
+        value instanceof BigInteger integer ? new BigDecimal(integer) : (BigDecimal) value;
+    final CsvColumn.DecimalScale decimalScale = column.decimalScale();
+    return decimalScale != null
+        ? decimal.setScale(decimalScale.scale(), decimalScale.roundingMode())
+        : decimal;
+  }
+
+  private long epochTimestamp(long epochValue) {
+    if (column.type() == ColumnType.MILLISECONDS_DATE_TIME) {
+      return localMicros(
+          Math.floorDiv(epochValue, 1000L), (int) Math.floorMod(epochValue, 1000L) * 1_000_000);
+    }
+    return localMicros(epochValue, 0);
+  }
+
+  /** Converts UTC epoch time to microseconds of the local date-time in the report zone. */
+  private long localMicros(long epochSecond, int nano) {
+    long localSecond = epochSecond;
+    if (zoneRules != null) {
+      localSecond +=
+          zoneRules.isFixedOffset()
+              ? zoneRules.getOffset(Instant.EPOCH).getTotalSeconds()
+              : zoneRules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+    }
+    return localSecond * 1_000_000L + nano / 1000;
+  }
+}
@@ -0,0 +1,161 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Buffered big-endian writer of binary report formats. */
+final class BinaryWriter implements AutoCloseable {
+
+  private final ByteSink sink;
+  private final ByteBuffer buffer;
+  private long flushedBytes;
+
+  BinaryWriter(ByteSink sink, int bufferSize) {
+    this.sink = sink;
+    this.buffer = ByteBuffer.allocate(bufferSize);
+  }
+
+  void putByte(int value) {
+    ensure(Byte.BYTES);
+    buffer.put((byte) value);
+  }
+
+  void putShort(int value) {
+    ensure(Short.BYTES);
+    buffer.putShort((short) value);
+  }
+
+  void putInt(int value) {
+    ensure(Integer.BYTES);
+    buffer.putInt(value);
+  }
+
+  void putLong(long value) {
+    ensure(Long.BYTES);
+    buffer.putLong(value);
+  }
+
+  /** Unsigned LEB128 varint. */
+  void putVarLong(long value) {
+    ensure(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  void putBytes(byte[] bytes, int offset, int length) {
+    while (length > 0) {
+      ensure(1);
+      final int n = Math.min(length, buffer.remaining());
+      buffer.put(bytes, offset, n);
+      offset += n;
+      length -= n;
+    }
+  }
+
+  /** Writes UTF-8 bytes of the string, {@code utf8Length} as returned by {@link #utf8Length}. */
+  void putUtf8(String value, int utf8Length) {
+    if (utf8Length == value.length()) {
+      for (int i = 0; i < utf8Length; i++) {
+        ensure(1);
+        buffer.put((byte) value.charAt(i));
+      }
+      return;
+    }
+    final int length = value.length();
+    for (int i = 0; i < length; i++) {
+      ensure(4);
+      final char c = value.charAt(i);
+      if (c < 0x80) {
+        buffer.put((byte) c);
+      } else if (c < 0x800) {
+        buffer.put((byte) (0xC0 | (c >> 6)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else if (Character.isSurrogate(c)) {
+        if (Character.isHighSurrogate(c)
+            && i + 1 < length
+            && Character.isLowSurrogate(value.charAt(i + 1))) {
+          final int cp = Character.toCodePoint(c, value.charAt(++i));
+          buffer.put((byte) (0xF0 | (cp >> 18)));
+          buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+          buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+          buffer.put((byte) (0x80 | (cp & 0x3F)));
+        } else {
+          buffer.put((byte) '?');
+        }
+      } else {
+        buffer.put((byte) (0xE0 | (c >> 12)));
+        buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      }
+    }
+  }
+
+  /**
+   * Number of UTF-8 bytes of the string. Unpaired surrogates count as the {@code '?'} they are
+   * replaced with, like {@link String#getBytes(java.nio.charset.Charset)} does.
+   */
+  static int utf8Length(String value) {
+    final int length = value.length();
+    int bytes = length;
+    for (int i = 0; i < length; i++) {
+      final char c = value.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          bytes++;
+        } else if (Character.isHighSurrogate(c)
+            && i + 1 < length
+            && Character.isLowSurrogate(value.charAt(i + 1))) {
+          bytes += 2;
+          i++;
+        } else if (!Character.isSurrogate(c)) {
+          bytes += 2;
+        }
+      }
+    }
+    return bytes;
+  }
+
+  long bytesWritten() {
+    return flushedBytes + buffer.position();
+  }
+
+  void flush() {
+    flushBuffer();
+    try {
+      sink.flush();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flushBuffer();
+    } finally {
+      sink.close();
+    }
+  }
+
+  private void ensure(int bytes) {
+    if (buffer.remaining() < bytes) {
+      flushBuffer();
+    }
+  }
+
+  private void flushBuffer() {
+    if (buffer.position() == 0) {
+      return;
+    }
+    try {
+      flushedBytes += buffer.position();
+      sink.write(buffer.flip());
+      buffer.clear();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
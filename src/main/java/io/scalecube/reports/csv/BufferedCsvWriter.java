@@ -0,0 +1,184 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CSV writer escaping fields straight into a reusable char buffer which is flushed to the
+ * underlying {@link Writer} in large blocks. Every field is classified in a single pass, fields
+ * containing a quote, separator, {@code \n} or {@code \r} are quoted.
+ */
+public class BufferedCsvWriter implements AutoCloseable {
+
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private static final char SEPARATOR = ',';
+  private static final char QUOTE = '"';
+  private static final char NEW_LINE = '\n';
+
+  // Bit N is set when char N (all special chars are below 64) requires the field to be quoted
+  private static final long SPECIAL_CHARS_MASK =
+      (1L << QUOTE) | (1L << SEPARATOR) | (1L << NEW_LINE) | (1L << '\r');
+
+  private final Writer writer;
+  private final char[] buffer;
+  private int position;
+
+  public BufferedCsvWriter(Writer writer) {
+    this(writer, DEFAULT_BUFFER_SIZE);
+  }
+
+  public BufferedCsvWriter(Writer writer, int bufferSize) {
+    if (bufferSize < 16) {
+      throw new IllegalArgumentException("Buffer size could not be less than 16");
+    }
+    this.writer = writer;
+    this.buffer = new char[bufferSize];
+  }
+
+  public void writeNext(String[] nextLine) {
+    if (nextLine == null) {
+      return;
+    }
+    for (int i = 0; i < nextLine.length; i++) {
+      if (i > 0) {
+        put(SEPARATOR);
+      }
+      final String field = nextLine[i];
+      if (field != null) {
+        writeField(field);
+      }
+    }
+    put(NEW_LINE);
+  }
+
+  public void writeRow(CsvRow row) {
+    final char[] chars = row.buffer();
+    for (int i = 0; i < row.size(); i++) {
+      if (i > 0) {
+        put(SEPARATOR);
+      }
+      final int start = row.start(i);
+      final int end = row.end(i);
+      if (needsQuotes(chars, start, end)) {
+        writeQuoted(chars, start, end);
+      } else {
+        put(chars, start, end - start);
+      }
+    }
+    put(NEW_LINE);
+  }
+
+  public void flush() {
+    flushBuffer();
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flushBuffer();
+    } finally {
+      writer.close();
+    }
+  }
+
+  static boolean isSpecial(char c) {
+    return c < 64 && ((SPECIAL_CHARS_MASK >>> c) & 1) != 0;
+  }
+
+  static boolean needsQuotes(char[] chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (isSpecial(chars[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writeField(String field) {
+    final int length = field.length();
+    for (int i = 0; i < length; i++) {
+      if (isSpecial(field.charAt(i))) {
+        writeQuoted(field);
+        return;
+      }
+    }
+    put(field, 0, length);
+  }
+
+  private void writeQuoted(char[] chars, int start, int end) {
+    put(QUOTE);
+    int from = start;
+    for (int i = start; i < end; i++) {
+      if (chars[i] == QUOTE) {
+        put(chars, from, i + 1 - from);
+        put(QUOTE);
+        from = i + 1;
+      }
+    }
+    put(chars, from, end - from);
+    put(QUOTE);
+  }
+
+  private void writeQuoted(String field) {
+    put(QUOTE);
+    int from = 0;
+    for (int i = field.indexOf(QUOTE); i >= 0; i = field.indexOf(QUOTE, i + 1)) {
+      put(field, from, i + 1 - from);
+      put(QUOTE);
+      from = i + 1;
+    }
+    put(field, from, field.length() - from);
+    put(QUOTE);
+  }
+
+  private void put(char c) {
+    if (position == buffer.length) {
+      flushBuffer();
+    }
+    buffer[position++] = c;
+  }
+
+  private void put(char[] chars, int offset, int length) {
+    while (length > 0) {
+      if (position == buffer.length) {
+        flushBuffer();
+      }
+      final int n = Math.min(length, buffer.length - position);
+      System.arraycopy(chars, offset, buffer, position, n);
+      position += n;
+      offset += n;
+      length -= n;
+    }
+  }
+
+  private void put(String value, int offset, int length) {
+    while (length > 0) {
+      if (position == buffer.length) {
+        flushBuffer();
+      }
+      final int n = Math.min(length, buffer.length - position);
+      value.getChars(offset, offset + n, buffer, position);
+      position += n;
+      offset += n;
+      length -= n;
+    }
+  }
+
+  private void flushBuffer() {
+    if (position == 0) {
+      return;
+    }
+    try {
+      writer.write(buffer, 0, position);
+      position = 0;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Destination of encoded report bytes. */
+public interface ByteSink extends AutoCloseable {
+
+  /** Writes all remaining bytes of the buffer. */
+  void write(ByteBuffer buffer) throws IOException;
+
+  /** Writes all remaining bytes of {@code length} buffers, starting with {@code offset}. */
+  default void write(ByteBuffer[] buffers, int offset, int length) throws IOException {
+    for (int i = offset; i < offset + length; i++) {
+      write(buffers[i]);
+    }
+  }
+
+  default void flush() throws IOException {
+    // no-op
+  }
+
+  /** Flushes and forces written bytes to the storage device, where the sink has one. */
+  default void force() throws IOException {
+    flush();
+  }
+
+  @Override
+  void close() throws IOException;
+}
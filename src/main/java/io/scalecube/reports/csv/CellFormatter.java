@@ -0,0 +1,8 @@
+package io.scalecube.reports.csv;
+
+/** Writes one non-null cell value into the row, including closing the cell. */
+@FunctionalInterface
+interface CellFormatter {
+
+  void format(Object value, CsvRow row);
+}
@@ -0,0 +1,55 @@
+package io.scalecube.reports.csv;
+
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Function;
+
+final class CellFormatters {
+
+  static final CellFormatter STRING = (value, row) -> row.append((String) value).endCell();
+
+  static final CellFormatter INTEGRAL =
+      (value, row) -> row.appendLong(((Number) value).longValue()).endCell();
+
+  static final CellFormatter BIG_DECIMAL = new BigDecimalCellFormatter(-1, null);
+
+  static final CellFormatter TO_STRING = (value, row) -> row.append(String.valueOf(value)).endCell();
+
+  private CellFormatters() {
+    // Do not instantiate
+  }
+
+  static CellFormatter custom(Function<Object, String> formatter) {
+    return (value, row) -> {
+      final String result = formatter.apply(value);
+      if (result == null) {
+        row.endNullCell();
+      } else {
+        row.append(result).endCell();
+      }
+    };
+  }
+
+  static CellFormatter bigDecimal(int scale, RoundingMode roundingMode) {
+    return new BigDecimalCellFormatter(scale, roundingMode);
+  }
+
+  static CellFormatter localDateTime(DateTimeFormatter pattern, ZoneId zoneId) {
+    return new DateTimeCellFormatter(
+        DateTimeCellFormatter.Source.LOCAL_DATE_TIME, pattern, zoneId);
+  }
+
+  static CellFormatter localDate(DateTimeFormatter pattern) {
+    return (value, row) -> row.append(((LocalDate) value).format(pattern)).endCell();
+  }
+
+  static CellFormatter epochMillis(DateTimeFormatter pattern, ZoneId zoneId) {
+    return new DateTimeCellFormatter(DateTimeCellFormatter.Source.EPOCH_MILLIS, pattern, zoneId);
+  }
+
+  static CellFormatter epochSeconds(DateTimeFormatter pattern, ZoneId zoneId) {
+    return new DateTimeCellFormatter(DateTimeCellFormatter.Source.EPOCH_SECONDS, pattern, zoneId);
+  }
+}
@@ -0,0 +1,96 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/** Writes through a direct {@link ByteBuffer} so channels are handed native memory directly. */
+public class ChannelByteSink implements ByteSink {
+
+  public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer directBuffer;
+
+  public ChannelByteSink(WritableByteChannel channel) {
+    this(channel, DEFAULT_BUFFER_SIZE);
+  }
+
+  public ChannelByteSink(WritableByteChannel channel, int bufferSize) {
+    this.channel = channel;
+    this.directBuffer = ByteBuffer.allocateDirect(bufferSize);
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) throws IOException {
+    if (buffer.isDirect()) {
+      drain();
+      writeFully(buffer);
+      return;
+    }
+    while (buffer.hasRemaining()) {
+      if (!directBuffer.hasRemaining()) {
+        drain();
+      }
+      final int n = Math.min(buffer.remaining(), directBuffer.remaining());
+      final int limit = buffer.limit();
+      buffer.limit(buffer.position() + n);
+      directBuffer.put(buffer);
+      buffer.limit(limit);
+    }
+  }
+
+  /** Gathers the buffers into one write when the channel supports it. */
+  @Override
+  public void write(ByteBuffer[] buffers, int offset, int length) throws IOException {
+    if (!(channel instanceof GatheringByteChannel gatheringChannel)) {
+      ByteSink.super.write(buffers, offset, length);
+      return;
+    }
+    drain();
+    int first = offset;
+    final int end = offset + length;
+    while (first < end) {
+      gatheringChannel.write(buffers, first, end - first);
+      while (first < end && !buffers[first].hasRemaining()) {
+        first++;
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    drain();
+  }
+
+  @Override
+  public void force() throws IOException {
+    drain();
+    if (channel instanceof FileChannel fileChannel) {
+      fileChannel.force(false);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      drain();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void drain() throws IOException {
+    directBuffer.flip();
+    writeFully(directBuffer);
+    directBuffer.clear();
+  }
+
+  private void writeFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package io.scalecube.reports.csv;
+
+/** Compiled encoder of one column: extracts the value from the row object and writes one cell. */
+interface ColumnEncoder<T> {
+
+  void encode(T row, CsvRow out);
+
+  /**
+   * Same as {@link #encode(Object, CsvRow)}, adds nanos spent in the mapper and in the formatter to
+   * {@code nanos[2 * column]} and {@code nanos[2 * column + 1]}.
+   */
+  void encodeTimed(T row, CsvRow out, long[] nanos, int column);
+
+  static void addNanos(long[] nanos, int column, long start, long mapped) {
+    nanos[2 * column] += mapped - start;
+    nanos[2 * column + 1] += System.nanoTime() - mapped;
+  }
+}
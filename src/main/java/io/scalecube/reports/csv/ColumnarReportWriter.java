@@ -0,0 +1,287 @@
+package io.scalecube.reports.csv;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Writes report rows in a self-describing chunked columnar format. Numbers are big-endian, varints
+ * unsigned LEB128, signed varints zigzag encoded, strings a varint UTF-8 length followed by the
+ * bytes:
+ *
+ * <pre>
+ * file   := "RCOL" version:u8 varint(columns) name:string* chunk* varint(0)
+ * chunk  := varint(rows) column*
+ * column := type:u8                            0 when all values are null, nothing follows
+ *           nulls:u8 [bitmap]                  1 if some are null, bit row % 8 of byte row / 8
+ *                                              of the bitmap is set for present values
+ *           encoding:u8 varint(length) values  values of present rows only
+ * </pre>
+ *
+ * <p>Types are 1 {@code INT64}, 2 {@code FLOAT64}, 3 {@code DECIMAL}, 4 {@code TIMESTAMP}, 5 {@code
+ * DATE}, 6 {@code BOOL} and 7 {@code TEXT}, see {@link BinaryColumnReader.Type}. Encodings are:
+ *
+ * <ul>
+ *   <li>0 plain: 8-byte longs (timestamps are micros) and doubles, 4-byte days, a bitmap of
+ *       booleans as for nulls, decimals as a signed varint scale and a string-like two's-complement
+ *       unscaled value, strings
+ *   <li>1 delta: signed varint difference of integral values to the previous present value
+ *   <li>2 dictionary: varint size, distinct strings, varint index of every value
+ * </ul>
+ *
+ * <p>Integral columns take the smaller of plain and delta, text columns use a dictionary when at
+ * most half of the values are distinct. {@code length} allows readers to skip columns.
+ */
+final class ColumnarReportWriter<T> {
+
+  static final byte[] MAGIC = {'R', 'C', 'O', 'L'};
+  static final int VERSION = 1;
+
+  private static final int PLAIN = 0;
+  private static final int DELTA = 1;
+  private static final int DICTIONARY = 2;
+
+  private final CsvReport<T> report;
+  private final int chunkSize;
+  private final ColumnChunk<T>[] columns;
+
+  private final HeapByteSink valueBytes = new HeapByteSink(64 * 1024);
+  private final BinaryWriter values = new BinaryWriter(valueBytes, 8 * 1024);
+
+  @SuppressWarnings("unchecked")
+  ColumnarReportWriter(CsvReport<T> report, int chunkSize) {
+    this.report = report;
+    this.chunkSize = chunkSize;
+    columns = (ColumnChunk<T>[]) new ColumnChunk<?>[report.columns().size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = new ColumnChunk<>(new BinaryColumnReader<>(report, i), chunkSize);
+    }
+  }
+
+  void write(Iterator<T> rows, BinaryWriter out) {
+    out.putBytes(MAGIC, 0, MAGIC.length);
+    out.putByte(VERSION);
+    out.putVarLong(columns.length);
+    for (String name : report.columnsHeader()) {
+      putString(name, out);
+    }
+
+    int size = 0;
+    while (rows.hasNext()) {
+      final T row = rows.next();
+      for (ColumnChunk<T> column : columns) {
+        column.read(row, size);
+      }
+      if (++size == chunkSize) {
+        writeChunk(size, out);
+        size = 0;
+      }
+    }
+    if (size > 0) {
+      writeChunk(size, out);
+    }
+    out.putVarLong(0);
+  }
+
+  private void writeChunk(int size, BinaryWriter out) {
+    out.putVarLong(size);
+    for (ColumnChunk<T> column : columns) {
+      writeColumn(column, size, out);
+    }
+  }
+
+  private void writeColumn(ColumnChunk<T> column, int size, BinaryWriter out) {
+    final BinaryColumnReader.Type type = column.reader.columnType();
+    if (column.present == 0) {
+      out.putByte(0);
+      return;
+    }
+    out.putByte(type.ordinal() + 1);
+    if (column.present < size) {
+      out.putByte(1);
+      final byte[] bitmap = column.presenceBitmap(size);
+      out.putBytes(bitmap, 0, (size + 7) >>> 3);
+    } else {
+      out.putByte(0);
+    }
+
+    valueBytes.reset();
+    final int encoding =
+        switch (type) {
+          case INT64, TIMESTAMP -> writeIntegral(column, size, Long.BYTES);
+          case DATE -> writeIntegral(column, size, Integer.BYTES);
+          case FLOAT64 -> {
+            for (int i = 0; i < size; i++) {
+              if (!column.nulls[i]) {
+                values.putLong(Double.doubleToRawLongBits(column.doubles[i]));
+              }
+            }
+            yield PLAIN;
+          }
+          case BOOL -> {
+            final byte[] bitmap = column.booleanBitmap(size);
+            values.putBytes(bitmap, 0, (column.present + 7) >>> 3);
+            yield PLAIN;
+          }
+          case DECIMAL -> {
+            for (int i = 0; i < size; i++) {
+              if (!column.nulls[i]) {
+                final BigDecimal decimal = (BigDecimal) column.objects[i];
+                values.putVarLong(zigzag(decimal.scale()));
+                final byte[] unscaled = decimal.unscaledValue().toByteArray();
+                values.putVarLong(unscaled.length);
+                values.putBytes(unscaled, 0, unscaled.length);
+              }
+            }
+            yield PLAIN;
+          }
+          default -> writeText(column, size);
+        };
+    values.flush();
+
+    out.putByte(encoding);
+    out.putVarLong(valueBytes.size());
+    out.putBytes(valueBytes.array(), 0, valueBytes.size());
+  }
+
+  private int writeIntegral(ColumnChunk<T> column, int size, int plainBytes) {
+    long deltaBytes = 0;
+    long previous = 0;
+    for (int i = 0; i < size; i++) {
+      if (!column.nulls[i]) {
+        deltaBytes += varLongSize(zigzag(column.longs[i] - previous));
+        previous = column.longs[i];
+      }
+    }
+    final boolean delta = deltaBytes < (long) column.present * plainBytes;
+    previous = 0;
+    for (int i = 0; i < size; i++) {
+      if (!column.nulls[i]) {
+        final long value = column.longs[i];
+        if (delta) {
+          values.putVarLong(zigzag(value - previous));
+          previous = value;
+        } else if (plainBytes == Long.BYTES) {
+          values.putLong(value);
+        } else {
+          values.putInt(Math.toIntExact(value));
+        }
+      }
+    }
+    return delta ? DELTA : PLAIN;
+  }
+
+  private int writeText(ColumnChunk<T> column, int size) {
+    final Map<String, Integer> dictionary = column.dictionary;
+    dictionary.clear();
+    for (int i = 0; i < size && 2 * dictionary.size() <= column.present; i++) {
+      if (!column.nulls[i]) {
+        dictionary.putIfAbsent((String) column.objects[i], dictionary.size());
+      }
+    }
+    if (2 * dictionary.size() > column.present) {
+      for (int i = 0; i < size; i++) {
+        if (!column.nulls[i]) {
+          putString((String) column.objects[i], values);
+        }
+      }
+      return PLAIN;
+    }
+
+    values.putVarLong(dictionary.size());
+    final String[] entries = new String[dictionary.size()];
+    dictionary.forEach((text, id) -> entries[id] = text);
+    for (String text : entries) {
+      putString(text, values);
+    }
+    for (int i = 0; i < size; i++) {
+      if (!column.nulls[i]) {
+        values.putVarLong(dictionary.get((String) column.objects[i]));
+      }
+    }
+    return DICTIONARY;
+  }
+
+  private static void putString(String value, BinaryWriter out) {
+    final int length = BinaryWriter.utf8Length(value);
+    out.putVarLong(length);
+    out.putUtf8(value, length);
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static int varLongSize(long value) {
+    return Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(value) + 6) / 7);
+  }
+
+  /** Values of one column of the current chunk, primitive values are kept unboxed. */
+  private static final class ColumnChunk<T> {
+
+    private final BinaryColumnReader<T> reader;
+    private final boolean[] nulls;
+    private final long[] longs;
+    private final double[] doubles;
+    private final Object[] objects;
+    private final byte[] bitmap;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private int present;
+
+    private ColumnChunk(BinaryColumnReader<T> reader, int chunkSize) {
+      this.reader = reader;
+      nulls = new boolean[chunkSize];
+      longs = new long[chunkSize];
+      doubles = new double[chunkSize];
+      objects = new Object[chunkSize];
+      bitmap = new byte[(chunkSize + 7) >>> 3];
+    }
+
+    private void read(T row, int index) {
+      if (index == 0) {
+        present = 0;
+      }
+      final BinaryColumnReader.Type type = reader.read(row);
+      nulls[index] = type == null;
+      if (type == null) {
+        objects[index] = null;
+        return;
+      }
+      present++;
+      switch (type) {
+        case FLOAT64 -> doubles[index] = reader.doubleValue();
+        case DECIMAL -> objects[index] = reader.decimalValue();
+        case TEXT -> objects[index] = reader.textValue();
+        default -> longs[index] = reader.longValue();
+      }
+    }
+
+    /** Bitmap of rows having a value. */
+    private byte[] presenceBitmap(int size) {
+      Arrays.fill(bitmap, (byte) 0);
+      for (int i = 0; i < size; i++) {
+        if (!nulls[i]) {
+          bitmap[i >>> 3] |= (byte) (1 << (i & 7));
+        }
+      }
+      return bitmap;
+    }
+
+    /** Bitmap of boolean values of present rows, packed one after another. */
+    private byte[] booleanBitmap(int size) {
+      Arrays.fill(bitmap, (byte) 0);
+      int bit = 0;
+      for (int i = 0; i < size; i++) {
+        if (!nulls[i]) {
+          if (longs[i] != 0) {
+            bitmap[bit >>> 3] |= (byte) (1 << (bit & 7));
+          }
+          bit++;
+        }
+      }
+      return bitmap;
+    }
+  }
+}
@@ -0,0 +1,6 @@
+package io.scalecube.reports.csv;
+
+public enum Compression {
+  NONE,
+  GZIP
+}
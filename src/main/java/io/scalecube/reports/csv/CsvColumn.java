@@ -1,5 +1,54 @@
 package io.scalecube.reports.csv;
 
+import java.math.RoundingMode;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
-public record CsvColumn<T>(String columnName, ColumnType type, Function<T, Object> mapper) {}
+/**
+ * Report column. Columns added with a primitive mapper keep {@code mapper} as a boxing view of it
+ * for compatibility, encoders use {@code primitiveMapper} directly. {@code primitiveMapper} and
+ * {@code decimalScale} are optional. {@code cacheValues} caches encoded cells of every value type,
+ * see {@link CsvReport.Builder#cacheValues}.
+ */
+public record CsvColumn<T>(
+    String columnName,
+    ColumnType type,
+    Function<T, Object> mapper,
+    PrimitiveMapper<T> primitiveMapper,
+    DecimalScale decimalScale,
+    boolean cacheValues) {
+
+  public CsvColumn(String columnName, ColumnType type, Function<T, Object> mapper) {
+    this(columnName, type, mapper, null, null);
+  }
+
+  public CsvColumn(
+      String columnName,
+      ColumnType type,
+      Function<T, Object> mapper,
+      PrimitiveMapper<T> primitiveMapper,
+      DecimalScale decimalScale) {
+    this(columnName, type, mapper, primitiveMapper, decimalScale, false);
+  }
+
+  /** Fixed scale of {@link java.math.BigDecimal} values, applied as by {@code setScale}. */
+  public record DecimalScale(int scale, RoundingMode roundingMode) {}
+
+  /** Primitive mapper, {@code presence} (nullable) tells whether the row has a value at all. */
+  public sealed interface PrimitiveMapper<T> {
+
+    Predicate<T> presence();
+  }
+
+  public record LongMapper<T>(Predicate<T> presence, ToLongFunction<T> mapper)
+      implements PrimitiveMapper<T> {}
+
+  public record IntMapper<T>(Predicate<T> presence, ToIntFunction<T> mapper)
+      implements PrimitiveMapper<T> {}
+
+  public record DoubleMapper<T>(Predicate<T> presence, ToDoubleFunction<T> mapper)
+      implements PrimitiveMapper<T> {}
+}
@@ -1,19 +1,45 @@
 package io.scalecube.reports.csv;
 
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class CsvGenerator {
 
   private static final String TEMP_DIR = System.getProperty("java.io.tmpdir");
   private static final DateTimeFormatter FORMATTER =
       DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+  // Names of one prefix generated within the same millisecond get a counter
+  private static final int MAX_NAME_ATTEMPTS = 1000;
 
   private CsvGenerator() {
     // Do not instantiate
@@ -21,46 +47,771 @@ private CsvGenerator() {
 
   public static <T> File generateAsFile(
       Consumer<CsvReport.Builder<T>> builder, Stream<T> dataSource, String baseName) {
+    return generateAsFile(builder, dataSource, baseName, options -> {});
+  }
+
+  public static <T> File generateAsFile(
+      Consumer<CsvReport.Builder<T>> builder,
+      Stream<T> dataSource,
+      String baseName,
+      Consumer<GenerationOptions.Builder> options) {
+    final var reportDefinition = buildReport(builder);
+    final var generationOptions = buildOptions(options);
+    final List<SpscRing<?>> stages = new ArrayList<>();
+    return generateAsFile(
+        reportDefinition,
+        prefetch(dataSource, generationOptions, stages),
+        baseName,
+        generationOptions,
+        stages);
+  }
+
+  public static <T> File generateAsFile(
+      Consumer<CsvReport.Builder<T>> builder, PagedSource<T> dataSource, String baseName) {
+    return generateAsFile(builder, dataSource, baseName, options -> {});
+  }
+
+  /**
+   * Generates the report of rows returned a page at a time. With {@code prefetchBatches} the next
+   * pages are fetched on a dedicated thread while previous ones are encoded. The source is closed
+   * once generation completes or fails.
+   */
+  public static <T> File generateAsFile(
+      Consumer<CsvReport.Builder<T>> builder,
+      PagedSource<T> dataSource,
+      String baseName,
+      Consumer<GenerationOptions.Builder> options) {
+    if (dataSource == null) {
+      throw new IllegalArgumentException("Paged source could not be null");
+    }
+    final var reportDefinition = buildReport(builder);
+    final var generationOptions = buildOptions(options);
+    final List<SpscRing<?>> stages = new ArrayList<>();
+    return generateAsFile(
+        reportDefinition,
+        prefetch(dataSource, generationOptions, stages),
+        baseName,
+        generationOptions,
+        stages);
+  }
+
+  private static <T> File generateAsFile(
+      CsvReport<T> reportDefinition,
+      Stream<T> dataSource,
+      String baseName,
+      GenerationOptions generationOptions,
+      List<SpscRing<?>> stages) {
+    try (Stream<T> rows = dataSource) {
+      File reportFile =
+          createFile(
+              baseName + "-",
+              fileSuffix(generationOptions.outputFormat(), generationOptions.compression()));
+
+      try {
+        if (generationOptions.outputFormat() == OutputFormat.CSV) {
+          try (var csvWriter =
+              new Utf8CsvWriter(
+                  openSink(reportFile, generationOptions, stages),
+                  generationOptions.bufferSize())) {
+            writeReport(
+                reportDefinition,
+                rows,
+                csvWriter,
+                generationOptions,
+                reportFile.getName(),
+                stages);
+          }
+        } else {
+          try (var binaryWriter =
+              new BinaryWriter(
+                  openSink(reportFile, generationOptions, stages),
+                  generationOptions.bufferSize())) {
+            writeBinary(reportDefinition, rows, binaryWriter, generationOptions);
+          }
+        }
+      } catch (IOException | RuntimeException | Error e) {
+        // Partial report is of no use, e.g. when generation is cancelled
+        Files.deleteIfExists(reportFile.toPath());
+        throw e;
+      }
+      return reportFile;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public static <T> Map<String, File> generateAsFiles(
+      Map<String, Consumer<CsvReport.Builder<T>>> builders, Stream<T> dataSource) {
+    return generateAsFiles(builders, dataSource, options -> {});
+  }
+
+  /**
+   * Generates several reports, keyed by base name, in one pass over the data source. A column
+   * mapper shared by several columns (the same {@link java.util.function.Function} instance) is
+   * applied once per row. With {@code parallelism} above 1 the reports are encoded concurrently.
+   * Sorting, prefetching, writer threads and metrics listeners are not supported. Returns report
+   * files in the order of {@code builders}, all of them are deleted when generation fails.
+   */
+  public static <T> Map<String, File> generateAsFiles(
+      Map<String, Consumer<CsvReport.Builder<T>>> builders,
+      Stream<T> dataSource,
+      Consumer<GenerationOptions.Builder> options) {
+    if (builders == null || builders.isEmpty()) {
+      throw new IllegalArgumentException("Report builders could not be empty");
+    }
+    final List<CsvReport<T>> reportDefinitions = new ArrayList<>(builders.size());
+    builders.values().forEach(builder -> reportDefinitions.add(buildReport(builder)));
+    final var generationOptions = buildOptions(options);
+    requireCsv(generationOptions);
+    if (!generationOptions.sortKeys().isEmpty()) {
+      throw new IllegalArgumentException("Multiple reports could not be sorted");
+    }
+    if (generationOptions.prefetchBatches() > 0
+        || generationOptions.writerQueueSize() > 0
+        || generationOptions.metricsListener() != null) {
+      throw new IllegalArgumentException(
+          "Multiple reports could not be prefetched, pipelined or instrumented");
+    }
+
+    final Map<String, File> reportFiles = new LinkedHashMap<>();
+    final List<Utf8CsvWriter> csvWriters = new ArrayList<>(builders.size());
+    final List<ReportAggregator<T>> aggregators = new ArrayList<>(builders.size());
+    try (Stream<T> rows = dataSource) {
+      try {
+        try {
+          for (String baseName : builders.keySet()) {
+            final File reportFile =
+                createFile(
+                    baseName + "-",
+                    generationOptions.compression() == Compression.GZIP ? ".csv.gz" : ".csv");
+            reportFiles.put(baseName, reportFile);
+            csvWriters.add(
+                new Utf8CsvWriter(
+                    openSink(reportFile, generationOptions), generationOptions.bufferSize()));
+          }
+          for (int i = 0; i < reportDefinitions.size(); i++) {
+            csvWriters.get(i).writeNext(reportDefinitions.get(i).columnsHeader());
+            aggregators.add(ReportAggregator.create(reportDefinitions.get(i)));
+          }
+          if (rows != null) {
+            final List<ReportAggregator<T>> active =
+                aggregators.stream().filter(Objects::nonNull).toList();
+            writeFanOut(
+                reportDefinitions,
+                active.isEmpty()
+                    ? rows
+                    : rows.peek(
+                        row -> {
+                          for (ReportAggregator<T> aggregator : active) {
+                            aggregator.accept(row);
+                          }
+                        }),
+                csvWriters,
+                generationOptions);
+          }
+          for (int i = 0; i < aggregators.size(); i++) {
+            if (aggregators.get(i) != null) {
+              aggregators.get(i).finish(ReportOutput.of(csvWriters.get(i)));
+            }
+          }
+        } finally {
+          try {
+            closeAll(aggregators);
+          } finally {
+            closeAll(csvWriters);
+          }
+        }
+      } catch (IOException | RuntimeException | Error e) {
+        // Partial reports are of no use
+        for (File reportFile : reportFiles.values()) {
+          Files.deleteIfExists(reportFile.toPath());
+        }
+        throw e;
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return reportFiles;
+  }
+
+  public static <T> ReportManifest generateAsParts(
+      Consumer<CsvReport.Builder<T>> builder, Stream<T> dataSource, String baseName) {
+    return generateAsParts(builder, dataSource, baseName, options -> {});
+  }
+
+  /**
+   * Splits the report into {@code baseName-partN.csv} files of at most {@code partMaxRows} rows or
+   * {@code partMaxBytes} bytes in a new temp directory, every part starts with the columns header.
+   * With {@code parallelism} above 1 chunks of rows are encoded concurrently by independent
+   * encoders and appended to their parts in source order.
+   */
+  public static <T> ReportManifest generateAsParts(
+      Consumer<CsvReport.Builder<T>> builder,
+      Stream<T> dataSource,
+      String baseName,
+      Consumer<GenerationOptions.Builder> options) {
+    final var reportDefinition = buildReport(builder);
+    final var generationOptions = buildOptions(options);
+    requireCsv(generationOptions);
+
+    try {
+      final File directory = createDirectory(baseName + "-");
+      final List<ReportManifest.Part> parts;
+
+      try (var output =
+              new RollingReportOutput(
+                  reportDefinition,
+                  directory,
+                  baseName,
+                  generationOptions.compression() == Compression.GZIP ? ".csv.gz" : ".csv",
+                  generationOptions,
+                  file -> openPartSink(file, generationOptions));
+          Stream<T> rows = dataSource) {
+
+        writeRows(reportDefinition, rows, output, generationOptions, baseName, List.of());
+        parts = output.finish();
+      }
+
+      final File bundle =
+          generationOptions.zipParts()
+              ? zipParts(new File(directory, baseName + ".zip"), parts)
+              : null;
+      return new ReportManifest(directory, parts, bundle);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public static <T> ReportCheckpoint generateResumable(
+      Consumer<CsvReport.Builder<T>> builder, ResumableSource<T> dataSource, Path reportFile) {
+    return generateResumable(builder, dataSource, reportFile, options -> {});
+  }
+
+  /**
+   * Appends the rows of the data source to the report file, checkpointing every {@code
+   * checkpointInterval} rows into {@code reportFile.checkpoint}. A new file, or one without
+   * checkpoint, is written from the columns header. When a checkpoint exists the file is truncated
+   * to the checkpointed offset and the source is reopened after the checkpointed row, which both
+   * resumes an interrupted generation and appends rows added to the source since the last run.
+   * Rows are encoded on the calling thread into a file channel, compression, sorting and
+   * aggregation do not apply.
+   *
+   * @return checkpoint of the completed file
+   */
+  public static <T> ReportCheckpoint generateResumable(
+      Consumer<CsvReport.Builder<T>> builder,
+      ResumableSource<T> dataSource,
+      Path reportFile,
+      Consumer<GenerationOptions.Builder> options) {
+    final var reportDefinition = buildReport(builder);
+    final var generationOptions = buildOptions(options);
+    requireCsv(generationOptions);
+    if (dataSource == null) {
+      throw new IllegalArgumentException("Resumable source could not be null");
+    }
+    if (reportFile == null) {
+      throw new IllegalArgumentException("Report file could not be null");
+    }
+    if (reportDefinition.aggregation() != null) {
+      throw new IllegalArgumentException("Resumable report could not be aggregated");
+    }
+    if (generationOptions.compression() != Compression.NONE
+        || !generationOptions.sortKeys().isEmpty()) {
+      throw new IllegalArgumentException("Resumable report could not be compressed or sorted");
+    }
+    return new ResumableReportWriter<>(reportDefinition, dataSource, generationOptions, reportFile)
+        .write();
+  }
+
+  public static <T> void generateTo(
+      Consumer<CsvReport.Builder<T>> builder, Stream<T> dataSource, OutputStream outputStream) {
+    generateTo(builder, dataSource, outputStream, options -> {});
+  }
+
+  /**
+   * Streams the report into the given output stream as rows are encoded. The stream is flushed
+   * but not closed.
+   */
+  public static <T> void generateTo(
+      Consumer<CsvReport.Builder<T>> builder,
+      Stream<T> dataSource,
+      OutputStream outputStream,
+      Consumer<GenerationOptions.Builder> options) {
+    generateTo(builder, dataSource, new OutputStreamByteSink(outputStream), options);
+  }
+
+  public static <T> void generateTo(
+      Consumer<CsvReport.Builder<T>> builder, Stream<T> dataSource, WritableByteChannel channel) {
+    generateTo(builder, dataSource, channel, options -> {});
+  }
+
+  /**
+   * Streams the report into the given channel as rows are encoded. The channel is not closed.
+   */
+  public static <T> void generateTo(
+      Consumer<CsvReport.Builder<T>> builder,
+      Stream<T> dataSource,
+      WritableByteChannel channel,
+      Consumer<GenerationOptions.Builder> options) {
+    generateTo(builder, dataSource, new ChannelByteSink(channel), options);
+  }
+
+  public static <T> Flow.Publisher<ByteBuffer> generateAsPublisher(
+      Consumer<CsvReport.Builder<T>> builder, Stream<T> dataSource) {
+    return generateAsPublisher(builder, dataSource, options -> {});
+  }
+
+  /**
+   * Returns cold single-subscriber publisher of the encoded report, rows are pulled from the data
+   * source only as the subscriber requests buffers of up to {@code bufferSize} bytes. Rows are
+   * encoded on the thread calling {@code request}, blocking sources should be subscribed on a
+   * suitable scheduler. Parallel generation does not apply to the publisher.
+   */
+  public static <T> Flow.Publisher<ByteBuffer> generateAsPublisher(
+      Consumer<CsvReport.Builder<T>> builder,
+      Stream<T> dataSource,
+      Consumer<GenerationOptions.Builder> options) {
+    final var reportDefinition = buildReport(builder);
+    final var generationOptions = buildOptions(options);
+    requireCsv(generationOptions);
+    return new ReportPublisher<>(
+        reportDefinition,
+        dataSource,
+        generationOptions.bufferSize(),
+        sink -> compress(sink, generationOptions));
+  }
+
+  private static <T> void generateTo(
+      Consumer<CsvReport.Builder<T>> builder,
+      Stream<T> dataSource,
+      ByteSink sink,
+      Consumer<GenerationOptions.Builder> options) {
+    final var reportDefinition = buildReport(builder);
+    final var generationOptions = buildOptions(options);
+    final List<SpscRing<?>> stages = new ArrayList<>();
+
+    PipelinedByteSink writerStage = null;
+    ByteSink output = null;
+    try (Stream<T> rows = prefetch(dataSource, generationOptions, stages)) {
+      if (generationOptions.writerQueueSize() > 0) {
+        writerStage = pipeline(sink, generationOptions, stages);
+      }
+      output = compress(writerStage != null ? writerStage : sink, generationOptions);
+      if (generationOptions.outputFormat() != OutputFormat.CSV) {
+        final var binaryWriter = new BinaryWriter(output, generationOptions.bufferSize());
+        writeBinary(reportDefinition, rows, binaryWriter, generationOptions);
+        binaryWriter.flush();
+        return;
+      }
+      final var csvWriter = new Utf8CsvWriter(output, generationOptions.bufferSize());
+      writeReport(reportDefinition, rows, csvWriter, generationOptions, null, stages);
+      csvWriter.flush();
+    } finally {
+      // Flushed above, the given sink stays open
+      if (output instanceof ParallelGzipByteSink gzipSink) {
+        gzipSink.release();
+      }
+      if (writerStage != null) {
+        writerStage.stop();
+      }
+    }
+  }
+
+  private static <T> void writeBinary(
+      CsvReport<T> reportDefinition,
+      Stream<T> rows,
+      BinaryWriter binaryWriter,
+      GenerationOptions options) {
+    if (reportDefinition.aggregation() != null || !options.sortKeys().isEmpty()) {
+      throw new IllegalArgumentException("Binary report could not be aggregated or sorted");
+    }
+    final Iterator<T> iterator = rows != null ? rows.iterator() : Collections.emptyIterator();
+    if (options.outputFormat() == OutputFormat.POSTGRES_BINARY) {
+      new PostgresBinaryWriter<>(reportDefinition).write(iterator, binaryWriter);
+    } else {
+      new ColumnarReportWriter<>(reportDefinition, options.chunkSize())
+          .write(iterator, binaryWriter);
+    }
+  }
+
+  private static void requireCsv(GenerationOptions options) {
+    if (options.outputFormat() != OutputFormat.CSV) {
+      throw new IllegalArgumentException(
+          "Output format "
+              + options.outputFormat()
+              + " is only supported by generateAsFile and generateTo");
+    }
+  }
+
+  /** Returns report file suffix of the output format. */
+  static String fileSuffix(OutputFormat outputFormat, Compression compression) {
+    final String suffix =
+        switch (outputFormat) {
+          case POSTGRES_BINARY -> ".pgcopy";
+          case COLUMNAR -> ".rcol";
+          default -> ".csv";
+        };
+    return compression == Compression.GZIP ? suffix + ".gz" : suffix;
+  }
+
+  private static <T> CsvReport<T> buildReport(Consumer<CsvReport.Builder<T>> builder) {
     final CsvReport.Builder<T> reportBuilder = new CsvReport.Builder<>();
     builder.accept(reportBuilder);
     final var reportDefinition = reportBuilder.build();
 
     validateReport(reportDefinition);
 
+    return reportDefinition;
+  }
+
+  private static GenerationOptions buildOptions(Consumer<GenerationOptions.Builder> options) {
+    final var optionsBuilder = new GenerationOptions.Builder();
+    options.accept(optionsBuilder);
+    final var generationOptions = optionsBuilder.build();
+
+    validateOptions(generationOptions);
+
+    return generationOptions;
+  }
+
+  private static <T> void writeReport(
+      CsvReport<T> reportDefinition,
+      Stream<T> rows,
+      Utf8CsvWriter csvWriter,
+      GenerationOptions options,
+      String reportName,
+      List<SpscRing<?>> stages) {
+    csvWriter.writeNext(reportDefinition.columnsHeader());
+    writeRows(reportDefinition, rows, ReportOutput.of(csvWriter), options, reportName, stages);
+  }
+
+  private static <T> void writeRows(
+      CsvReport<T> reportDefinition,
+      Stream<T> rows,
+      ReportOutput output,
+      GenerationOptions options,
+      String reportName,
+      List<SpscRing<?>> stages) {
+    final var instrumentation =
+        ReportInstrumentation.create(reportDefinition, options, reportName, output);
+    if (instrumentation == null) {
+      aggregateRows(reportDefinition, rows, output, options, null);
+      return;
+    }
+
+    instrumentation.stages(stages);
+    instrumentation.start();
     try {
-      File reportFile = createFile(baseName + "-", ".csv");
+      aggregateRows(reportDefinition, rows, output, options, instrumentation);
+    } catch (RuntimeException | Error e) {
+      instrumentation.failed(e);
+      throw e;
+    }
+    instrumentation.complete();
+  }
 
-      try (var writer = new FileWriter(reportFile);
-          var csvWriter = new CsvWriter(writer);
-          Stream<T> rows = dataSource) {
+  private static <T> void aggregateRows(
+      CsvReport<T> reportDefinition,
+      Stream<T> rows,
+      ReportOutput output,
+      GenerationOptions options,
+      ReportInstrumentation instrumentation) {
+    final var aggregator = ReportAggregator.create(reportDefinition);
+    if (aggregator == null) {
+      encodeRows(reportDefinition, rows, output, options, instrumentation);
+      return;
+    }
+
+    // Source rows are aggregated on the reading thread, before any reordering
+    try (aggregator) {
+      encodeRows(
+          reportDefinition,
+          rows != null ? rows.peek(aggregator) : null,
+          output,
+          options,
+          instrumentation);
+      aggregator.finish(output);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static <T> void encodeRows(
+      CsvReport<T> reportDefinition,
+      Stream<T> rows,
+      ReportOutput output,
+      GenerationOptions options,
+      ReportInstrumentation instrumentation) {
+    if (rows == null) {
+      return;
+    }
+
+    if (!options.sortKeys().isEmpty()) {
+      writeSorted(reportDefinition, rows, output, options, instrumentation);
+      return;
+    }
+
+    if (options.parallelism() > 1) {
+      writeParallel(reportDefinition, rows, output, options, instrumentation);
+      return;
+    }
 
-        csvWriter.writeNext(reportDefinition.columnsHeader());
-        if (rows != null) {
-          rows.map(reportDefinition::mapRow).forEach(csvWriter::writeNext);
+    final var encoder = reportDefinition.newEncoder();
+    final var csvRow = new CsvRow(encoder.columnCount());
+    if (instrumentation == null) {
+      rows.forEach(
+          row -> {
+            encoder.encode(row, csvRow);
+            output.writer(1).writeRow(csvRow);
+          });
+      return;
+    }
+
+    final long[] columnNanos = instrumentation.columnNanos();
+    rows.forEach(
+        row -> {
+          instrumentation.firstRow();
+          if (instrumentation.sampleRow()) {
+            encoder.encodeTimed(row, csvRow, columnNanos);
+          } else {
+            encoder.encode(row, csvRow);
+          }
+          output.writer(1).writeRow(csvRow);
+          instrumentation.rowsWritten(1);
+        });
+  }
+
+  private static <T> void writeParallel(
+      CsvReport<T> reportDefinition,
+      Stream<T> rows,
+      ReportOutput output,
+      GenerationOptions options,
+      ReportInstrumentation instrumentation) {
+    final ExecutorService ownExecutor =
+        options.executor() == null ? new ForkJoinPool(options.parallelism()) : null;
+    try {
+      new ParallelReportWriter<>(
+              reportDefinition,
+              options,
+              ownExecutor != null ? ownExecutor : options.executor())
+          .write(rows.iterator(), output, instrumentation);
+    } finally {
+      if (ownExecutor != null) {
+        ownExecutor.shutdownNow();
+      }
+    }
+  }
+
+  private static <T> void writeSorted(
+      CsvReport<T> reportDefinition,
+      Stream<T> rows,
+      ReportOutput output,
+      GenerationOptions options,
+      ReportInstrumentation instrumentation) {
+    if (options.parallelism() == 1) {
+      new SortedReportWriter<>(reportDefinition, options, null)
+          .write(rows.iterator(), output, instrumentation);
+      return;
+    }
+    final ExecutorService ownExecutor =
+        options.executor() == null ? new ForkJoinPool(options.parallelism()) : null;
+    try {
+      new SortedReportWriter<>(
+              reportDefinition,
+              options,
+              ownExecutor != null ? ownExecutor : options.executor())
+          .write(rows.iterator(), output, instrumentation);
+    } finally {
+      if (ownExecutor != null) {
+        ownExecutor.shutdownNow();
+      }
+    }
+  }
+
+  private static <T> void writeFanOut(
+      List<CsvReport<T>> reportDefinitions,
+      Stream<T> rows,
+      List<Utf8CsvWriter> csvWriters,
+      GenerationOptions options) {
+    if (options.parallelism() == 1) {
+      new FanOutReportWriter<>(reportDefinitions, csvWriters, options, null)
+          .write(rows.iterator());
+      return;
+    }
+    final ExecutorService ownExecutor =
+        options.executor() == null ? new ForkJoinPool(options.parallelism()) : null;
+    try {
+      new FanOutReportWriter<>(
+              reportDefinitions,
+              csvWriters,
+              options,
+              ownExecutor != null ? ownExecutor : options.executor())
+          .write(rows.iterator());
+    } finally {
+      if (ownExecutor != null) {
+        ownExecutor.shutdownNow();
+      }
+    }
+  }
+
+  private static void closeAll(List<? extends AutoCloseable> closeables) {
+    RuntimeException error = null;
+    for (AutoCloseable closeable : closeables) {
+      if (closeable == null) {
+        continue;
+      }
+      try {
+        closeable.close();
+      } catch (Exception e) {
+        if (error == null) {
+          error = new RuntimeException(e);
+        } else {
+          error.addSuppressed(e);
         }
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private static ByteSink openSink(File reportFile, GenerationOptions options)
+      throws IOException {
+    return openSink(reportFile, options, null);
+  }
+
+  /** {@code stages} is {@code null} when the file is not written by a writer thread. */
+  private static ByteSink openSink(
+      File reportFile, GenerationOptions options, List<SpscRing<?>> stages) throws IOException {
+    final var channel = FileChannel.open(reportFile.toPath(), READ, WRITE);
+    final ByteSink sink =
+        options.fileOutputMode() == FileOutputMode.MEMORY_MAPPED
+            ? new MappedFileByteSink(
+                channel, options.mappedRegionSize(), options.durability() != Durability.NONE)
+            : new ChannelByteSink(channel);
+    final ByteSink durableSink =
+        options.durability() == Durability.NONE
+            ? sink
+            : new DurableByteSink(sink, options.durability(), options.forceInterval());
+    if (stages == null || options.writerQueueSize() == 0) {
+      return compress(durableSink, options);
+    }
+    return compress(pipeline(durableSink, options, stages), options);
+  }
+
+  private static PipelinedByteSink pipeline(
+      ByteSink sink, GenerationOptions options, List<SpscRing<?>> stages) {
+    final var writerStage =
+        new PipelinedByteSink(sink, options.writerBufferSize(), options.writerQueueSize());
+    stages.add(writerStage.stage());
+    return writerStage;
+  }
+
+  /** Fetches batches of rows ahead on a dedicated thread when {@code prefetchBatches} is set. */
+  private static <T> Stream<T> prefetch(
+      Stream<T> dataSource, GenerationOptions options, List<SpscRing<?>> stages) {
+    if (dataSource == null || options.prefetchBatches() == 0) {
+      return dataSource;
+    }
+    final var iterator =
+        PrefetchingIterator.ofRows(
+            dataSource.iterator(), options.chunkSize(), options.prefetchBatches());
+    stages.add(iterator.stage());
+    // Fetching stops before the source is closed
+    return stream(iterator).onClose(dataSource::close);
+  }
 
-        return reportFile;
+  private static <T> Stream<T> prefetch(
+      PagedSource<T> dataSource, GenerationOptions options, List<SpscRing<?>> stages) {
+    if (options.prefetchBatches() == 0) {
+      return Stream.generate(dataSource::nextPage)
+          .takeWhile(page -> page != null && !page.isEmpty())
+          .flatMap(List::stream)
+          .onClose(dataSource::close);
+    }
+    final var iterator = PrefetchingIterator.ofPages(dataSource, options.prefetchBatches());
+    stages.add(iterator.stage());
+    return stream(iterator).onClose(dataSource::close);
+  }
+
+  private static <T> Stream<T> stream(PrefetchingIterator<T> iterator) {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+        .onClose(iterator::close);
+  }
+
+  private static ByteSink compress(ByteSink sink, GenerationOptions options) {
+    if (options.compression() != Compression.GZIP) {
+      return sink;
+    }
+    return new ParallelGzipByteSink(
+        sink,
+        options.compressionBlockSize(),
+        options.compressionLevel(),
+        2 * options.compressionParallelism(),
+        options.executor() != null ? options.executor() : ForkJoinPool.commonPool());
+  }
+
+  private static ByteSink openPartSink(File partFile, GenerationOptions options) {
+    try {
+      if (!partFile.createNewFile()) {
+        throw new IOException("Could not create part file: " + partFile.getAbsolutePath());
       }
+      return openSink(partFile, options);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
-  private static File createFile(String prefix, String suffix) throws IOException {
-    final var tempFile = new File(new File(TEMP_DIR), generateFileName(prefix, suffix));
+  private static File zipParts(File bundle, List<ReportManifest.Part> parts) throws IOException {
+    try (var zip = new ZipOutputStream(Files.newOutputStream(bundle.toPath(), CREATE_NEW, WRITE))) {
+      for (ReportManifest.Part part : parts) {
+        zip.putNextEntry(new ZipEntry(part.file().getName()));
+        Files.copy(part.file().toPath(), zip);
+        zip.closeEntry();
+      }
+    }
+    return bundle;
+  }
 
-    boolean isOutsideTempDir = !tempFile.toPath().normalize().startsWith(Paths.get(TEMP_DIR));
-    if (isOutsideTempDir || !tempFile.createNewFile()) {
-      throw new IOException("Could not create temp file: " + tempFile.getAbsolutePath());
+  private static File createDirectory(String prefix) throws IOException {
+    final String name = generateFileName(prefix, "");
+    for (int attempt = 0; ; attempt++) {
+      final var directory = new File(new File(TEMP_DIR), uniqueName(name, attempt, ""));
+
+      boolean isOutsideTempDir = !directory.toPath().normalize().startsWith(Paths.get(TEMP_DIR));
+      if (isOutsideTempDir || attempt == MAX_NAME_ATTEMPTS) {
+        throw new IOException("Could not create temp directory: " + directory.getAbsolutePath());
+      }
+      if (directory.mkdir()) {
+        return directory;
+      }
     }
+  }
+
+  private static File createFile(String prefix, String suffix) throws IOException {
+    final String name = generateFileName(prefix, "");
+    for (int attempt = 0; ; attempt++) {
+      final var tempFile = new File(new File(TEMP_DIR), uniqueName(name, attempt, suffix));
 
-    return tempFile;
+      boolean isOutsideTempDir = !tempFile.toPath().normalize().startsWith(Paths.get(TEMP_DIR));
+      if (isOutsideTempDir || attempt == MAX_NAME_ATTEMPTS) {
+        throw new IOException("Could not create temp file: " + tempFile.getAbsolutePath());
+      }
+      if (tempFile.createNewFile()) {
+        return tempFile;
+      }
+    }
   }
 
   private static String generateFileName(String prefix, String suffix) {
     return prefix + LocalDateTime.now().format(FORMATTER) + suffix;
   }
 
+  private static String uniqueName(String name, int attempt, String suffix) {
+    return attempt == 0 ? name + suffix : name + "-" + attempt + suffix;
+  }
+
   private static void validateReport(CsvReport<?> csvReport) {
     if (csvReport == null) {
       throw new IllegalArgumentException("Report definition could not be null");
@@ -77,6 +828,79 @@ private static void validateReport(CsvReport<?> csvReport) {
         throw new IllegalArgumentException(
             "Report definition column[" + i + "] mapper could not be null");
       }
+      final CsvColumn.DecimalScale decimalScale = csvColumn.decimalScale();
+      if (decimalScale != null
+          && (decimalScale.scale() < 0 || decimalScale.roundingMode() == null)) {
+        throw new IllegalArgumentException(
+            "Report definition column[" + i + "] decimal scale is invalid");
+      }
+    }
+    ReportAggregator.validate(csvReport);
+  }
+
+  private static void validateOptions(GenerationOptions options) {
+    if (options.fileOutputMode() == null) {
+      throw new IllegalArgumentException("File output mode could not be null");
+    }
+    if (options.bufferSize() < 16) {
+      throw new IllegalArgumentException("Buffer size could not be less than 16");
+    }
+    if (options.mappedRegionSize() <= 0 || options.mappedRegionSize() > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Mapped region size is invalid");
+    }
+    if (options.parallelism() < 1) {
+      throw new IllegalArgumentException("Parallelism could not be less than 1");
+    }
+    if (options.chunkSize() < 1) {
+      throw new IllegalArgumentException("Chunk size could not be less than 1");
+    }
+    if (options.compression() == null) {
+      throw new IllegalArgumentException("Compression could not be null");
+    }
+    if (options.outputFormat() == null) {
+      throw new IllegalArgumentException("Output format could not be null");
+    }
+    if (options.compressionBlockSize() < 1024) {
+      throw new IllegalArgumentException("Compression block size could not be less than 1024");
+    }
+    if (options.compressionLevel() < -1 || options.compressionLevel() > 9) {
+      throw new IllegalArgumentException("Compression level is invalid");
+    }
+    if (options.compressionParallelism() < 1) {
+      throw new IllegalArgumentException("Compression parallelism could not be less than 1");
+    }
+    if (options.metricsSampleInterval() < 1) {
+      throw new IllegalArgumentException("Metrics sample interval could not be less than 1");
+    }
+    if (options.metricsProgressInterval() < 1) {
+      throw new IllegalArgumentException("Metrics progress interval could not be less than 1");
+    }
+    if (options.partMaxRows() < 0) {
+      throw new IllegalArgumentException("Part max rows could not be negative");
+    }
+    if (options.partMaxBytes() < 0) {
+      throw new IllegalArgumentException("Part max bytes could not be negative");
+    }
+    if (options.sortRunSize() < 1) {
+      throw new IllegalArgumentException("Sort run size could not be less than 1");
+    }
+    if (options.checkpointInterval() < 1) {
+      throw new IllegalArgumentException("Checkpoint interval could not be less than 1");
+    }
+    if (options.prefetchBatches() < 0) {
+      throw new IllegalArgumentException("Prefetch batches could not be negative");
+    }
+    if (options.writerQueueSize() < 0) {
+      throw new IllegalArgumentException("Writer queue size could not be negative");
+    }
+    if (options.writerBufferSize() < 16) {
+      throw new IllegalArgumentException("Writer buffer size could not be less than 16");
+    }
+    if (options.durability() == null) {
+      throw new IllegalArgumentException("Durability could not be null");
+    }
+    if (options.forceInterval() < 1) {
+      throw new IllegalArgumentException("Force interval could not be less than 1");
     }
   }
 }
@@ -0,0 +1,440 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Reads UTF-8 CSV files, as written by {@link CsvGenerator}, from memory-mapped segments. Quotes,
+ * separators and new lines are found eight bytes at a time, fields are exposed as views of the
+ * mapped bytes and decoded only on demand. {@link #split(int)} cuts the file into segments
+ * starting on record boundaries which can be read in parallel.
+ */
+public final class CsvReader implements AutoCloseable {
+
+  // Segments are mapped as a single buffer, cuts are planned this far apart at most
+  static final long MAX_SEGMENT_SIZE = 1L << 29;
+
+  private static final int MAX_MAPPED_SIZE = Integer.MAX_VALUE - Long.BYTES;
+  private static final int SCAN_WINDOW_SIZE = 1 << 20;
+
+  private final FileChannel channel;
+  private final long size;
+
+  public CsvReader(Path file) {
+    try {
+      this.channel = FileChannel.open(file, StandardOpenOption.READ);
+      this.size = channel.size();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public long size() {
+    return size;
+  }
+
+  /** Reads all records in file order. The record passed to the action is reused. */
+  public void read(Consumer<Record> action) {
+    for (Segment segment : split(1)) {
+      segment.read(action);
+    }
+  }
+
+  /**
+   * Splits the file into at most {@code count} segments of about equal size, more if the file is
+   * larger than {@code count * MAX_SEGMENT_SIZE}. Every segment starts at a record boundary, quote
+   * parity at the planned cuts is counted in parallel. An empty file has no segments.
+   */
+  public List<Segment> split(int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("Segment count could not be less than 1");
+    }
+    if (size == 0) {
+      return List.of();
+    }
+    final int chunks =
+        (int) Math.max(Math.min(count, size), (size + MAX_SEGMENT_SIZE - 1) / MAX_SEGMENT_SIZE);
+    final long[] cuts = new long[chunks + 1];
+    for (int i = 0; i <= chunks; i++) {
+      cuts[i] = size / chunks * i + size % chunks * i / chunks;
+    }
+    final long[] quotes =
+        IntStream.range(0, chunks)
+            .parallel()
+            .mapToLong(i -> countQuotes(cuts[i], cuts[i + 1]))
+            .toArray();
+
+    final List<Segment> segments = new ArrayList<>();
+    long start = 0;
+    long quotesBefore = 0;
+    for (int i = 1; i < chunks; i++) {
+      quotesBefore += quotes[i - 1];
+      final long recordStart = recordStart(cuts[i], (quotesBefore & 1) != 0);
+      if (recordStart > start && recordStart < size) {
+        segments.add(new Segment(start, recordStart - start));
+        start = recordStart;
+      }
+    }
+    if (start < size) {
+      segments.add(new Segment(start, size - start));
+    }
+    return segments;
+  }
+
+  private long countQuotes(long from, long to) {
+    final ByteBuffer buffer = map(from, to - from);
+    final int limit = buffer.limit();
+    long count = 0;
+    int i = 0;
+    for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+      count += Long.bitCount(Swar.exactMatches(buffer.getLong(i), Swar.QUOTES));
+    }
+    for (; i < limit; i++) {
+      if (buffer.get(i) == '"') {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Returns position after the first new line outside quotes at or after {@code from}. */
+  private long recordStart(long from, boolean quoted) {
+    for (long offset = from; offset < size; offset += SCAN_WINDOW_SIZE) {
+      final ByteBuffer buffer = map(offset, Math.min(SCAN_WINDOW_SIZE, size - offset));
+      final int limit = buffer.limit();
+      int i = 0;
+      while (i < limit) {
+        final int found =
+            quoted ? indexOfQuote(buffer, i, limit) : indexOfQuoteOrNewLine(buffer, i, limit);
+        if (found == limit) {
+          break;
+        }
+        if (buffer.get(found) == '\n') {
+          return offset + found + 1;
+        }
+        quoted = !quoted;
+        i = found + 1;
+      }
+    }
+    return size;
+  }
+
+  private ByteBuffer map(long offset, long length) {
+    if (length > MAX_MAPPED_SIZE) {
+      throw new IllegalStateException("Record at offset " + offset + " is too large to map");
+    }
+    try {
+      return channel.map(MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static int indexOfQuote(ByteBuffer buffer, int from, int limit) {
+    int i = from;
+    for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+      final long found = Swar.matches(buffer.getLong(i), Swar.QUOTES);
+      if (found != 0) {
+        return i + Swar.firstIndex(found);
+      }
+    }
+    for (; i < limit; i++) {
+      if (buffer.get(i) == '"') {
+        return i;
+      }
+    }
+    return limit;
+  }
+
+  private static int indexOfQuoteOrNewLine(ByteBuffer buffer, int from, int limit) {
+    int i = from;
+    for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+      final long word = buffer.getLong(i);
+      final long found = Swar.matches(word, Swar.QUOTES) | Swar.matches(word, Swar.NEW_LINES);
+      if (found != 0) {
+        return i + Swar.firstIndex(found);
+      }
+    }
+    for (; i < limit; i++) {
+      final byte b = buffer.get(i);
+      if (b == '"' || b == '\n') {
+        return i;
+      }
+    }
+    return limit;
+  }
+
+  private static int indexOfDelimiter(ByteBuffer buffer, int from, int limit) {
+    int i = from;
+    for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+      final long word = buffer.getLong(i);
+      final long found = Swar.matches(word, Swar.SEPARATORS) | Swar.matches(word, Swar.NEW_LINES);
+      if (found != 0) {
+        return i + Swar.firstIndex(found);
+      }
+    }
+    for (; i < limit; i++) {
+      final byte b = buffer.get(i);
+      if (b == ',' || b == '\n') {
+        return i;
+      }
+    }
+    return limit;
+  }
+
+  @Override
+  public void close() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /** Part of the file starting at a record boundary. Segments can be read concurrently. */
+  public final class Segment {
+
+    private final long offset;
+    private final long length;
+
+    private Segment(long offset, long length) {
+      this.offset = offset;
+      this.length = length;
+    }
+
+    public long offset() {
+      return offset;
+    }
+
+    public long length() {
+      return length;
+    }
+
+    /** Reads records of the segment in order. The record passed to the action is reused. */
+    public void read(Consumer<Record> action) {
+      final Record record = new Record(map(offset, length), offset);
+      final int limit = (int) length;
+      int position = 0;
+      while (position < limit) {
+        position = record.parse(position, limit);
+        action.accept(record);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "Segment{offset=" + offset + ", length=" + length + "}";
+    }
+  }
+
+  /** Current record of a segment, valid until the action it was passed to returns. */
+  public static final class Record {
+
+    private final ByteBuffer buffer;
+    private final long segmentOffset;
+
+    private Field[] fields = new Field[16];
+    private int size;
+    private int start;
+
+    private Record(ByteBuffer buffer, long segmentOffset) {
+      this.buffer = buffer;
+      this.segmentOffset = segmentOffset;
+    }
+
+    /** Offset of the record in the file. */
+    public long offset() {
+      return segmentOffset + start;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public Field field(int index) {
+      return fields[Objects.checkIndex(index, size)];
+    }
+
+    public String[] toArray() {
+      final String[] values = new String[size];
+      for (int i = 0; i < size; i++) {
+        values[i] = fields[i].toString();
+      }
+      return values;
+    }
+
+    @Override
+    public String toString() {
+      return String.join(",", toArray());
+    }
+
+    /** Parses record starting at {@code position}, returns position of the next record. */
+    private int parse(int position, int limit) {
+      start = position;
+      size = 0;
+      while (true) {
+        final Field field = nextField();
+        if (position < limit && buffer.get(position) == '"') {
+          final int from = position + 1;
+          int end = from;
+          boolean escaped = false;
+          while (true) {
+            end = indexOfQuote(buffer, end, limit);
+            if (end == limit) {
+              throw new IllegalStateException(
+                  "Unterminated quoted field at offset " + (segmentOffset + position));
+            }
+            if (end + 1 < limit && buffer.get(end + 1) == '"') {
+              escaped = true;
+              end += 2;
+            } else {
+              break;
+            }
+          }
+          field.set(from, end, escaped);
+          position = indexOfDelimiter(buffer, end + 1, limit);
+        } else {
+          final int end = indexOfDelimiter(buffer, position, limit);
+          // Drop \r of \r\n line endings
+          final boolean crlf =
+              end > position
+                  && buffer.get(end - 1) == '\r'
+                  && (end == limit || buffer.get(end) == '\n');
+          field.set(position, crlf ? end - 1 : end, false);
+          position = end;
+        }
+        if (position >= limit) {
+          return limit;
+        }
+        if (buffer.get(position) == '\n') {
+          return position + 1;
+        }
+        position++;
+      }
+    }
+
+    private Field nextField() {
+      if (size == fields.length) {
+        fields = Arrays.copyOf(fields, size * 2);
+      }
+      Field field = fields[size];
+      if (field == null) {
+        field = fields[size] = new Field(buffer);
+      }
+      size++;
+      return field;
+    }
+  }
+
+  /**
+   * Field of the current record. Unescaped ASCII fields are read straight from the mapped bytes,
+   * others are decoded to a string on first char access.
+   */
+  public static final class Field implements CharSequence {
+
+    private final ByteBuffer buffer;
+
+    private int start;
+    private int end;
+    private boolean escaped;
+    private int ascii;
+    private String decoded;
+
+    private Field(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    private void set(int start, int end, boolean escaped) {
+      this.start = start;
+      this.end = end;
+      this.escaped = escaped;
+      this.ascii = -1;
+      this.decoded = null;
+    }
+
+    public int byteLength() {
+      return end - start;
+    }
+
+    /**
+     * Returns view of the field bytes without enclosing quotes. Quotes inside the field stay
+     * doubled, see {@link #isEscaped()}.
+     */
+    public ByteBuffer bytes() {
+      return buffer.slice(start, end - start);
+    }
+
+    /** Whether the field contains escaped quotes. */
+    public boolean isEscaped() {
+      return escaped;
+    }
+
+    @Override
+    public int length() {
+      return isAscii() ? end - start : toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (isAscii()) {
+        return (char) buffer.get(start + Objects.checkIndex(index, end - start));
+      }
+      return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+      if (decoded == null) {
+        final byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        int length = bytes.length;
+        if (escaped) {
+          length = 0;
+          for (int i = 0; i < bytes.length; i++) {
+            bytes[length++] = bytes[i];
+            if (bytes[i] == '"') {
+              i++;
+            }
+          }
+        }
+        decoded = new String(bytes, 0, length, StandardCharsets.UTF_8);
+      }
+      return decoded;
+    }
+
+    private boolean isAscii() {
+      if (ascii < 0) {
+        ascii = escaped ? 0 : 1;
+        int i = start;
+        for (; ascii == 1 && i + Long.BYTES <= end; i += Long.BYTES) {
+          if ((buffer.getLong(i) & Swar.HIGH_BITS) != 0) {
+            ascii = 0;
+          }
+        }
+        for (; ascii == 1 && i < end; i++) {
+          if (buffer.get(i) < 0) {
+            ascii = 0;
+          }
+        }
+      }
+      return ascii == 1;
+    }
+  }
+}
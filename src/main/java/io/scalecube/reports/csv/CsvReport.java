@@ -3,6 +3,7 @@
 import static java.time.ZoneOffset.UTC;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -11,18 +12,56 @@
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 public record CsvReport<T>(
     List<CsvColumn<T>> columns,
     DateTimeFormatter dateTimePattern,
     DateTimeFormatter datePattern,
     ZoneId zoneId,
-    Map<Class<?>, Function<Object, String>> customFormatter) {
+    Map<Class<?>, Function<Object, String>> customFormatter,
+    ReportAggregation aggregation,
+    CsvRowEncoder.Plan<T> encodingPlan) {
+
+  public CsvReport {
+    if (encodingPlan == null) {
+      encodingPlan = new CsvRowEncoder.Plan<>();
+    }
+  }
+
+  public CsvReport(
+      List<CsvColumn<T>> columns,
+      DateTimeFormatter dateTimePattern,
+      DateTimeFormatter datePattern,
+      ZoneId zoneId,
+      Map<Class<?>, Function<Object, String>> customFormatter,
+      ReportAggregation aggregation) {
+    this(columns, dateTimePattern, datePattern, zoneId, customFormatter, aggregation, null);
+  }
+
+  public CsvReport(
+      List<CsvColumn<T>> columns,
+      DateTimeFormatter dateTimePattern,
+      DateTimeFormatter datePattern,
+      ZoneId zoneId,
+      Map<Class<?>, Function<Object, String>> customFormatter) {
+    this(columns, dateTimePattern, datePattern, zoneId, customFormatter, null, null);
+  }
 
   private static final DateTimeFormatter DEFAULT_DATE_TIME_PATTERN =
       new DateTimeFormatterBuilder()
@@ -35,15 +74,26 @@
   private static final DateTimeFormatter DEFAULT_DATE_PATTERN =
       DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+  // Types a custom formatter is looked up by, nearest first, per concrete value class
+  private static final ClassValue<Class<?>[]> FORMATTER_LOOKUP_TYPES =
+      new ClassValue<>() {
+        @Override
+        protected Class<?>[] computeValue(Class<?> valueClass) {
+          return formatterLookupTypes(valueClass);
+        }
+      };
+
   public String[] columnsHeader() {
     return columns.stream().map(CsvColumn::columnName).toList().toArray(new String[0]);
   }
 
+  /** Maps the row with an encoder reused by the calling thread. */
   public String[] mapRow(T row) {
-    return columns.stream()
-        .map(col -> toStringValue(col, col.mapper().apply(row)))
-        .toList()
-        .toArray(new String[0]);
+    return encodingPlan.compiledFor(this).mapRow(row);
+  }
+
+  public CsvRowEncoder<T> newEncoder() {
+    return new CsvRowEncoder<>(encodingPlan.compiledFor(this));
   }
 
   public static class Builder<T> {
@@ -54,9 +104,29 @@ public String[] mapRow(T row) {
 
     private ZoneId zoneId;
     private final Map<Class<?>, Function<Object, String>> customFormatter = new HashMap<>();
+    private ReportAggregation aggregation;
+    private final Set<String> sharedAccessorNames = new HashSet<>();
+    private Set<String> selectedColumns;
 
+    /** Builds the report with its encoding plan compiled, see {@link CsvRowEncoder.Plan}. */
     public CsvReport<T> build() {
-      return new CsvReport<>(columns, dateTimePattern, datePattern, zoneId, customFormatter);
+      List<CsvColumn<T>> reportColumns = columns;
+      if (selectedColumns != null) {
+        reportColumns = select(columns, selectedColumns);
+      } else if (columns != null) {
+        // The plan is compiled for the columns known now
+        reportColumns = new ArrayList<>(columns);
+      }
+      final CsvReport<T> report =
+          new CsvReport<>(
+              reportColumns,
+              dateTimePattern,
+              datePattern,
+              zoneId,
+              new HashMap<>(customFormatter),
+              aggregation);
+      report.encodingPlan.compiledFor(report);
+      return report;
     }
 
     public Builder<T> addColumn(String columnName, Function<T, Object> mapper) {
@@ -64,13 +134,203 @@ public Builder<T> addColumn(String columnName, Function<T, Object> mapper) {
     }
 
     public Builder<T> addColumn(String columnName, ColumnType type, Function<T, Object> mapper) {
+      return addColumn(new CsvColumn<>(columnName, type, mapper));
+    }
+
+    /**
+     * Adds column of a value derived from the shared accessor value. The accessor is computed once
+     * per row for all its columns.
+     */
+    public <V> Builder<T> addAccessorColumn(
+        String columnName, SharedAccessor<T, V> accessor, Function<? super V, Object> mapper) {
+      return addAccessorColumn(columnName, null, accessor, mapper);
+    }
+
+    public <V> Builder<T> addAccessorColumn(
+        String columnName,
+        ColumnType type,
+        SharedAccessor<T, V> accessor,
+        Function<? super V, Object> mapper) {
+      return addColumn(columnName, type, shared(accessor, mapper));
+    }
+
+    public Builder<T> addLongColumn(String columnName, ToLongFunction<T> mapper) {
+      return addLongColumn(columnName, null, null, mapper);
+    }
+
+    public Builder<T> addLongColumn(
+        String columnName, ColumnType type, ToLongFunction<T> mapper) {
+      return addLongColumn(columnName, type, null, mapper);
+    }
+
+    /**
+     * Adds column encoded from a primitive long without boxing, {@link ColumnType} timestamp
+     * conversions apply as for {@link Long} values. Rows failing {@code presence} (nullable) get an
+     * empty cell.
+     */
+    public Builder<T> addLongColumn(
+        String columnName, ColumnType type, Predicate<T> presence, ToLongFunction<T> mapper) {
+      final Function<T, Object> boxed =
+          mapper == null ? null : row -> isPresent(presence, row) ? mapper.applyAsLong(row) : null;
+      return addColumn(
+          new CsvColumn<>(
+              columnName, type, boxed, new CsvColumn.LongMapper<>(presence, mapper), null));
+    }
+
+    public Builder<T> addIntColumn(String columnName, ToIntFunction<T> mapper) {
+      return addIntColumn(columnName, null, mapper);
+    }
+
+    public Builder<T> addIntColumn(
+        String columnName, Predicate<T> presence, ToIntFunction<T> mapper) {
+      final Function<T, Object> boxed =
+          mapper == null ? null : row -> isPresent(presence, row) ? mapper.applyAsInt(row) : null;
+      return addColumn(
+          new CsvColumn<>(
+              columnName, null, boxed, new CsvColumn.IntMapper<>(presence, mapper), null));
+    }
+
+    public Builder<T> addDoubleColumn(String columnName, ToDoubleFunction<T> mapper) {
+      return addDoubleColumn(columnName, null, mapper);
+    }
+
+    public Builder<T> addDoubleColumn(
+        String columnName, Predicate<T> presence, ToDoubleFunction<T> mapper) {
+      final Function<T, Object> boxed =
+          mapper == null
+              ? null
+              : row -> isPresent(presence, row) ? mapper.applyAsDouble(row) : null;
+      return addColumn(
+          new CsvColumn<>(
+              columnName, null, boxed, new CsvColumn.DoubleMapper<>(presence, mapper), null));
+    }
+
+    /**
+     * Adds column of {@link BigDecimal} values written with exactly {@code scale} fraction digits,
+     * as by {@link BigDecimal#setScale(int, RoundingMode)}.
+     */
+    public Builder<T> addDecimalColumn(
+        String columnName, int scale, RoundingMode roundingMode, Function<T, BigDecimal> mapper) {
+      // Values are only read, keeps the mapper instance for identity based sharing
+      @SuppressWarnings("unchecked")
+      final Function<T, Object> boxed = (Function<T, Object>) (Function<T, ?>) mapper;
+      return addColumn(
+          new CsvColumn<>(
+              columnName, null, boxed, null, new CsvColumn.DecimalScale(scale, roundingMode)));
+    }
+
+    /** Same as {@link #addDecimalColumn(String, int, RoundingMode, Function)} of an accessor. */
+    public <V> Builder<T> addDecimalColumn(
+        String columnName,
+        int scale,
+        RoundingMode roundingMode,
+        SharedAccessor<T, V> accessor,
+        Function<? super V, BigDecimal> mapper) {
+      // Keeps the mapper instance, as for row mappers
+      @SuppressWarnings("unchecked")
+      final Function<? super V, Object> boxed =
+          (Function<? super V, Object>) (Function<?, ?>) mapper;
+      return addColumn(
+          new CsvColumn<>(
+              columnName,
+              null,
+              shared(accessor, boxed),
+              null,
+              new CsvColumn.DecimalScale(scale, roundingMode)));
+    }
+
+    /**
+     * Declares a row derivation shared by the columns added with the returned accessor, see {@link
+     * #addAccessorColumn}. It is computed at most once per encoded row, and only when one of its
+     * columns is encoded. Sorting and aggregation read columns on their own and compute it again.
+     */
+    public <V> SharedAccessor<T, V> sharedAccessor(String name, Function<T, V> accessor) {
+      if (name == null || name.isBlank()) {
+        throw new IllegalArgumentException("Shared accessor name is invalid");
+      }
+      if (accessor == null) {
+        throw new IllegalArgumentException("Shared accessor could not be null");
+      }
+      if (!sharedAccessorNames.add(name)) {
+        throw new IllegalArgumentException("Shared accessor already exists: " + name);
+      }
+      return new SharedAccessor<>(name, accessor);
+    }
+
+    /**
+     * Keeps only the columns of the given names, in the order they were added, e.g. those a user
+     * asked for. Other columns, and shared accessors used only by them, are never evaluated.
+     * Applies to columns added before and after the call, {@code null} selects all columns.
+     */
+    public Builder<T> selectColumns(Collection<String> columnNames) {
+      this.selectedColumns = columnNames != null ? new HashSet<>(columnNames) : null;
+      return this;
+    }
+
+    /**
+     * Caches encoded cells of the column by value, so repeated values are copied as encoded bytes
+     * instead of being formatted, escaped and encoded again. Suits columns of few distinct values
+     * of any type, values equal by {@code equals} must format the same. Columns of strings, enums,
+     * booleans, decimals and dates without custom formatters are cached without it, as long as
+     * the first sampled values repeat often enough.
+     */
+    public Builder<T> cacheValues(String columnName) {
+      for (int i = 0; columns != null && i < columns.size(); i++) {
+        final CsvColumn<T> column = columns.get(i);
+        if (column.columnName() != null && column.columnName().equals(columnName)) {
+          columns.set(
+              i,
+              new CsvColumn<>(
+                  column.columnName(),
+                  column.type(),
+                  column.mapper(),
+                  column.primitiveMapper(),
+                  column.decimalScale(),
+                  true));
+          return this;
+        }
+      }
+      throw new IllegalArgumentException("Cache column could not be found: " + columnName);
+    }
+
+    private Builder<T> addColumn(CsvColumn<T> column) {
       if (columns == null) {
         columns = new ArrayList<>();
       }
-      columns.add(new CsvColumn<>(columnName, type, mapper));
+      columns.add(column);
       return this;
     }
 
+    private static <T, V> Function<T, Object> shared(
+        SharedAccessor<T, V> accessor, Function<? super V, Object> mapper) {
+      return accessor == null || mapper == null
+          ? null
+          : new SharedAccessor.Mapper<>(accessor, mapper);
+    }
+
+    private static <T> List<CsvColumn<T>> select(
+        List<CsvColumn<T>> columns, Set<String> columnNames) {
+      final List<CsvColumn<T>> selected = new ArrayList<>();
+      final Set<String> found = new HashSet<>();
+      for (int i = 0; columns != null && i < columns.size(); i++) {
+        final CsvColumn<T> column = columns.get(i);
+        if (columnNames.contains(column.columnName())) {
+          selected.add(column);
+          found.add(column.columnName());
+        }
+      }
+      for (String columnName : columnNames) {
+        if (!found.contains(columnName)) {
+          throw new IllegalArgumentException("Selected column could not be found: " + columnName);
+        }
+      }
+      return selected;
+    }
+
+    private static <T> boolean isPresent(Predicate<T> presence, T row) {
+      return presence == null || presence.test(row);
+    }
+
     public Builder<T> dateTimePattern(DateTimeFormatter dateTimePattern) {
       this.dateTimePattern = dateTimePattern;
       return this;
@@ -86,44 +346,106 @@ public Builder<T> zoneId(ZoneId zoneId) {
       return this;
     }
 
+    /**
+     * Formats values of the class, its subclasses and, for an interface, its implementations,
+     * ahead of built-in formatting. The formatter of the nearest superclass wins, then of the
+     * nearest interface, a formatter of {@link Object} applies to all other values.
+     */
     public Builder<T> customFormatter(Class<?> key, Function<Object, String> formatter) {
       customFormatter.put(key, formatter);
       return this;
     }
+
+    /**
+     * Adds group-by summary rows, computed while the report is generated. See {@link
+     * ReportAggregation}.
+     */
+    public Builder<T> aggregate(Consumer<ReportAggregation.Builder> aggregation) {
+      final var aggregationBuilder = new ReportAggregation.Builder();
+      aggregation.accept(aggregationBuilder);
+      this.aggregation = aggregationBuilder.build();
+      return this;
+    }
   }
 
-  private String toStringValue(CsvColumn<T> column, Object value) {
-    if (value == null) {
+  /** Custom formatter applying to values of the class, {@code null} if there is none. */
+  Function<Object, String> findCustomFormatter(Class<?> valueClass) {
+    if (customFormatter.isEmpty()) {
       return null;
     }
+    final Function<Object, String> formatter = customFormatter.get(valueClass);
+    if (formatter != null) {
+      return formatter;
+    }
+    for (Class<?> type : FORMATTER_LOOKUP_TYPES.get(valueClass)) {
+      final Function<Object, String> inherited = customFormatter.get(type);
+      if (inherited != null) {
+        return inherited;
+      }
+    }
+    return null;
+  }
 
-    Function<Object, String> formatter = customFormatter.get(value.getClass());
+  private static Class<?>[] formatterLookupTypes(Class<?> valueClass) {
+    final Set<Class<?>> types = new LinkedHashSet<>();
+    for (Class<?> type = valueClass; type != null; type = type.getSuperclass()) {
+      if (type != Object.class) {
+        types.add(type);
+      }
+    }
+    // Interfaces breadth-first, of the class before those of its superclasses
+    final Deque<Class<?>> interfaces = new ArrayDeque<>();
+    for (Class<?> type : List.copyOf(types)) {
+      interfaces.addAll(List.of(type.getInterfaces()));
+    }
+    while (!interfaces.isEmpty()) {
+      final Class<?> type = interfaces.poll();
+      if (types.add(type)) {
+        interfaces.addAll(List.of(type.getInterfaces()));
+      }
+    }
+    types.add(Object.class);
+    return types.toArray(new Class<?>[0]);
+  }
+
+  CellFormatter resolveFormatter(Class<?> valueClass, CsvColumn<T> column) {
+    Function<Object, String> formatter = findCustomFormatter(valueClass);
     if (formatter != null) {
-      return formatter.apply(value);
+      return CellFormatters.custom(formatter);
     }
 
-    if (value instanceof String) {
-      return (String) value;
+    if (valueClass == String.class) {
+      return CellFormatters.STRING;
     }
-    if (value instanceof BigDecimal) {
-      return ((BigDecimal) value).stripTrailingZeros().toPlainString();
+    if (BigDecimal.class.isAssignableFrom(valueClass)) {
+      final CsvColumn.DecimalScale decimalScale = column.decimalScale();
+      return decimalScale != null
+          ? CellFormatters.bigDecimal(decimalScale.scale(), decimalScale.roundingMode())
+          : CellFormatters.BIG_DECIMAL;
     }
-    if (value instanceof LocalDateTime) {
-      return applyTimeZone((LocalDateTime) value, zoneId).format(dateTimePattern);
+    if (valueClass == LocalDateTime.class) {
+      return CellFormatters.localDateTime(dateTimePattern, zoneId);
     }
-    if (value instanceof LocalDate) {
-      return ((LocalDate) value).format(datePattern);
+    if (valueClass == LocalDate.class) {
+      return CellFormatters.localDate(datePattern);
     }
-    if (value instanceof Long) {
-      if (column.type() == ColumnType.MILLISECONDS_DATE_TIME) {
-        return applyTimeZoneMills((Long) value, zoneId).format(dateTimePattern);
+    final ColumnType type = column.type();
+    if (valueClass == Long.class) {
+      if (type == ColumnType.MILLISECONDS_DATE_TIME) {
+        return CellFormatters.epochMillis(dateTimePattern, zoneId);
       }
-      if (column.type() == ColumnType.SECONDS_DATE_TIME) {
-        return applyTimeZoneSeconds((Long) value, zoneId).format(dateTimePattern);
+      if (type == ColumnType.SECONDS_DATE_TIME) {
+        return CellFormatters.epochSeconds(dateTimePattern, zoneId);
       }
     }
+    if (valueClass == Long.class
+        || valueClass == Integer.class
+        || valueClass == Short.class
+        || valueClass == Byte.class) {
+      return CellFormatters.INTEGRAL;
+    }
 
-    return String.valueOf(value);
+    return CellFormatters.TO_STRING;
   }
 
   public static LocalDateTime applyTimeZone(LocalDateTime utcLocalDateTime, ZoneId timeZone) {
@@ -134,14 +456,14 @@ public static LocalDateTime applyTimeZone(LocalDateTime utcLocalDateTime, ZoneId
     return ZonedDateTime.of(utcLocalDateTime, UTC).withZoneSameInstant(timeZone).toLocalDateTime();
   }
 
-  private static LocalDateTime applyTimeZoneSeconds(long utcEpochSeconds, ZoneId timeZone) {
+  static LocalDateTime applyTimeZoneSeconds(long utcEpochSeconds, ZoneId timeZone) {
     if (timeZone == null) {
       timeZone = ZoneOffset.UTC;
     }
     return Instant.ofEpochSecond(utcEpochSeconds).atZone(timeZone).toLocalDateTime();
   }
 
-  private static LocalDateTime applyTimeZoneMills(long utcEpochMills, ZoneId timeZone) {
+  static LocalDateTime applyTimeZoneMills(long utcEpochMills, ZoneId timeZone) {
     if (timeZone == null) {
       timeZone = ZoneOffset.UTC;
     }
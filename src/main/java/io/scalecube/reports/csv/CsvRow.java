@@ -0,0 +1,192 @@
+package io.scalecube.reports.csv;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer holding the cells of one encoded row. Cells are appended one after another into
+ * a single char array, so re-filling the same instance for every row does not allocate once the
+ * buffer has grown to the widest row.
+ */
+public final class CsvRow {
+
+  private static final int DEFAULT_CAPACITY = 256;
+  private static final int DEFAULT_COLUMNS = 16;
+
+  private char[] chars;
+  private int length;
+
+  private int[] ends;
+  private boolean[] nulls;
+  // Escaped UTF-8 bytes of cells taken from an encoded value cache, null for other cells
+  private byte[][] encoded;
+  private int size;
+
+  public CsvRow() {
+    this(DEFAULT_COLUMNS);
+  }
+
+  public CsvRow(int expectedColumns) {
+    final int columns = Math.max(expectedColumns, 1);
+    chars = new char[DEFAULT_CAPACITY];
+    ends = new int[columns];
+    nulls = new boolean[columns];
+    encoded = new byte[columns][];
+  }
+
+  public void clear() {
+    length = 0;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isNull(int index) {
+    checkIndex(index);
+    return nulls[index];
+  }
+
+  public String get(int index) {
+    checkIndex(index);
+    if (nulls[index]) {
+      return null;
+    }
+    final int start = start(index);
+    return new String(chars, start, ends[index] - start);
+  }
+
+  public String[] toArray() {
+    final var values = new String[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = get(i);
+    }
+    return values;
+  }
+
+  public CsvRow append(char c) {
+    ensureCapacity(1);
+    chars[length++] = c;
+    return this;
+  }
+
+  public CsvRow append(String value) {
+    final int len = value.length();
+    ensureCapacity(len);
+    value.getChars(0, len, chars, length);
+    length += len;
+    return this;
+  }
+
+  public CsvRow append(CharSequence value) {
+    if (value instanceof String) {
+      return append((String) value);
+    }
+    final int len = value.length();
+    ensureCapacity(len);
+    for (int i = 0; i < len; i++) {
+      chars[length++] = value.charAt(i);
+    }
+    return this;
+  }
+
+  public CsvRow append(char[] value, int offset, int len) {
+    ensureCapacity(len);
+    System.arraycopy(value, offset, chars, length, len);
+    length += len;
+    return this;
+  }
+
+  public CsvRow appendLong(long value) {
+    if (value == Long.MIN_VALUE) {
+      return append("-9223372036854775808");
+    }
+    final boolean negative = value < 0;
+    long remaining = negative ? -value : value;
+    final int digits = digits(remaining);
+    final int len = negative ? digits + 1 : digits;
+    ensureCapacity(len);
+    int pos = length + len;
+    do {
+      chars[--pos] = (char) ('0' + (remaining % 10));
+      remaining /= 10;
+    } while (remaining != 0);
+    if (negative) {
+      chars[--pos] = '-';
+    }
+    length += len;
+    return this;
+  }
+
+  /** Closes the cell made of everything appended since the previous cell. */
+  public void endCell() {
+    closeCell(false);
+  }
+
+  /** Adds a cell without value, the CSV writers render it as an empty field. */
+  public void endNullCell() {
+    closeCell(true);
+  }
+
+  /**
+   * Closes the cell like {@link #endCell()}, {@code encodedCell} are its chars escaped and encoded
+   * as by {@link Utf8CsvWriter}.
+   */
+  void endEncodedCell(byte[] encodedCell) {
+    closeCell(false);
+    encoded[size - 1] = encodedCell;
+  }
+
+  /** Returns escaped UTF-8 bytes of the cell when known, otherwise {@code null}. */
+  byte[] encoded(int index) {
+    return encoded[index];
+  }
+
+  char[] buffer() {
+    return chars;
+  }
+
+  int start(int index) {
+    return index == 0 ? 0 : ends[index - 1];
+  }
+
+  int end(int index) {
+    return ends[index];
+  }
+
+  private void closeCell(boolean isNull) {
+    if (size == ends.length) {
+      ends = Arrays.copyOf(ends, size * 2);
+      nulls = Arrays.copyOf(nulls, size * 2);
+      encoded = Arrays.copyOf(encoded, size * 2);
+    }
+    ends[size] = length;
+    nulls[size] = isNull;
+    encoded[size] = null;
+    size++;
+  }
+
+  private void ensureCapacity(int extra) {
+    final int required = length + extra;
+    if (required > chars.length) {
+      chars = Arrays.copyOf(chars, Math.max(required, chars.length * 2));
+    }
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Cell index " + index + " out of bounds " + size);
+    }
+  }
+
+  private static int digits(long value) {
+    long bound = 10;
+    for (int i = 1; i < 19; i++) {
+      if (value < bound) {
+        return i;
+      }
+      bound *= 10;
+    }
+    return 19;
+  }
+}
@@ -0,0 +1,510 @@
+package io.scalecube.reports.csv;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Encoder writing cells of a {@link CsvReport} row straight into a reusable {@link CsvRow}, one
+ * resolved encoder per column created from the report {@link Plan}. Encoders keep per-column caches
+ * and are therefore not thread-safe, every generating thread should obtain its own instance from
+ * {@link CsvReport#newEncoder()}. Values of {@link SharedAccessor}s are memoized for the row being
+ * encoded.
+ */
+public final class CsvRowEncoder<T> {
+
+  private final ColumnEncoder<T>[] encoders;
+
+  // Shared accessor values of the current row, by slot, computed by the first column reading them
+  private final Object[] sharedValues;
+  private final long[] sharedRows;
+  private long row;
+
+  @SuppressWarnings("unchecked")
+  CsvRowEncoder(Plan<T> plan) {
+    sharedValues = new Object[plan.sharedSlotCount];
+    sharedRows = new long[plan.sharedSlotCount];
+
+    encoders = (ColumnEncoder<T>[]) new ColumnEncoder<?>[plan.columnPlans.length];
+    for (int i = 0; i < encoders.length; i++) {
+      final ColumnPlan<T> columnPlan = plan.columnPlans[i];
+      final Function<T, Object> mapper =
+          columnPlan.column().mapper() instanceof SharedAccessor.Mapper<T, ?> shared
+              ? memoized(shared, plan.sharedSlots[i])
+              : columnPlan.column().mapper();
+      encoders[i] = columnPlan.newEncoder(mapper);
+    }
+  }
+
+  private <V> Function<T, Object> memoized(SharedAccessor.Mapper<T, V> shared, int slot) {
+    final Function<T, V> accessor = shared.accessor().accessor();
+    final Function<? super V, Object> mapper = shared.mapper();
+    return row -> mapper.apply(sharedValue(slot, accessor, row));
+  }
+
+  @SuppressWarnings("unchecked")
+  private <V> V sharedValue(int slot, Function<T, V> accessor, T value) {
+    if (sharedRows[slot] != row) {
+      sharedValues[slot] = accessor.apply(value);
+      sharedRows[slot] = row;
+    }
+    return (V) sharedValues[slot];
+  }
+
+  public int columnCount() {
+    return encoders.length;
+  }
+
+  public void encode(T row, CsvRow out) {
+    out.clear();
+    this.row++;
+    for (ColumnEncoder<T> encoder : encoders) {
+      encoder.encode(row, out);
+    }
+  }
+
+  /** Encodes sampled row, see {@link ColumnEncoder#encodeTimed(Object, CsvRow, long[], int)}. */
+  void encodeTimed(T row, CsvRow out, long[] nanos) {
+    out.clear();
+    this.row++;
+    for (int i = 0; i < encoders.length; i++) {
+      encoders[i].encodeTimed(row, out, nanos, i);
+    }
+  }
+
+  /**
+   * Encoding decisions of a report resolved once, by {@link CsvReport.Builder#build()} or the first
+   * encoder, and shared by all its encoders: encoder kind of every column, shared accessor slots
+   * and formatters by value class. Encoders get their own copies of formatters keeping state.
+   */
+  public static final class Plan<T> {
+
+    // Encoder of CsvReport.mapRow, per calling thread
+    private final ThreadLocal<RowMapping<T>> rowMappings = new ThreadLocal<>();
+
+    // Report the plan is compiled for, written last
+    private volatile CsvReport<T> report;
+    private ColumnPlan<T>[] columnPlans;
+    private int[] sharedSlots;
+    private int sharedSlotCount;
+
+    Plan() {}
+
+    /** This plan compiled for the report, or a new one if this plan belongs to another report. */
+    Plan<T> compiledFor(CsvReport<T> report) {
+      if (this.report != report) {
+        synchronized (this) {
+          if (this.report == null) {
+            compile(report);
+          }
+        }
+        if (this.report != report) {
+          // Report constructed with the plan of another report
+          final Plan<T> plan = new Plan<>();
+          plan.compile(report);
+          return plan;
+        }
+      }
+      return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compile(CsvReport<T> report) {
+      final List<CsvColumn<T>> columns = report.columns() != null ? report.columns() : List.of();
+      final Map<SharedAccessor<T, ?>, Integer> slots = new IdentityHashMap<>();
+      sharedSlots = new int[columns.size()];
+      columnPlans = (ColumnPlan<T>[]) new ColumnPlan<?>[columns.size()];
+      for (int i = 0; i < columnPlans.length; i++) {
+        final CsvColumn<T> column = columns.get(i);
+        if (column.mapper() instanceof SharedAccessor.Mapper<T, ?> shared) {
+          slots.putIfAbsent(shared.accessor(), slots.size());
+          sharedSlots[i] = slots.get(shared.accessor());
+        }
+        columnPlans[i] = columnPlan(report, column);
+      }
+      sharedSlotCount = slots.size();
+      this.report = report;
+    }
+
+    private static <T> ColumnPlan<T> columnPlan(CsvReport<T> report, CsvColumn<T> column) {
+      final CsvColumn.PrimitiveMapper<T> primitiveMapper = column.primitiveMapper();
+      // Custom formatters registered for the boxed type take precedence
+      if (primitiveMapper instanceof CsvColumn.LongMapper<T> longMapper
+          && report.findCustomFormatter(Long.class) == null) {
+        final DateTimeCellFormatter dateTimeFormatter = epochFormatter(report, column.type());
+        return new PrimitiveColumnPlan<>(
+            column,
+            () ->
+                new LongColumnEncoder<>(
+                    column.type(),
+                    longMapper,
+                    dateTimeFormatter != null ? dateTimeFormatter.copy() : null));
+      }
+      if (primitiveMapper instanceof CsvColumn.IntMapper<T> intMapper
+          && report.findCustomFormatter(Integer.class) == null) {
+        return new PrimitiveColumnPlan<>(column, () -> new IntColumnEncoder<>(intMapper));
+      }
+      if (primitiveMapper instanceof CsvColumn.DoubleMapper<T> doubleMapper
+          && report.findCustomFormatter(Double.class) == null) {
+        return new PrimitiveColumnPlan<>(column, () -> new DoubleColumnEncoder<>(doubleMapper));
+      }
+      return new ObjectColumnPlan<>(report, column);
+    }
+
+    private static DateTimeCellFormatter epochFormatter(CsvReport<?> report, ColumnType type) {
+      if (type == ColumnType.MILLISECONDS_DATE_TIME) {
+        return new DateTimeCellFormatter(
+            DateTimeCellFormatter.Source.EPOCH_MILLIS, report.dateTimePattern(), report.zoneId());
+      }
+      if (type == ColumnType.SECONDS_DATE_TIME) {
+        return new DateTimeCellFormatter(
+            DateTimeCellFormatter.Source.EPOCH_SECONDS, report.dateTimePattern(), report.zoneId());
+      }
+      return null;
+    }
+
+    /** Encodes the row with the encoder of the calling thread, see {@link CsvReport#mapRow}. */
+    String[] mapRow(T value) {
+      RowMapping<T> mapping = rowMappings.get();
+      if (mapping == null) {
+        mapping = new RowMapping<>(new CsvRowEncoder<>(this));
+        rowMappings.set(mapping);
+      } else if (mapping.mapping) {
+        // A column mapper maps a row of the same report
+        return new RowMapping<>(new CsvRowEncoder<>(this)).map(value);
+      }
+      return mapping.map(value);
+    }
+
+    // Derived from the other report components, not a part of the report value
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Plan;
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return "Plan";
+    }
+  }
+
+  private static final class RowMapping<T> {
+
+    private final CsvRowEncoder<T> encoder;
+    private final CsvRow row;
+    private boolean mapping;
+
+    private RowMapping(CsvRowEncoder<T> encoder) {
+      this.encoder = encoder;
+      this.row = new CsvRow(encoder.columnCount());
+    }
+
+    private String[] map(T value) {
+      mapping = true;
+      try {
+        encoder.encode(value, row);
+        return row.toArray();
+      } finally {
+        mapping = false;
+      }
+    }
+  }
+
+  private interface ColumnPlan<T> {
+
+    CsvColumn<T> column();
+
+    ColumnEncoder<T> newEncoder(Function<T, Object> mapper);
+  }
+
+  private record PrimitiveColumnPlan<T>(CsvColumn<T> column, Supplier<ColumnEncoder<T>> encoder)
+      implements ColumnPlan<T> {
+
+    @Override
+    public ColumnEncoder<T> newEncoder(Function<T, Object> mapper) {
+      return encoder.get();
+    }
+  }
+
+  private static final class ObjectColumnPlan<T> implements ColumnPlan<T> {
+
+    private final CsvReport<T> report;
+    private final CsvColumn<T> column;
+    // Resolved by concrete class, for the encoders of all threads
+    private final Map<Class<?>, Dispatch> dispatches = new ConcurrentHashMap<>();
+
+    private ObjectColumnPlan(CsvReport<T> report, CsvColumn<T> column) {
+      this.report = report;
+      this.column = column;
+    }
+
+    @Override
+    public CsvColumn<T> column() {
+      return column;
+    }
+
+    @Override
+    public ColumnEncoder<T> newEncoder(Function<T, Object> mapper) {
+      return new ObjectColumnEncoder<>(this, mapper);
+    }
+
+    private Dispatch dispatch(Class<?> valueClass) {
+      final Dispatch dispatch = dispatches.get(valueClass);
+      return dispatch != null ? dispatch : dispatches.computeIfAbsent(valueClass, this::resolve);
+    }
+
+    private Dispatch resolve(Class<?> valueClass) {
+      return new Dispatch(
+          report.resolveFormatter(valueClass, column), isImmutableValue(valueClass));
+    }
+
+    /** Values formatted the same whenever equal, unless a custom formatter says otherwise. */
+    private boolean isImmutableValue(Class<?> valueClass) {
+      if (report.findCustomFormatter(valueClass) != null) {
+        return false;
+      }
+      return valueClass == String.class
+          || valueClass == Boolean.class
+          || valueClass == Character.class
+          || valueClass == BigDecimal.class
+          || valueClass == LocalDate.class
+          || valueClass == LocalDateTime.class
+          || Enum.class.isAssignableFrom(valueClass);
+    }
+  }
+
+  private record Dispatch(CellFormatter formatter, boolean immutableValue) {
+
+    /** Dispatch for a single encoder, with its own copy of a formatter keeping state. */
+    private Dispatch forEncoder() {
+      return formatter instanceof DateTimeCellFormatter dateTimeFormatter
+          ? new Dispatch(dateTimeFormatter.copy(), immutableValue)
+          : this;
+    }
+  }
+
+  private static final class ObjectColumnEncoder<T> implements ColumnEncoder<T> {
+
+    private final ObjectColumnPlan<T> plan;
+    private final Function<T, Object> mapper;
+
+    // Monomorphic cache, columns almost always produce values of a single class
+    private Class<?> cachedClass;
+    private CellFormatter cachedFormatter;
+    private boolean cachedValues;
+    // Taken from the plan by concrete class, kept once the column turns out to produce several
+    private Map<Class<?>, Dispatch> dispatches;
+
+    // Null once sampling found values too distinct
+    private EncodedValueCache valueCache;
+
+    private ObjectColumnEncoder(ObjectColumnPlan<T> plan, Function<T, Object> mapper) {
+      this.plan = plan;
+      this.mapper = mapper;
+      this.valueCache = new EncodedValueCache(!plan.column().cacheValues());
+    }
+
+    @Override
+    public void encode(T row, CsvRow out) {
+      write(mapper.apply(row), out);
+    }
+
+    @Override
+    public void encodeTimed(T row, CsvRow out, long[] nanos, int column) {
+      final long start = System.nanoTime();
+      final Object value = mapper.apply(row);
+      final long mapped = System.nanoTime();
+      write(value, out);
+      ColumnEncoder.addNanos(nanos, column, start, mapped);
+    }
+
+    private void write(Object value, CsvRow out) {
+      if (value == null) {
+        out.endNullCell();
+        return;
+      }
+      final Class<?> valueClass = value.getClass();
+      if (valueClass != cachedClass) {
+        final Dispatch dispatch = dispatch(valueClass);
+        cachedFormatter = dispatch.formatter();
+        cachedValues =
+            valueCache != null && (plan.column().cacheValues() || dispatch.immutableValue());
+        cachedClass = valueClass;
+      }
+      if (!cachedValues) {
+        cachedFormatter.format(value, out);
+        return;
+      }
+      valueCache.write(value, cachedFormatter, out);
+      if (valueCache.isDisabled()) {
+        valueCache = null;
+        cachedValues = false;
+      }
+    }
+
+    private Dispatch dispatch(Class<?> valueClass) {
+      if (cachedClass == null) {
+        return plan.dispatch(valueClass).forEncoder();
+      }
+      if (dispatches == null) {
+        dispatches = new IdentityHashMap<>();
+      }
+      Dispatch dispatch = dispatches.get(valueClass);
+      if (dispatch == null) {
+        dispatch = plan.dispatch(valueClass).forEncoder();
+        dispatches.put(valueClass, dispatch);
+      }
+      return dispatch;
+    }
+  }
+
+  private static final class LongColumnEncoder<T> implements ColumnEncoder<T> {
+
+    private final Predicate<T> presence;
+    private final ToLongFunction<T> mapper;
+    private final ColumnType type;
+    private final DateTimeCellFormatter dateTimeFormatter;
+
+    private LongColumnEncoder(
+        ColumnType type,
+        CsvColumn.LongMapper<T> longMapper,
+        DateTimeCellFormatter dateTimeFormatter) {
+      this.presence = longMapper.presence();
+      this.mapper = longMapper.mapper();
+      this.type = type;
+      this.dateTimeFormatter = dateTimeFormatter;
+    }
+
+    @Override
+    public void encode(T row, CsvRow out) {
+      if (presence != null && !presence.test(row)) {
+        out.endNullCell();
+        return;
+      }
+      write(mapper.applyAsLong(row), out);
+    }
+
+    @Override
+    public void encodeTimed(T row, CsvRow out, long[] nanos, int column) {
+      final long start = System.nanoTime();
+      final boolean present = presence == null || presence.test(row);
+      final long value = present ? mapper.applyAsLong(row) : 0;
+      final long mapped = System.nanoTime();
+      if (present) {
+        write(value, out);
+      } else {
+        out.endNullCell();
+      }
+      ColumnEncoder.addNanos(nanos, column, start, mapped);
+    }
+
+    private void write(long value, CsvRow out) {
+      if (dateTimeFormatter == null) {
+        out.appendLong(value).endCell();
+      } else if (type == ColumnType.MILLISECONDS_DATE_TIME) {
+        dateTimeFormatter.formatEpoch(
+            Math.floorDiv(value, 1000), Math.floorMod(value, 1000) * 1_000_000, out);
+      } else {
+        dateTimeFormatter.formatEpoch(value, 0, out);
+      }
+    }
+  }
+
+  private static final class IntColumnEncoder<T> implements ColumnEncoder<T> {
+
+    private final Predicate<T> presence;
+    private final ToIntFunction<T> mapper;
+
+    private IntColumnEncoder(CsvColumn.IntMapper<T> intMapper) {
+      this.presence = intMapper.presence();
+      this.mapper = intMapper.mapper();
+    }
+
+    @Override
+    public void encode(T row, CsvRow out) {
+      if (presence != null && !presence.test(row)) {
+        out.endNullCell();
+        return;
+      }
+      out.appendLong(mapper.applyAsInt(row)).endCell();
+    }
+
+    @Override
+    public void encodeTimed(T row, CsvRow out, long[] nanos, int column) {
+      final long start = System.nanoTime();
+      final boolean present = presence == null || presence.test(row);
+      final int value = present ? mapper.applyAsInt(row) : 0;
+      final long mapped = System.nanoTime();
+      if (present) {
+        out.appendLong(value).endCell();
+      } else {
+        out.endNullCell();
+      }
+      ColumnEncoder.addNanos(nanos, column, start, mapped);
+    }
+  }
+
+  private static final class DoubleColumnEncoder<T> implements ColumnEncoder<T> {
+
+    // Integral doubles below 10^7 are printed by Double.toString as plain digits with ".0"
+    private static final double MAX_PLAIN_INTEGRAL = 1e7;
+
+    private final Predicate<T> presence;
+    private final ToDoubleFunction<T> mapper;
+
+    private DoubleColumnEncoder(CsvColumn.DoubleMapper<T> doubleMapper) {
+      this.presence = doubleMapper.presence();
+      this.mapper = doubleMapper.mapper();
+    }
+
+    @Override
+    public void encode(T row, CsvRow out) {
+      if (presence != null && !presence.test(row)) {
+        out.endNullCell();
+        return;
+      }
+      write(mapper.applyAsDouble(row), out);
+    }
+
+    @Override
+    public void encodeTimed(T row, CsvRow out, long[] nanos, int column) {
+      final long start = System.nanoTime();
+      final boolean present = presence == null || presence.test(row);
+      final double value = present ? mapper.applyAsDouble(row) : 0;
+      final long mapped = System.nanoTime();
+      if (present) {
+        write(value, out);
+      } else {
+        out.endNullCell();
+      }
+      ColumnEncoder.addNanos(nanos, column, start, mapped);
+    }
+
+    private static void write(double value, CsvRow out) {
+      final long integral = (long) value;
+      if (integral == value
+          && Math.abs(value) < MAX_PLAIN_INTEGRAL
+          && (integral != 0 || Double.doubleToRawLongBits(value) == 0)) {
+        out.appendLong(integral).append('.').append('0').endCell();
+      } else {
+        out.append(Double.toString(value)).endCell();
+      }
+    }
+  }
+}
@@ -36,6 +36,50 @@ public void writeNext(String[] nextLine) {
     append("\n");
   }
 
+  public void writeRow(CsvRow row) {
+    final char[] chars = row.buffer();
+    for (int i = 0; i < row.size(); i++) {
+      if (i > 0) {
+        append(separator);
+      }
+      final int start = row.start(i);
+      final int end = row.end(i);
+      if (needsQuotes(chars, start, end)) {
+        append(quote);
+        int from = start;
+        for (int j = start; j < end; j++) {
+          if (chars[j] == '"') {
+            append(chars, from, j + 1 - from).append(quoteEscape);
+            from = j + 1;
+          }
+        }
+        append(chars, from, end - from).append(quote);
+      } else {
+        append(chars, start, end - start);
+      }
+    }
+    append("\n");
+  }
+
+  private static boolean needsQuotes(char[] chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      final char c = chars[i];
+      if (c == '"' || c == ',' || c == '\n') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private CsvWriter append(char[] chars, int offset, int length) {
+    try {
+      writer.write(chars, offset, length);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return this;
+  }
+
   private CsvWriter append(String value) {
     try {
       writer.append(value);
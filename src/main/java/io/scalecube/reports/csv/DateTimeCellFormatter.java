@@ -0,0 +1,156 @@
+package io.scalecube.reports.csv;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Formats UTC date-times and epoch timestamps in the report zone. Patterns compiled by {@link
+ * DateTimePattern} are written digit by digit: the zone offset is cached for the current transition
+ * window and the formatted date prefix for the current local day. Other patterns, and years
+ * outside 1-9999, go through the {@link DateTimeFormatter}. Instances are not thread-safe.
+ */
+final class DateTimeCellFormatter implements CellFormatter {
+
+  private static final int SECONDS_PER_DAY = 86_400;
+  private static final long MIN_DAY = LocalDate.of(1, 1, 1).toEpochDay();
+  private static final long MAX_DAY = LocalDate.of(9999, 12, 31).toEpochDay();
+
+  enum Source {
+    LOCAL_DATE_TIME,
+    EPOCH_MILLIS,
+    EPOCH_SECONDS
+  }
+
+  private final Source source;
+  private final DateTimeFormatter formatter;
+  private final ZoneId zoneId;
+  private final DateTimePattern pattern;
+  private final ZoneRules rules;
+
+  // Offset valid for epoch seconds in [offsetFrom, offsetTo)
+  private long offsetFrom = 1;
+  private long offsetTo;
+  private int offsetSeconds;
+
+  private long cachedDay = Long.MIN_VALUE;
+  private boolean cachedDaySupported;
+  private int year;
+  private int month;
+  private int dayOfMonth;
+  private String datePrefix;
+
+  private final CsvRow scratch = new CsvRow(1);
+
+  DateTimeCellFormatter(Source source, DateTimeFormatter formatter, ZoneId zoneId) {
+    this.source = source;
+    this.formatter = formatter;
+    this.zoneId = zoneId;
+    this.pattern = DateTimePattern.compile(formatter);
+    this.rules = zoneId != null ? zoneId.getRules() : ZoneOffset.UTC.getRules();
+  }
+
+  private DateTimeCellFormatter(DateTimeCellFormatter prototype) {
+    this.source = prototype.source;
+    this.formatter = prototype.formatter;
+    this.zoneId = prototype.zoneId;
+    this.pattern = prototype.pattern;
+    this.rules = prototype.rules;
+  }
+
+  /** Formatter of the same pattern and zone with its own caches, for another thread. */
+  DateTimeCellFormatter copy() {
+    return new DateTimeCellFormatter(this);
+  }
+
+  @Override
+  public void format(Object value, CsvRow row) {
+    final long epochSecond;
+    final int nano;
+    switch (source) {
+      case EPOCH_MILLIS:
+        final long millis = (Long) value;
+        epochSecond = Math.floorDiv(millis, 1000);
+        nano = Math.floorMod(millis, 1000) * 1_000_000;
+        break;
+      case EPOCH_SECONDS:
+        epochSecond = (Long) value;
+        nano = 0;
+        break;
+      default:
+        final LocalDateTime dateTime = (LocalDateTime) value;
+        epochSecond = dateTime.toEpochSecond(ZoneOffset.UTC);
+        nano = dateTime.getNano();
+    }
+    formatEpoch(epochSecond, nano, row);
+  }
+
+  void formatEpoch(long epochSecond, int nano, CsvRow row) {
+    if (pattern == null) {
+      formatGeneral(epochSecond, nano, row);
+      return;
+    }
+
+    final long local = epochSecond + offset(epochSecond);
+    final long day = Math.floorDiv(local, SECONDS_PER_DAY);
+    if (day != cachedDay) {
+      cacheDay(day);
+    }
+    if (!cachedDaySupported) {
+      formatGeneral(epochSecond, nano, row);
+      return;
+    }
+
+    row.append(datePrefix);
+    pattern.formatRemainder(
+        year, month, dayOfMonth, Math.floorMod(local, SECONDS_PER_DAY), nano, row);
+    row.endCell();
+  }
+
+  private int offset(long epochSecond) {
+    if (epochSecond < offsetFrom || epochSecond >= offsetTo) {
+      if (rules.isFixedOffset()) {
+        offsetFrom = Long.MIN_VALUE;
+        offsetTo = Long.MAX_VALUE;
+        offsetSeconds = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+      } else {
+        final Instant instant = Instant.ofEpochSecond(epochSecond);
+        final ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+        final ZoneOffsetTransition next = rules.nextTransition(instant);
+        offsetFrom = previous != null ? previous.toEpochSecond() : Long.MIN_VALUE;
+        offsetTo = next != null ? next.toEpochSecond() : Long.MAX_VALUE;
+        offsetSeconds = rules.getOffset(instant).getTotalSeconds();
+      }
+    }
+    return offsetSeconds;
+  }
+
+  private void cacheDay(long day) {
+    cachedDay = day;
+    cachedDaySupported = day >= MIN_DAY && day <= MAX_DAY;
+    if (!cachedDaySupported) {
+      return;
+    }
+    final LocalDate date = LocalDate.ofEpochDay(day);
+    year = date.getYear();
+    month = date.getMonthValue();
+    dayOfMonth = date.getDayOfMonth();
+    scratch.clear();
+    pattern.formatDatePrefix(year, month, dayOfMonth, scratch);
+    scratch.endCell();
+    datePrefix = scratch.get(0);
+  }
+
+  private void formatGeneral(long epochSecond, int nano, CsvRow row) {
+    final LocalDateTime dateTime =
+        Instant.ofEpochSecond(epochSecond, nano)
+            .atZone(zoneId != null ? zoneId : ZoneOffset.UTC)
+            .toLocalDateTime();
+    row.append(dateTime.format(formatter)).endCell();
+  }
+}
@@ -0,0 +1,306 @@
+package io.scalecube.reports.csv;
+
+import java.time.LocalDateTime;
+import java.time.chrono.IsoChronology;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DecimalStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Numeric date-time pattern compiled from a {@link DateTimeFormatter} to write digits straight
+ * into a {@link CsvRow}. Only fixed and unpadded numeric fields of ISO date-time, nano fractions and
+ * literals are supported. Compilation reads the printer structure from {@link
+ * DateTimeFormatter#toString()} and verifies the compiled pattern against the formatter on a set of
+ * probe values, formatters which can't be compiled or verified yield {@code null}.
+ */
+final class DateTimePattern {
+
+  private static final int LITERAL = 0;
+  private static final int YEAR = 1;
+  private static final int MONTH = 2;
+  private static final int DAY = 3;
+  private static final int HOUR = 4;
+  private static final int MINUTE = 5;
+  private static final int SECOND = 6;
+  private static final int FRACTION = 7;
+
+  private static final int[] POWERS_OF_TEN = {
+    1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000
+  };
+
+  private static final DateTimePattern NOT_COMPILABLE = new DateTimePattern(List.of(), List.of());
+
+  private static final Map<DateTimeFormatter, DateTimePattern> CACHE =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private static final List<LocalDateTime> PROBES =
+      List.of(
+          LocalDateTime.of(2024, 3, 2, 9, 0, 1),
+          LocalDateTime.of(1, 1, 1, 0, 0, 0),
+          LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_999),
+          LocalDateTime.of(1970, 1, 1, 0, 0, 0, 1_000_000),
+          LocalDateTime.of(2000, 2, 29, 12, 5, 9, 120_000_000),
+          LocalDateTime.of(1987, 10, 19, 7, 30, 0, 123_456_789),
+          LocalDateTime.of(2038, 1, 19, 3, 14, 7, 500),
+          LocalDateTime.of(999, 11, 9, 13, 1, 59, 100_000_000));
+
+  // Triples of op, first and second argument
+  private final int[] ops;
+  private final String[] literals;
+  private final int datePrefixOps;
+
+  private DateTimePattern(List<int[]> ops, List<String> literals) {
+    this.ops = new int[ops.size() * 3];
+    int prefix = -1;
+    for (int i = 0; i < ops.size(); i++) {
+      final int[] op = ops.get(i);
+      System.arraycopy(op, 0, this.ops, i * 3, 3);
+      if (prefix < 0 && op[0] >= HOUR) {
+        prefix = i;
+      }
+    }
+    this.literals = literals.toArray(new String[0]);
+    this.datePrefixOps = prefix < 0 ? ops.size() : prefix;
+  }
+
+  static DateTimePattern compile(DateTimeFormatter formatter) {
+    DateTimePattern pattern = CACHE.get(formatter);
+    if (pattern == null) {
+      pattern = doCompile(formatter);
+      CACHE.put(formatter, pattern != null ? pattern : NOT_COMPILABLE);
+    }
+    return pattern == NOT_COMPILABLE ? null : pattern;
+  }
+
+  /** Writes leading ops which depend only on the date, i.e. everything before the first time op. */
+  void formatDatePrefix(int year, int month, int day, CsvRow row) {
+    format(0, datePrefixOps, year, month, day, 0, 0, row);
+  }
+
+  /** Writes ops following the date prefix. */
+  void formatRemainder(int year, int month, int day, int secondOfDay, int nano, CsvRow row) {
+    format(datePrefixOps, ops.length / 3, year, month, day, secondOfDay, nano, row);
+  }
+
+  private void format(
+      int fromOp,
+      int toOp,
+      int year,
+      int month,
+      int day,
+      int secondOfDay,
+      int nano,
+      CsvRow row) {
+    for (int i = fromOp * 3; i < toOp * 3; i += 3) {
+      final int arg = ops[i + 1];
+      switch (ops[i]) {
+        case LITERAL:
+          row.append(literals[arg]);
+          break;
+        case YEAR:
+          appendNumber(row, year, 4);
+          break;
+        case MONTH:
+          appendNumber(row, month, arg);
+          break;
+        case DAY:
+          appendNumber(row, day, arg);
+          break;
+        case HOUR:
+          appendNumber(row, secondOfDay / 3600, arg);
+          break;
+        case MINUTE:
+          appendNumber(row, (secondOfDay / 60) % 60, arg);
+          break;
+        case SECOND:
+          appendNumber(row, secondOfDay % 60, arg);
+          break;
+        case FRACTION:
+          appendFraction(row, nano, arg & 0xFF, (arg >>> 8) & 0xFF, ops[i + 2] != 0);
+          break;
+      }
+    }
+  }
+
+  private static void appendNumber(CsvRow row, int value, int width) {
+    int digits = 1;
+    while (digits < 4 && value >= POWERS_OF_TEN[digits]) {
+      digits++;
+    }
+    for (int i = digits; i < width; i++) {
+      row.append('0');
+    }
+    for (int i = digits - 1; i >= 0; i--) {
+      row.append((char) ('0' + (value / POWERS_OF_TEN[i]) % 10));
+    }
+  }
+
+  // Same output as DateTimeFormatterBuilder.appendFraction
+  private static void appendFraction(
+      CsvRow row, int nano, int minWidth, int maxWidth, boolean decimalPoint) {
+    int significant = 9;
+    if (nano == 0) {
+      significant = 0;
+    } else {
+      while (nano % POWERS_OF_TEN[9 - significant + 1] == 0) {
+        significant--;
+      }
+    }
+    final int width = Math.min(Math.max(significant, minWidth), maxWidth);
+    if (width == 0) {
+      return;
+    }
+    if (decimalPoint) {
+      row.append('.');
+    }
+    for (int i = 8; i > 8 - width; i--) {
+      row.append((char) ('0' + (nano / POWERS_OF_TEN[i]) % 10));
+    }
+  }
+
+  private static DateTimePattern doCompile(DateTimeFormatter formatter) {
+    if (formatter.getZone() != null
+        || (formatter.getChronology() != null
+            && formatter.getChronology() != IsoChronology.INSTANCE)
+        || !DecimalStyle.STANDARD.equals(formatter.getDecimalStyle())) {
+      return null;
+    }
+
+    final List<int[]> ops = new ArrayList<>();
+    final List<String> literals = new ArrayList<>();
+    if (!parse(formatter.toString(), ops, literals)) {
+      return null;
+    }
+
+    final var pattern = new DateTimePattern(ops, literals);
+    return pattern.matches(formatter) ? pattern : null;
+  }
+
+  private boolean matches(DateTimeFormatter formatter) {
+    final var row = new CsvRow(1);
+    for (LocalDateTime probe : PROBES) {
+      row.clear();
+      formatDatePrefix(probe.getYear(), probe.getMonthValue(), probe.getDayOfMonth(), row);
+      formatRemainder(
+          probe.getYear(),
+          probe.getMonthValue(),
+          probe.getDayOfMonth(),
+          probe.toLocalTime().toSecondOfDay(),
+          probe.getNano(),
+          row);
+      row.endCell();
+      final String expected;
+      try {
+        expected = formatter.format(probe);
+      } catch (RuntimeException e) {
+        return false;
+      }
+      if (!expected.equals(row.get(0))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean parse(String printer, List<int[]> ops, List<String> literals) {
+    int i = 0;
+    while (i < printer.length()) {
+      final char c = printer.charAt(i);
+      if (c == '(' || c == ')' || c == '[' || c == ']') {
+        // Composite and optional sections, all fields are available when formatting date-time
+        i++;
+      } else if (c == '\'') {
+        final var literal = new StringBuilder();
+        i++;
+        while (true) {
+          if (i >= printer.length()) {
+            return false;
+          }
+          if (printer.charAt(i) == '\'') {
+            if (i + 1 < printer.length() && printer.charAt(i + 1) == '\'') {
+              literal.append('\'');
+              i += 2;
+              continue;
+            }
+            i++;
+            break;
+          }
+          literal.append(printer.charAt(i++));
+        }
+        if (literal.length() == 0) {
+          // "''" is a quote char literal
+          literal.append('\'');
+        }
+        ops.add(new int[] {LITERAL, literals.size(), 0});
+        literals.add(literal.toString());
+      } else {
+        final int open = printer.indexOf('(', i);
+        final int close = printer.indexOf(')', i);
+        if (open < 0 || close < open) {
+          return false;
+        }
+        final String name = printer.substring(i, open);
+        final String[] args = printer.substring(open + 1, close).split(",");
+        i = close + 1;
+        if (name.startsWith("Parse")) {
+          continue;
+        }
+        final int[] op = compileField(name, args);
+        if (op == null) {
+          return false;
+        }
+        ops.add(op);
+      }
+    }
+    return !ops.isEmpty();
+  }
+
+  private static int[] compileField(String name, String[] args) {
+    if ("Fraction".equals(name)) {
+      if (!"NanoOfSecond".equals(args[0]) || args.length < 3 || args.length > 4) {
+        return null;
+      }
+      final int min = Integer.parseInt(args[1]);
+      final int max = Integer.parseInt(args[2]);
+      final boolean decimalPoint = args.length == 4 && "DecimalPoint".equals(args[3]);
+      return new int[] {FRACTION, min | (max << 8), decimalPoint ? 1 : 0};
+    }
+    if (!"Value".equals(name)) {
+      return null;
+    }
+    final String field = args[0];
+    if ("Year".equals(field) || "YearOfEra".equals(field)) {
+      // Four digits for years 1-9999, others fall back to the formatter
+      final boolean fixedWidth = args.length == 2 && "4".equals(args[1]);
+      final boolean exceedsPad =
+          args.length == 4 && "4".equals(args[1]) && "EXCEEDS_PAD".equals(args[3]);
+      return fixedWidth || exceedsPad ? new int[] {YEAR, 4, 0} : null;
+    }
+    final int width;
+    if (args.length == 1) {
+      width = 1;
+    } else if (args.length == 2 && "2".equals(args[1])) {
+      width = 2;
+    } else {
+      return null;
+    }
+    switch (field) {
+      case "MonthOfYear":
+        return new int[] {MONTH, width, 0};
+      case "DayOfMonth":
+        return new int[] {DAY, width, 0};
+      case "HourOfDay":
+        return new int[] {HOUR, width, 0};
+      case "MinuteOfHour":
+        return new int[] {MINUTE, width, 0};
+      case "SecondOfMinute":
+        return new int[] {SECOND, width, 0};
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package io.scalecube.reports.csv;
+
+/**
+ * When report file bytes are forced to the storage device. Forcing happens on the writer thread
+ * when {@link GenerationOptions.Builder#writerQueueSize} is set, otherwise on the generating
+ * thread.
+ */
+public enum Durability {
+  /** Left to the operating system, bytes may still be in the page cache once generation ends. */
+  NONE,
+  /** Forced once before the file is closed. */
+  FSYNC_ON_CLOSE,
+  /** Forced every {@code forceInterval} bytes and before the file is closed. */
+  PERIODIC
+}
@@ -0,0 +1,66 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Forces the downstream sink to the storage device as required by the {@link Durability}. */
+final class DurableByteSink implements ByteSink {
+
+  private final ByteSink downstream;
+  private final Durability durability;
+  private final long forceInterval;
+
+  private long unforcedBytes;
+
+  DurableByteSink(ByteSink downstream, Durability durability, long forceInterval) {
+    this.downstream = downstream;
+    this.durability = durability;
+    this.forceInterval = forceInterval;
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) throws IOException {
+    final int n = buffer.remaining();
+    downstream.write(buffer);
+    written(n);
+  }
+
+  @Override
+  public void write(ByteBuffer[] buffers, int offset, int length) throws IOException {
+    long n = 0;
+    for (int i = offset; i < offset + length; i++) {
+      n += buffers[i].remaining();
+    }
+    downstream.write(buffers, offset, length);
+    written(n);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    downstream.flush();
+  }
+
+  @Override
+  public void force() throws IOException {
+    downstream.force();
+    unforcedBytes = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (durability != Durability.NONE) {
+        downstream.force();
+      }
+    } finally {
+      downstream.close();
+    }
+  }
+
+  private void written(long n) throws IOException {
+    unforcedBytes += n;
+    if (durability == Durability.PERIODIC && unforcedBytes >= forceInterval) {
+      force();
+    }
+  }
+}
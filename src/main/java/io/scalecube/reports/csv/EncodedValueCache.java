@@ -0,0 +1,95 @@
+package io.scalecube.reports.csv;
+
+/**
+ * Direct-mapped cache of encoded cells of one column by value: a value evicts the one sharing its
+ * slot. A hit appends the cached chars and marks the cell with its escaped UTF-8 bytes, so the
+ * value is neither formatted nor encoded again. Unless {@code sampled} is off, the first {@code
+ * SAMPLE_SIZE} lookups decide whether values repeat often enough to keep caching.
+ */
+final class EncodedValueCache {
+
+  private static final int SLOTS = 1024;
+  private static final int SAMPLE_SIZE = 1024;
+  private static final int MAX_CACHED_LENGTH = 256;
+
+  // Allocated with the second value
+  private Object[] values;
+  private char[][] texts;
+  private byte[][] cells;
+  // Encodes missed cells in its own buffer
+  private Utf8CsvWriter encoder;
+  private boolean written;
+
+  private int samplesLeft;
+  private int sampleHits;
+  private boolean disabled;
+
+  EncodedValueCache(boolean sampled) {
+    this.samplesLeft = sampled ? SAMPLE_SIZE : -1;
+  }
+
+  /** Whether sampling found too few repeated values, the cache is then of no further use. */
+  boolean isDisabled() {
+    return disabled;
+  }
+
+  /** Writes the cell of a non-null value, formatting and caching it on a miss. */
+  void write(Object value, CellFormatter formatter, CsvRow out) {
+    if (values == null) {
+      // Not worth the slots for a single row, e.g. of CsvReport.mapRow
+      if (!written) {
+        written = true;
+        formatter.format(value, out);
+        return;
+      }
+      values = new Object[SLOTS];
+      texts = new char[SLOTS][];
+      cells = new byte[SLOTS][];
+      encoder = Utf8CsvWriter.cellEncoder(MAX_CACHED_LENGTH);
+    }
+    final int slot = slot(value);
+    final Object cached = values[slot];
+    final boolean hit = cached == value || (cached != null && cached.equals(value));
+    if (samplesLeft > 0) {
+      sample(hit);
+    }
+    if (hit) {
+      final char[] text = texts[slot];
+      out.append(text, 0, text.length).endEncodedCell(cells[slot]);
+      return;
+    }
+
+    formatter.format(value, out);
+    final int cell = out.size() - 1;
+    final int start = out.start(cell);
+    final int end = out.end(cell);
+    if (out.isNull(cell) || end - start > MAX_CACHED_LENGTH) {
+      return;
+    }
+    final char[] chars = out.buffer();
+    values[slot] = value;
+    // Cached texts are only copied out, the evicted one is overwritten when of the same length
+    char[] text = texts[slot];
+    if (text == null || text.length != end - start) {
+      text = new char[end - start];
+      texts[slot] = text;
+    }
+    System.arraycopy(chars, start, text, 0, text.length);
+    // Encoded cells are kept by rows not written yet, every value gets its own
+    cells[slot] = encoder.encodeCell(chars, start, end);
+  }
+
+  private void sample(boolean hit) {
+    if (hit) {
+      sampleHits++;
+    }
+    if (--samplesLeft == 0 && sampleHits < SAMPLE_SIZE / 2) {
+      disabled = true;
+    }
+  }
+
+  private static int slot(Object value) {
+    final int hash = value.hashCode();
+    return (hash ^ (hash >>> 16)) & (SLOTS - 1);
+  }
+}
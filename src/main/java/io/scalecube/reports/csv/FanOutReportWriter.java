@@ -0,0 +1,215 @@
+package io.scalecube.reports.csv;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Writes several reports from one pass over the source. Column mappers used more than once across
+ * the reports (the same {@link Function} instance) are evaluated once per row on the reading
+ * thread, report columns read the memoized values. Every report is encoded by its own encoder,
+ * with an executor reports are encoded concurrently, each one chunk by chunk in source order.
+ */
+final class FanOutReportWriter<T> {
+
+  private final List<Function<T, Object>> sharedMappers = new ArrayList<>();
+  private final List<Target<T>> targets = new ArrayList<>();
+  private final int chunkSize;
+  private final int maxInFlightChunks;
+  private final Executor executor;
+
+  /** {@code executor} is nullable, reports are then encoded on the calling thread. */
+  FanOutReportWriter(
+      List<CsvReport<T>> reports,
+      List<Utf8CsvWriter> writers,
+      GenerationOptions options,
+      Executor executor) {
+    final Map<Function<T, Object>, Integer> uses = new IdentityHashMap<>();
+    for (CsvReport<T> report : reports) {
+      for (CsvColumn<T> column : report.columns()) {
+        if (column.primitiveMapper() == null) {
+          uses.merge(column.mapper(), 1, Integer::sum);
+        }
+      }
+    }
+    final Map<Function<T, Object>, Integer> sharedIndex = new IdentityHashMap<>();
+    uses.forEach(
+        (mapper, count) -> {
+          if (count > 1) {
+            sharedIndex.put(mapper, sharedMappers.size());
+            sharedMappers.add(mapper);
+          }
+        });
+
+    for (int i = 0; i < reports.size(); i++) {
+      targets.add(new Target<>(reports.get(i), writers.get(i), sharedIndex, sharedMappers.size()));
+    }
+    this.chunkSize = options.chunkSize();
+    this.maxInFlightChunks = options.maxInFlightChunks();
+    this.executor = executor;
+  }
+
+  void write(Iterator<T> rows) {
+    final ArrayDeque<Chunk<T>> inFlight = new ArrayDeque<>(maxInFlightChunks);
+    int allocated = 0;
+    boolean completed = false;
+
+    try {
+      while (rows.hasNext()) {
+        final Chunk<T> chunk;
+        if (allocated < maxInFlightChunks) {
+          chunk = new Chunk<>(chunkSize, sharedMappers.size());
+          allocated++;
+        } else {
+          chunk = inFlight.poll();
+          await(chunk.done);
+        }
+
+        chunk.fill(rows, sharedMappers);
+        chunk.done = submit(chunk);
+        inFlight.add(chunk);
+      }
+
+      for (Target<T> target : targets) {
+        await(target.tail);
+      }
+      completed = true;
+    } finally {
+      if (!completed) {
+        // Queued chunks are skipped, running ones are waited for before outputs get closed
+        for (Target<T> target : targets) {
+          target.stopped = true;
+        }
+        for (Target<T> target : targets) {
+          target.tail.handle((ignored, error) -> null).join();
+        }
+      }
+    }
+  }
+
+  private CompletableFuture<Void> submit(Chunk<T> chunk) {
+    if (executor == null) {
+      for (Target<T> target : targets) {
+        target.encode(chunk);
+      }
+      return CompletableFuture.completedFuture(null);
+    }
+    final CompletableFuture<?>[] tasks = new CompletableFuture<?>[targets.size()];
+    for (int i = 0; i < tasks.length; i++) {
+      final Target<T> target = targets.get(i);
+      target.tail = target.tail.thenRunAsync(() -> target.encode(chunk), executor);
+      tasks[i] = target.tail;
+    }
+    return CompletableFuture.allOf(tasks);
+  }
+
+  private static void await(CompletableFuture<?> future) {
+    try {
+      future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static final class Chunk<T> {
+
+    private final Object[] rows;
+    // Row-major values of shared mappers
+    private final Object[] values;
+    private final int width;
+    private int count;
+
+    private CompletableFuture<Void> done;
+
+    private Chunk(int chunkSize, int width) {
+      this.rows = new Object[chunkSize];
+      this.values = new Object[chunkSize * width];
+      this.width = width;
+    }
+
+    private void fill(Iterator<T> source, List<Function<T, Object>> sharedMappers) {
+      count = 0;
+      while (count < rows.length && source.hasNext()) {
+        final T row = source.next();
+        rows[count] = row;
+        final int base = count * width;
+        for (int k = 0; k < width; k++) {
+          values[base + k] = sharedMappers.get(k).apply(row);
+        }
+        count++;
+      }
+    }
+  }
+
+  private static final class Target<T> {
+
+    private final CsvRowEncoder<T> encoder;
+    private final CsvRow row;
+    private final Utf8CsvWriter writer;
+
+    // Current row of the chunk being encoded, read by shared columns
+    private Object[] values;
+    private int base;
+
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+    private volatile boolean stopped;
+
+    private Target(
+        CsvReport<T> report,
+        Utf8CsvWriter writer,
+        Map<Function<T, Object>, Integer> sharedIndex,
+        int width) {
+      final List<CsvColumn<T>> columns = new ArrayList<>(report.columns().size());
+      for (CsvColumn<T> column : report.columns()) {
+        final Integer k = column.primitiveMapper() == null ? sharedIndex.get(column.mapper()) : null;
+        if (k == null) {
+          columns.add(column);
+        } else {
+          final int index = k;
+          columns.add(
+              new CsvColumn<>(
+                  column.columnName(),
+                  column.type(),
+                  ignored -> values[base + index],
+                  null,
+                  column.decimalScale(),
+                  column.cacheValues()));
+        }
+      }
+      this.encoder =
+          new CsvReport<>(
+                  columns,
+                  report.dateTimePattern(),
+                  report.datePattern(),
+                  report.zoneId(),
+                  report.customFormatter())
+              .newEncoder();
+      this.row = new CsvRow(encoder.columnCount());
+      this.writer = writer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void encode(Chunk<T> chunk) {
+      if (stopped) {
+        return;
+      }
+      values = chunk.values;
+      for (int i = 0; i < chunk.count; i++) {
+        base = i * chunk.width;
+        encoder.encode((T) chunk.rows[i], row);
+        writer.writeRow(row);
+      }
+      values = null;
+    }
+  }
+}
@@ -0,0 +1,6 @@
+package io.scalecube.reports.csv;
+
+public enum FileOutputMode {
+  CHANNEL,
+  MEMORY_MAPPED
+}
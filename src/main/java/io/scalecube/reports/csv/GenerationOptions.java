@@ -0,0 +1,321 @@
+package io.scalecube.reports.csv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+public record GenerationOptions(
+    FileOutputMode fileOutputMode,
+    int bufferSize,
+    long mappedRegionSize,
+    int parallelism,
+    int chunkSize,
+    int maxInFlightChunks,
+    Executor executor,
+    Compression compression,
+    int compressionBlockSize,
+    int compressionLevel,
+    int compressionParallelism,
+    ReportMetricsListener metricsListener,
+    int metricsSampleInterval,
+    long metricsProgressInterval,
+    long partMaxRows,
+    long partMaxBytes,
+    boolean zipParts,
+    List<SortKey> sortKeys,
+    int sortRunSize,
+    long checkpointInterval,
+    OutputFormat outputFormat,
+    int prefetchBatches,
+    int writerQueueSize,
+    int writerBufferSize,
+    Durability durability,
+    long forceInterval) {
+
+  public static final int DEFAULT_CHUNK_SIZE = 4096;
+  public static final int DEFAULT_COMPRESSION_BLOCK_SIZE = 256 * 1024;
+  public static final int DEFAULT_METRICS_SAMPLE_INTERVAL = 1024;
+  public static final long DEFAULT_METRICS_PROGRESS_INTERVAL = 100_000;
+  public static final int DEFAULT_SORT_RUN_SIZE = 100_000;
+  public static final long DEFAULT_CHECKPOINT_INTERVAL = 1_000_000;
+  public static final long DEFAULT_FORCE_INTERVAL = 64L * 1024 * 1024;
+
+  /** Report column the output is ordered by. */
+  public record SortKey(String columnName, boolean descending) {}
+
+  public static class Builder {
+
+    private FileOutputMode fileOutputMode = FileOutputMode.CHANNEL;
+    private int bufferSize = Utf8CsvWriter.DEFAULT_BUFFER_SIZE;
+    private long mappedRegionSize = MappedFileByteSink.DEFAULT_REGION_SIZE;
+    private int parallelism = 1;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxInFlightChunks;
+    private Executor executor;
+    private Compression compression = Compression.NONE;
+    private int compressionBlockSize = DEFAULT_COMPRESSION_BLOCK_SIZE;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private int compressionParallelism = Runtime.getRuntime().availableProcessors();
+    private ReportMetricsListener metricsListener;
+    private int metricsSampleInterval = DEFAULT_METRICS_SAMPLE_INTERVAL;
+    private long metricsProgressInterval = DEFAULT_METRICS_PROGRESS_INTERVAL;
+    private long partMaxRows;
+    private long partMaxBytes;
+    private boolean zipParts;
+    private final List<SortKey> sortKeys = new ArrayList<>();
+    private int sortRunSize = DEFAULT_SORT_RUN_SIZE;
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private OutputFormat outputFormat = OutputFormat.CSV;
+    private int prefetchBatches;
+    private int writerQueueSize;
+    private int writerBufferSize;
+    private Durability durability = Durability.NONE;
+    private long forceInterval = DEFAULT_FORCE_INTERVAL;
+
+    public GenerationOptions build() {
+      return new GenerationOptions(
+          fileOutputMode,
+          bufferSize,
+          mappedRegionSize,
+          parallelism,
+          chunkSize,
+          maxInFlightChunks > 0 ? maxInFlightChunks : 2 * parallelism,
+          executor,
+          compression,
+          compressionBlockSize,
+          compressionLevel,
+          compressionParallelism,
+          metricsListener,
+          metricsSampleInterval,
+          metricsProgressInterval,
+          partMaxRows,
+          partMaxBytes,
+          zipParts,
+          List.copyOf(sortKeys),
+          sortRunSize,
+          checkpointInterval,
+          outputFormat,
+          prefetchBatches,
+          writerQueueSize,
+          writerBufferSize > 0 ? writerBufferSize : bufferSize,
+          durability,
+          forceInterval);
+    }
+
+    public Builder fileOutputMode(FileOutputMode fileOutputMode) {
+      this.fileOutputMode = fileOutputMode;
+      return this;
+    }
+
+    public Builder bufferSize(int bufferSize) {
+      this.bufferSize = bufferSize;
+      return this;
+    }
+
+    public Builder mappedRegionSize(long mappedRegionSize) {
+      this.mappedRegionSize = mappedRegionSize;
+      return this;
+    }
+
+    /**
+     * Number of threads encoding rows, values above 1 enable parallel generation. Column mappers
+     * and custom formatters are then invoked concurrently and must be thread-safe.
+     */
+    public Builder parallelism(int parallelism) {
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /** Number of source rows encoded by one parallel task. */
+    public Builder chunkSize(int chunkSize) {
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    /**
+     * Max number of chunks read from the source but not yet written to the output, bounds the
+     * memory of parallel generation. Defaults to twice the parallelism.
+     */
+    public Builder maxInFlightChunks(int maxInFlightChunks) {
+      this.maxInFlightChunks = maxInFlightChunks;
+      return this;
+    }
+
+    /**
+     * Executor running parallel encoding tasks, e.g. a virtual-thread executor. By default a
+     * dedicated {@link java.util.concurrent.ForkJoinPool} of {@code parallelism} threads is
+     * created for every generation.
+     */
+    public Builder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Compresses the output. {@link Compression#GZIP} deflates blocks of {@code
+     * compressionBlockSize} bytes in parallel into a multi-member gzip stream, files get {@code
+     * .csv.gz} suffix.
+     */
+    public Builder compression(Compression compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    public Builder compressionBlockSize(int compressionBlockSize) {
+      this.compressionBlockSize = compressionBlockSize;
+      return this;
+    }
+
+    /** Deflate level from 0 to 9, or -1 for the default level. */
+    public Builder compressionLevel(int compressionLevel) {
+      this.compressionLevel = compressionLevel;
+      return this;
+    }
+
+    /**
+     * Max number of blocks compressed concurrently. Blocks are compressed on the configured
+     * executor, or on the common {@link java.util.concurrent.ForkJoinPool} when none is set.
+     */
+    public Builder compressionParallelism(int compressionParallelism) {
+      this.compressionParallelism = compressionParallelism;
+      return this;
+    }
+
+    /**
+     * Listener of generation metrics for file and stream outputs. Metrics are also published as
+     * {@code io.scalecube.reports.*} JFR events when those are enabled in a recording, without
+     * either generation runs uninstrumented.
+     */
+    public Builder metricsListener(ReportMetricsListener metricsListener) {
+      this.metricsListener = metricsListener;
+      return this;
+    }
+
+    /** Column mapper and formatter times are measured on every n-th row. */
+    public Builder metricsSampleInterval(int metricsSampleInterval) {
+      this.metricsSampleInterval = metricsSampleInterval;
+      return this;
+    }
+
+    /** Number of rows between progress notifications. */
+    public Builder metricsProgressInterval(long metricsProgressInterval) {
+      this.metricsProgressInterval = metricsProgressInterval;
+      return this;
+    }
+
+    /**
+     * Max number of data rows of one part in {@link CsvGenerator#generateAsParts}, 0 for no limit.
+     */
+    public Builder partMaxRows(long partMaxRows) {
+      this.partMaxRows = partMaxRows;
+      return this;
+    }
+
+    /**
+     * Size in CSV bytes (before compression) after which {@link CsvGenerator#generateAsParts} rolls
+     * over to a new part, 0 for no limit. Checked between rows, or between chunks in parallel
+     * generation, so parts may slightly exceed it.
+     */
+    public Builder partMaxBytes(long partMaxBytes) {
+      this.partMaxBytes = partMaxBytes;
+      return this;
+    }
+
+    /** Bundles all parts of {@link CsvGenerator#generateAsParts} into one zip file. */
+    public Builder zipParts(boolean zipParts) {
+      this.zipParts = zipParts;
+      return this;
+    }
+
+    /**
+     * Orders report rows by the column, ascending with nulls first. Repeated calls add further sort
+     * keys. Rows are sorted in runs of {@code sortRunSize} rows spilled to temp files and merged
+     * into the output, equal rows keep source order. Sorting applies to {@code generateAsFile},
+     * {@code generateAsParts} and {@code generateTo}. Keys are compared by value for numbers,
+     * decimals, strings (by code points), booleans, enums and {@code java.time} dates and times,
+     * other value types are rejected.
+     */
+    public Builder sortBy(String columnName) {
+      sortKeys.add(new SortKey(columnName, false));
+      return this;
+    }
+
+    /** Same as {@link #sortBy(String)} in descending order, nulls last. */
+    public Builder sortByDescending(String columnName) {
+      sortKeys.add(new SortKey(columnName, true));
+      return this;
+    }
+
+    /**
+     * Number of rows sorted in memory before spilling to a temp file. With {@code parallelism}
+     * above 1 up to {@code parallelism} runs are encoded and sorted concurrently.
+     */
+    public Builder sortRunSize(int sortRunSize) {
+      this.sortRunSize = sortRunSize;
+      return this;
+    }
+
+    /**
+     * Number of rows between checkpoints of {@link CsvGenerator#generateResumable}. Every
+     * checkpoint forces the report file to disk.
+     */
+    public Builder checkpointInterval(long checkpointInterval) {
+      this.checkpointInterval = checkpointInterval;
+      return this;
+    }
+
+    /**
+     * Encoding of {@link CsvGenerator#generateAsFile} and {@code generateTo} output. Binary
+     * formats are encoded on the generating thread, sorting, aggregation and metrics apply to CSV
+     * only.
+     */
+    public Builder outputFormat(OutputFormat outputFormat) {
+      this.outputFormat = outputFormat;
+      return this;
+    }
+
+    /**
+     * Number of batches of {@code chunkSize} rows, or pages of a {@link PagedSource}, fetched
+     * ahead on a dedicated thread while previous ones are encoded, 0 to read the source on the
+     * generating thread. Applies to {@link CsvGenerator#generateAsFile} and {@code generateTo},
+     * the source is then iterated by another thread.
+     */
+    public Builder prefetchBatches(int prefetchBatches) {
+      this.prefetchBatches = prefetchBatches;
+      return this;
+    }
+
+    /**
+     * Number of encoded buffers of {@code writerBufferSize} bytes queued for a dedicated writer
+     * thread owning the file or channel I/O, 0 to write on the generating thread. The buffers are
+     * allocated once per generation, off-heap, and the writer writes all queued ones at once.
+     * Applies to {@link CsvGenerator#generateAsFile} and {@code generateTo}.
+     */
+    public Builder writerQueueSize(int writerQueueSize) {
+      this.writerQueueSize = writerQueueSize;
+      return this;
+    }
+
+    /** Size of buffers queued for the writer thread, defaults to {@code bufferSize}. */
+    public Builder writerBufferSize(int writerBufferSize) {
+      this.writerBufferSize = writerBufferSize;
+      return this;
+    }
+
+    /**
+     * When report files of {@code generateAsFile}, {@code generateAsFiles} and {@code
+     * generateAsParts} are forced to the storage device, {@link Durability#NONE} by default.
+     */
+    public Builder durability(Durability durability) {
+      this.durability = durability;
+      return this;
+    }
+
+    /** Number of bytes written between forces with {@link Durability#PERIODIC}. */
+    public Builder forceInterval(long forceInterval) {
+      this.forceInterval = forceInterval;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package io.scalecube.reports.csv;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** Growable in-memory sink, reused across blocks via {@link #reset()}. */
+final class HeapByteSink implements ByteSink {
+
+  private byte[] bytes;
+  private int size;
+
+  HeapByteSink(int initialCapacity) {
+    bytes = new byte[initialCapacity];
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) {
+    final int length = buffer.remaining();
+    if (size + length > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(size + length, bytes.length * 2));
+    }
+    buffer.get(bytes, size, length);
+    size += length;
+  }
+
+  @Override
+  public void close() {
+    // no-op
+  }
+
+  byte[] array() {
+    return bytes;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void reset() {
+    size = 0;
+  }
+}
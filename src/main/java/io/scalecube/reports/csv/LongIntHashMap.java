@@ -0,0 +1,78 @@
+package io.scalecube.reports.csv;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map of long keys to non-negative int values with linear probing, kept at most
+ * half full. Entries are never removed.
+ */
+final class LongIntHashMap {
+
+  static final int MISSING = -1;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  LongIntHashMap(int expectedSize) {
+    final int capacity = Integer.highestOneBit(Math.max(4, 2 * expectedSize - 1)) << 1;
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, MISSING);
+    mask = capacity - 1;
+  }
+
+  int size() {
+    return size;
+  }
+
+  int get(long key) {
+    for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+      final int value = values[slot];
+      if (value == MISSING || keys[slot] == key) {
+        return value;
+      }
+    }
+  }
+
+  /** Returns value of the key, associating it with {@code value} first if absent. */
+  int getOrPut(long key, int value) {
+    int slot = slot(key);
+    for (; values[slot] != MISSING; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > keys.length >> 1) {
+      resize();
+    }
+    return value;
+  }
+
+  private int slot(long key) {
+    final long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void resize() {
+    final long[] oldKeys = keys;
+    final int[] oldValues = values;
+    keys = new long[oldKeys.length << 1];
+    values = new int[oldValues.length << 1];
+    Arrays.fill(values, MISSING);
+    mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != MISSING) {
+        int slot = slot(oldKeys[i]);
+        while (values[slot] != MISSING) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Copies bytes into a memory-mapped window of the file which is remapped region by region as the
+ * output grows. The file is truncated to the written size on close.
+ */
+public class MappedFileByteSink implements ByteSink {
+
+  public static final long DEFAULT_REGION_SIZE = 64L * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long regionSize;
+  private final boolean durable;
+
+  private MappedByteBuffer region;
+  private long regionOffset;
+
+  public MappedFileByteSink(FileChannel channel) throws IOException {
+    this(channel, DEFAULT_REGION_SIZE);
+  }
+
+  public MappedFileByteSink(FileChannel channel, long regionSize) throws IOException {
+    this(channel, regionSize, false);
+  }
+
+  /**
+   * With {@code durable} every region is forced before it is unmapped and the file size is forced
+   * after truncation on close, so {@link #force} covers all bytes written so far.
+   */
+  public MappedFileByteSink(FileChannel channel, long regionSize, boolean durable)
+      throws IOException {
+    if (regionSize <= 0 || regionSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Region size must be in (0, Integer.MAX_VALUE]");
+    }
+    this.channel = channel;
+    this.regionSize = regionSize;
+    this.durable = durable;
+    this.regionOffset = channel.position();
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (region == null || !region.hasRemaining()) {
+        mapNextRegion();
+      }
+      final int n = Math.min(buffer.remaining(), region.remaining());
+      final int limit = buffer.limit();
+      buffer.limit(buffer.position() + n);
+      region.put(buffer);
+      buffer.limit(limit);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (region != null) {
+      region.force();
+    }
+  }
+
+  /** Forces the current region and the file size, earlier regions are forced when replaced. */
+  @Override
+  public void force() throws IOException {
+    flush();
+    channel.force(true);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      channel.truncate(position());
+      if (durable) {
+        channel.force(true);
+      }
+    } finally {
+      region = null;
+      channel.close();
+    }
+  }
+
+  private long position() {
+    return region == null ? regionOffset : regionOffset + region.position();
+  }
+
+  private void mapNextRegion() throws IOException {
+    if (region != null) {
+      if (durable) {
+        region.force();
+      }
+      regionOffset += region.position();
+    }
+    region = channel.map(MapMode.READ_WRITE, regionOffset, regionSize);
+  }
+}
@@ -0,0 +1,25 @@
+package io.scalecube.reports.csv;
+
+/**
+ * Encoding of generated reports. Binary formats type cells by value class: integral numbers are
+ * 64-bit integers, floating point numbers doubles, {@link java.math.BigDecimal} and {@link
+ * java.math.BigInteger} decimals (with the column decimal scale applied), {@link
+ * java.time.LocalDateTime} and {@link ColumnType} epoch values timestamps in the report zone,
+ * {@link java.time.LocalDate} dates and booleans booleans. Other values, and values of classes
+ * with a custom formatter, are text as formatted in CSV. Every column must produce values of a
+ * single type.
+ */
+public enum OutputFormat {
+  CSV,
+  /**
+   * PostgreSQL {@code COPY ... FROM ... WITH (FORMAT binary)} input for {@code int8}, {@code
+   * float8}, {@code numeric}, {@code timestamp}, {@code date}, {@code bool} and {@code text}
+   * columns. Files get {@code .pgcopy} suffix.
+   */
+  POSTGRES_BINARY,
+  /**
+   * Self-describing chunked columnar format with plain, delta or dictionary encoded columns of
+   * {@code chunkSize} rows. Files get {@code .rcol} suffix.
+   */
+  COLUMNAR
+}
@@ -0,0 +1,37 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+public class OutputStreamByteSink implements ByteSink {
+
+  private final OutputStream outputStream;
+
+  public OutputStreamByteSink(OutputStream outputStream) {
+    this.outputStream = outputStream;
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) throws IOException {
+    if (buffer.hasArray()) {
+      outputStream.write(
+          buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      buffer.position(buffer.limit());
+      return;
+    }
+    final byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    outputStream.write(bytes);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    outputStream.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    outputStream.close();
+  }
+}
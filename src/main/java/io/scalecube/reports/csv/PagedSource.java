@@ -0,0 +1,21 @@
+package io.scalecube.reports.csv;
+
+import java.util.List;
+
+/**
+ * Data source returning rows a page at a time, e.g. a database cursor or a paginated remote API.
+ * With {@link GenerationOptions.Builder#prefetchBatches} pages are fetched on a separate thread
+ * while previous pages are encoded, otherwise on the generating thread as rows are needed.
+ */
+@FunctionalInterface
+public interface PagedSource<T> extends AutoCloseable {
+
+  /** Returns the next page of rows, an empty list or {@code null} once all rows were returned. */
+  List<T> nextPage();
+
+  /** Releases the source, invoked once generation completes or fails. */
+  @Override
+  default void close() {
+    // no-op
+  }
+}
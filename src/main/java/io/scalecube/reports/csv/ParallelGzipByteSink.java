@@ -0,0 +1,197 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses bytes into a multi-member gzip stream, every {@code blockSize} block is deflated as an
+ * independent gzip member on the executor. Members are written downstream in order from the
+ * calling thread, at most {@code maxInFlightBlocks} blocks are compressed concurrently.
+ */
+public class ParallelGzipByteSink implements ByteSink {
+
+  private static final byte[] HEADER = {
+    0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+  };
+
+  private final ByteSink downstream;
+  private final int blockSize;
+  private final int level;
+  private final int maxInFlightBlocks;
+  private final Executor executor;
+
+  private final ArrayDeque<Block> inFlight = new ArrayDeque<>();
+  private final ArrayDeque<Block> free = new ArrayDeque<>();
+  private int allocated;
+  private Block current;
+
+  public ParallelGzipByteSink(
+      ByteSink downstream, int blockSize, int level, int maxInFlightBlocks, Executor executor) {
+    this.downstream = downstream;
+    this.blockSize = blockSize;
+    this.level = level;
+    this.maxInFlightBlocks = maxInFlightBlocks;
+    this.executor = executor;
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (current == null) {
+        current = nextBlock();
+      }
+      final int n = Math.min(buffer.remaining(), blockSize - current.length);
+      buffer.get(current.input, current.length, n);
+      current.length += n;
+      if (current.length == blockSize) {
+        submitCurrent();
+      }
+    }
+  }
+
+  /** Closes the current block as a gzip member and writes all pending members downstream. */
+  @Override
+  public void flush() throws IOException {
+    if (current != null && current.length > 0) {
+      submitCurrent();
+    }
+    while (!inFlight.isEmpty()) {
+      drainHead();
+    }
+    downstream.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      try {
+        release();
+      } finally {
+        downstream.close();
+      }
+    }
+  }
+
+  /**
+   * Frees the native memory of all deflaters without closing the downstream sink, which may be
+   * owned by the caller. Pending blocks are dropped, blocks being compressed are waited for. The
+   * sink can not be written afterwards.
+   */
+  public void release() {
+    for (Block block : inFlight) {
+      block.skipped = true;
+    }
+    for (Block block : inFlight) {
+      // Not cancelled, which would not wait for a running compression
+      block.future.handle((ignored, error) -> null).join();
+      block.deflater.end();
+    }
+    for (Block block : free) {
+      block.deflater.end();
+    }
+    if (current != null) {
+      current.deflater.end();
+    }
+    inFlight.clear();
+    free.clear();
+    current = null;
+  }
+
+  private Block nextBlock() throws IOException {
+    if (!free.isEmpty()) {
+      return free.poll();
+    }
+    if (allocated < maxInFlightBlocks) {
+      allocated++;
+      return new Block(blockSize, level);
+    }
+    drainHead();
+    return free.poll();
+  }
+
+  private void submitCurrent() {
+    final Block block = current;
+    current = null;
+    block.future = CompletableFuture.runAsync(block::compress, executor);
+    inFlight.add(block);
+  }
+
+  private void drainHead() throws IOException {
+    // Stays in flight when compression failed, to be released on close
+    final Block block = inFlight.peek();
+    try {
+      block.future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+    inFlight.poll();
+    downstream.write(ByteBuffer.wrap(block.output, 0, block.outputLength));
+    block.length = 0;
+    free.add(block);
+  }
+
+  private static final class Block {
+
+    private final byte[] input;
+    private int length;
+
+    private byte[] output;
+    private int outputLength;
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+
+    private CompletableFuture<Void> future;
+    private volatile boolean skipped;
+
+    private Block(int blockSize, int level) {
+      input = new byte[blockSize];
+      output = new byte[blockSize / 2 + HEADER.length + 8];
+      deflater = new Deflater(level, true);
+    }
+
+    private void compress() {
+      if (skipped) {
+        return;
+      }
+      deflater.reset();
+      deflater.setInput(input, 0, length);
+      deflater.finish();
+
+      System.arraycopy(HEADER, 0, output, 0, HEADER.length);
+      int p = HEADER.length;
+      while (!deflater.finished()) {
+        if (output.length - p < 64) {
+          output = Arrays.copyOf(output, output.length * 2);
+        }
+        p += deflater.deflate(output, p, output.length - p - 8);
+      }
+
+      crc.reset();
+      crc.update(input, 0, length);
+      p = putIntLe(output, p, (int) crc.getValue());
+      p = putIntLe(output, p, length);
+      outputLength = p;
+    }
+
+    private static int putIntLe(byte[] bytes, int p, int value) {
+      bytes[p] = (byte) value;
+      bytes[p + 1] = (byte) (value >>> 8);
+      bytes[p + 2] = (byte) (value >>> 16);
+      bytes[p + 3] = (byte) (value >>> 24);
+      return p + 4;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package io.scalecube.reports.csv;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Encodes rows on an executor in ordered chunks and appends the encoded blocks to the output in
+ * source order. At most {@code maxInFlightChunks} chunks are read ahead of the output, blocks are
+ * recycled so steady state keeps a fixed memory footprint.
+ */
+final class ParallelReportWriter<T> {
+
+  private static final int BLOCK_WRITER_BUFFER_SIZE = 16 * 1024;
+
+  private final CsvReport<T> report;
+  private final int chunkSize;
+  private final int maxInFlightChunks;
+  private final Executor executor;
+
+  ParallelReportWriter(CsvReport<T> report, GenerationOptions options, Executor executor) {
+    this.report = report;
+    this.chunkSize = options.chunkSize();
+    this.maxInFlightChunks = options.maxInFlightChunks();
+    this.executor = executor;
+  }
+
+  /** {@code instrumentation} is nullable. */
+  void write(Iterator<T> rows, ReportOutput output, ReportInstrumentation instrumentation) {
+    final ArrayDeque<Block<T>> inFlight = new ArrayDeque<>(maxInFlightChunks);
+    final long maxPartRows = output.maxPartRows();
+    int allocated = 0;
+    long filledRows = 0;
+
+    try {
+      while (rows.hasNext()) {
+        if (instrumentation != null) {
+          instrumentation.firstRow();
+        }
+        final Block<T> block;
+        if (allocated < maxInFlightChunks) {
+          block = new Block<>(report, chunkSize, instrumentation);
+          allocated++;
+        } else {
+          block = inFlight.poll();
+          block.await();
+          block.drainTo(output, instrumentation);
+        }
+
+        // Blocks do not span parts
+        block.fill(rows, (int) Math.min(chunkSize, maxPartRows - filledRows % maxPartRows));
+        filledRows += block.count;
+        block.future = CompletableFuture.runAsync(block::encode, executor);
+        inFlight.add(block);
+      }
+
+      for (Block<T> block = inFlight.poll(); block != null; block = inFlight.poll()) {
+        block.await();
+        block.drainTo(output, instrumentation);
+      }
+    } finally {
+      // Do not leave encoders running against a closed output
+      for (Block<T> block : inFlight) {
+        block.future.cancel(false);
+      }
+    }
+  }
+
+  private static final class Block<T> {
+
+    private final Object[] rows;
+    private int count;
+
+    private final CsvRowEncoder<T> encoder;
+    private final CsvRow row;
+    private final HeapByteSink bytes;
+    private final Utf8CsvWriter writer;
+
+    // Sampled column timings, null when not instrumented
+    private final long[] columnNanos;
+    private final int sampleInterval;
+    private int sampleCountdown;
+    private int samples;
+
+    private CompletableFuture<Void> future;
+
+    private Block(CsvReport<T> report, int chunkSize, ReportInstrumentation instrumentation) {
+      rows = new Object[chunkSize];
+      encoder = report.newEncoder();
+      row = new CsvRow(encoder.columnCount());
+      bytes = new HeapByteSink(BLOCK_WRITER_BUFFER_SIZE);
+      writer = new Utf8CsvWriter(bytes, BLOCK_WRITER_BUFFER_SIZE);
+      columnNanos = instrumentation != null ? new long[2 * encoder.columnCount()] : null;
+      sampleInterval = instrumentation != null ? instrumentation.sampleInterval() : 0;
+      sampleCountdown = sampleInterval;
+    }
+
+    private void fill(Iterator<T> source, int limit) {
+      count = 0;
+      while (count < limit && source.hasNext()) {
+        rows[count++] = source.next();
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void encode() {
+      bytes.reset();
+      if (columnNanos == null) {
+        for (int i = 0; i < count; i++) {
+          encoder.encode((T) rows[i], row);
+          rows[i] = null;
+          writer.writeRow(row);
+        }
+      } else {
+        for (int i = 0; i < count; i++) {
+          if (--sampleCountdown == 0) {
+            sampleCountdown = sampleInterval;
+            samples++;
+            encoder.encodeTimed((T) rows[i], row, columnNanos);
+          } else {
+            encoder.encode((T) rows[i], row);
+          }
+          rows[i] = null;
+          writer.writeRow(row);
+        }
+      }
+      writer.flush();
+    }
+
+    private void await() {
+      try {
+        future.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    private void drainTo(ReportOutput output, ReportInstrumentation instrumentation) {
+      output.writer(count).writeEncoded(bytes.array(), 0, bytes.size());
+      if (instrumentation != null) {
+        instrumentation.addSamples(columnNanos, samples);
+        Arrays.fill(columnNanos, 0);
+        samples = 0;
+        instrumentation.rowsWritten(count);
+      }
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands filled buffers to a dedicated writer thread which owns the downstream sink, so encoding
+ * does not wait for I/O. The {@code queueSize} direct buffers are allocated up front and stay in
+ * their ring slots: the generating thread fills the next free one, the writer writes all filled
+ * ones with one gathering write and frees them. {@link #flush()} waits until the writer caught up.
+ */
+final class PipelinedByteSink implements ByteSink {
+
+  private static final AtomicInteger THREADS = new AtomicInteger();
+
+  private final ByteSink downstream;
+  private final SpscRing<ByteBuffer> ring;
+  private final Thread writer;
+
+  private ByteBuffer current;
+  private long published;
+  private volatile long written;
+  private volatile Throwable error;
+  private volatile Thread waitingFlush;
+  private boolean stopped;
+
+  PipelinedByteSink(ByteSink downstream, int bufferSize, int queueSize) {
+    this.downstream = downstream;
+    this.ring = new SpscRing<>("writer", queueSize, () -> ByteBuffer.allocateDirect(bufferSize));
+    this.writer = new Thread(this::drain, "report-writer-" + THREADS.incrementAndGet());
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /** Queue between the generating and the writer thread. */
+  SpscRing<ByteBuffer> stage() {
+    return ring;
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (current == null) {
+        claim();
+      }
+      final int n = Math.min(buffer.remaining(), current.remaining());
+      final int limit = buffer.limit();
+      buffer.limit(buffer.position() + n);
+      current.put(buffer);
+      buffer.limit(limit);
+      if (!current.hasRemaining()) {
+        publish();
+      }
+    }
+  }
+
+  /** Waits until the writer wrote all buffers, then flushes the downstream sink. */
+  @Override
+  public void flush() throws IOException {
+    if (current != null && current.position() > 0) {
+      publish();
+    }
+    awaitWritten();
+    downstream.flush();
+  }
+
+  /**
+   * Stops the writer thread once it wrote queued buffers, leaving the downstream sink open. Bytes
+   * not yet queued are dropped, so it should follow a {@link #flush()}.
+   */
+  void stop() {
+    if (stopped) {
+      return;
+    }
+    stopped = true;
+    ring.complete(null);
+    boolean interrupted = false;
+    while (true) {
+      try {
+        writer.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      try {
+        if (error == null && current != null && current.position() > 0) {
+          publish();
+        }
+      } finally {
+        stop();
+      }
+      rethrowError();
+    } finally {
+      downstream.close();
+    }
+  }
+
+  private void claim() throws IOException {
+    rethrowError();
+    try {
+      current = ring.claim();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Report writing interrupted");
+    }
+    if (current == null) {
+      // Cancelled by the failed writer
+      rethrowError();
+    }
+  }
+
+  private void publish() {
+    current.flip();
+    ring.publish();
+    current = null;
+    published++;
+  }
+
+  private void awaitWritten() throws IOException {
+    waitingFlush = Thread.currentThread();
+    try {
+      while (written < published && error == null) {
+        LockSupport.park(this);
+        if (Thread.interrupted()) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Report writing interrupted");
+        }
+      }
+    } finally {
+      waitingFlush = null;
+    }
+    rethrowError();
+  }
+
+  private void drain() {
+    final ByteBuffer[] buffers = new ByteBuffer[ring.capacity()];
+    try {
+      for (int n = ring.available(); n > 0; n = ring.available()) {
+        for (int i = 0; i < n; i++) {
+          buffers[i] = ring.peek(i);
+        }
+        downstream.write(buffers, 0, n);
+        for (int i = 0; i < n; i++) {
+          buffers[i].clear();
+        }
+        ring.release(n);
+        written += n;
+        LockSupport.unpark(waitingFlush);
+      }
+    } catch (Throwable e) {
+      error = e;
+      ring.cancel();
+      LockSupport.unpark(waitingFlush);
+    }
+  }
+
+  private void rethrowError() throws IOException {
+    final Throwable failure = error;
+    if (failure == null) {
+      return;
+    }
+    if (failure instanceof IOException ioException) {
+      throw ioException;
+    }
+    if (failure instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    }
+    if (failure instanceof Error fatal) {
+      throw fatal;
+    }
+    throw new IOException(failure);
+  }
+}
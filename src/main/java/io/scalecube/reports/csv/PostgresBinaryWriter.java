@@ -0,0 +1,141 @@
+package io.scalecube.reports.csv;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Iterator;
+
+/**
+ * Writes report rows in the PostgreSQL binary {@code COPY} format, loadable with {@code COPY table
+ * FROM STDIN WITH (FORMAT binary)} into a table whose columns match the report columns: {@code
+ * int8}, {@code float8}, {@code numeric}, {@code timestamp}, {@code date}, {@code bool} and {@code
+ * text} for the value types of {@link BinaryColumnReader}. Timestamps keep microseconds.
+ */
+final class PostgresBinaryWriter<T> {
+
+  private static final byte[] SIGNATURE = {
+    'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0
+  };
+
+  // 2000-01-01, the PostgreSQL epoch
+  private static final long POSTGRES_EPOCH_DAY = 10_957;
+  private static final long POSTGRES_EPOCH_MICROS = POSTGRES_EPOCH_DAY * 86_400_000_000L;
+
+  private static final int NUMERIC_POSITIVE = 0x0000;
+  private static final int NUMERIC_NEGATIVE = 0x4000;
+  private static final BigInteger NBASE = BigInteger.valueOf(10_000);
+  private static final BigInteger[] PADDING = {
+    BigInteger.ONE, BigInteger.valueOf(10), BigInteger.valueOf(100), BigInteger.valueOf(1000)
+  };
+
+  private final BinaryColumnReader<T>[] columns;
+  private short[] digits = new short[16];
+
+  @SuppressWarnings("unchecked")
+  PostgresBinaryWriter(CsvReport<T> report) {
+    columns = (BinaryColumnReader<T>[]) new BinaryColumnReader<?>[report.columns().size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = new BinaryColumnReader<>(report, i);
+    }
+  }
+
+  void write(Iterator<T> rows, BinaryWriter out) {
+    out.putBytes(SIGNATURE, 0, SIGNATURE.length);
+    // Flags and header extension length
+    out.putInt(0);
+    out.putInt(0);
+    while (rows.hasNext()) {
+      writeRow(rows.next(), out);
+    }
+    out.putShort(-1);
+  }
+
+  private void writeRow(T row, BinaryWriter out) {
+    out.putShort(columns.length);
+    for (BinaryColumnReader<T> column : columns) {
+      final BinaryColumnReader.Type type = column.read(row);
+      if (type == null) {
+        out.putInt(-1);
+        continue;
+      }
+      switch (type) {
+        case INT64 -> {
+          out.putInt(Long.BYTES);
+          out.putLong(column.longValue());
+        }
+        case FLOAT64 -> {
+          out.putInt(Double.BYTES);
+          out.putLong(Double.doubleToRawLongBits(column.doubleValue()));
+        }
+        case DECIMAL -> writeNumeric(column.decimalValue(), out);
+        case TIMESTAMP -> {
+          out.putInt(Long.BYTES);
+          out.putLong(column.longValue() - POSTGRES_EPOCH_MICROS);
+        }
+        case DATE -> {
+          out.putInt(Integer.BYTES);
+          out.putInt(Math.toIntExact(column.longValue() - POSTGRES_EPOCH_DAY));
+        }
+        case BOOL -> {
+          out.putInt(Byte.BYTES);
+          out.putByte((int) column.longValue());
+        }
+        default -> {
+          final String text = column.textValue();
+          final int length = BinaryWriter.utf8Length(text);
+          out.putInt(length);
+          out.putUtf8(text, length);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes {@code numeric} as base 10000 digits, most significant first, with the weight of the
+   * first digit and the display scale. The decimal point falls between digits, so the unscaled
+   * value is padded to a scale divisible by 4 first.
+   */
+  private void writeNumeric(BigDecimal value, BinaryWriter out) {
+    BigInteger unscaled = value.unscaledValue();
+    int scale = value.scale();
+    if (scale < 0) {
+      unscaled = unscaled.multiply(BigInteger.TEN.pow(-scale));
+      scale = 0;
+    }
+    final int sign = unscaled.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE;
+    final int padding = (4 - scale % 4) % 4;
+    unscaled = unscaled.abs().multiply(PADDING[padding]);
+
+    // Least significant digit first
+    final int maxDigits = unscaled.bitLength() / 13 + 1;
+    if (digits.length < maxDigits) {
+      digits = new short[Math.max(maxDigits, 2 * digits.length)];
+    }
+    int count = 0;
+    if (unscaled.bitLength() < Long.SIZE) {
+      for (long remaining = unscaled.longValue(); remaining != 0; remaining /= 10_000) {
+        digits[count++] = (short) (remaining % 10_000);
+      }
+    } else {
+      while (unscaled.signum() != 0) {
+        final BigInteger[] quotientAndRemainder = unscaled.divideAndRemainder(NBASE);
+        digits[count++] = quotientAndRemainder[1].shortValue();
+        unscaled = quotientAndRemainder[0];
+      }
+    }
+    int lowest = 0;
+    while (lowest < count && digits[lowest] == 0) {
+      lowest++;
+    }
+    final int ndigits = count - lowest;
+    final int weight = ndigits == 0 ? 0 : count - 1 - (scale + padding) / 4;
+
+    out.putInt(4 * Short.BYTES + ndigits * Short.BYTES);
+    out.putShort(ndigits);
+    out.putShort(weight);
+    out.putShort(ndigits == 0 ? NUMERIC_POSITIVE : sign);
+    out.putShort(scale);
+    for (int i = count - 1; i >= lowest; i--) {
+      out.putShort(digits[i]);
+    }
+  }
+}
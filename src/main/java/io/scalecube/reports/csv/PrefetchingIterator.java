@@ -0,0 +1,148 @@
+package io.scalecube.reports.csv;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches pages of rows on a dedicated thread, at most {@code maxPages} ahead of the generating
+ * thread iterating rows, starting with the first {@link #hasNext()}. Pages of a row iterator are
+ * batches of {@code batchSize} rows recycled once iterated, so fetching keeps a fixed number of
+ * batches.
+ */
+final class PrefetchingIterator<T> implements Iterator<T>, AutoCloseable {
+
+  private static final AtomicInteger THREADS = new AtomicInteger();
+
+  // Either a paged source or rows fetched in batches
+  private final PagedSource<T> source;
+  private final Iterator<T> rows;
+  private final int batchSize;
+
+  private final SpscRing<List<T>> pages;
+  // Batches iterated by the generating thread, null for pages of a paged source
+  private final SpscRing<List<T>> recycled;
+  private final Thread fetcher;
+
+  private List<T> page = List.of();
+  private int position;
+  private boolean started;
+  private boolean exhausted;
+
+  private PrefetchingIterator(
+      PagedSource<T> source, Iterator<T> rows, int batchSize, int maxPages) {
+    this.source = source;
+    this.rows = rows;
+    this.batchSize = batchSize;
+    this.pages = new SpscRing<>("prefetch", maxPages);
+    this.recycled = rows != null ? new SpscRing<>("recycle", maxPages + 2) : null;
+    this.fetcher = new Thread(this::fetch, "report-prefetch-" + THREADS.incrementAndGet());
+    fetcher.setDaemon(true);
+  }
+
+  static <T> PrefetchingIterator<T> ofPages(PagedSource<T> source, int maxPages) {
+    return new PrefetchingIterator<>(source, null, 0, maxPages);
+  }
+
+  static <T> PrefetchingIterator<T> ofRows(Iterator<T> rows, int batchSize, int maxBatches) {
+    return new PrefetchingIterator<>(null, rows, batchSize, maxBatches);
+  }
+
+  /** Queue between the fetching and the generating thread. */
+  SpscRing<List<T>> stage() {
+    return pages;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!started) {
+      started = true;
+      fetcher.start();
+    }
+    while (position == page.size()) {
+      if (exhausted) {
+        return false;
+      }
+      if (recycled != null && page.size() > 0) {
+        page.clear();
+        recycled.offer(page);
+      }
+      position = 0;
+      try {
+        page = pages.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CancellationException("Report generation interrupted");
+      }
+      if (page == null) {
+        page = List.of();
+        exhausted = true;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.get(position++);
+  }
+
+  /** Stops fetching and waits for the fetching thread to leave the source. */
+  @Override
+  public void close() {
+    if (!started) {
+      return;
+    }
+    pages.cancel();
+    fetcher.interrupt();
+    boolean interrupted = false;
+    while (true) {
+      try {
+        fetcher.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void fetch() {
+    Throwable error = null;
+    try {
+      for (List<T> next = nextPage(); next != null && !next.isEmpty(); next = nextPage()) {
+        if (!pages.put(next)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      // Cancelled
+      return;
+    } catch (Throwable e) {
+      error = e;
+    }
+    pages.complete(error);
+  }
+
+  private List<T> nextPage() {
+    if (source != null) {
+      return source.nextPage();
+    }
+    List<T> batch = recycled.poll();
+    if (batch == null) {
+      batch = new ArrayList<>(batchSize);
+    }
+    while (batch.size() < batchSize && rows.hasNext() && !pages.isCancelled()) {
+      batch.add(rows.next());
+    }
+    return batch;
+  }
+}
@@ -0,0 +1,124 @@
+package io.scalecube.reports.csv;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Group-by summary of a report, computed as rows stream through the generator. Summary rows have
+ * the report columns: group-by columns hold the group key, aggregated columns the aggregate and
+ * the first remaining column, if any, a label. Rows of every group are followed by a grand total
+ * row, appended after the report rows or written to a companion CSV file.
+ */
+public record ReportAggregation(
+    List<String> groupBy,
+    List<Measure> measures,
+    boolean sortedInput,
+    boolean grandTotal,
+    String subtotalLabel,
+    String totalLabel,
+    Path companionFile) {
+
+  public enum Aggregate {
+    /** Number of non-null values. */
+    COUNT,
+    SUM,
+    MIN,
+    MAX,
+    AVG
+  }
+
+  public record Measure(Aggregate aggregate, String columnName) {}
+
+  public static class Builder {
+
+    private final List<String> groupBy = new ArrayList<>();
+    private final List<Measure> measures = new ArrayList<>();
+    private boolean sortedInput;
+    private boolean grandTotal = true;
+    private String subtotalLabel = "Subtotal";
+    private String totalLabel = "Total";
+    private Path companionFile;
+
+    public ReportAggregation build() {
+      return new ReportAggregation(
+          List.copyOf(groupBy),
+          List.copyOf(measures),
+          sortedInput,
+          grandTotal,
+          subtotalLabel,
+          totalLabel,
+          companionFile);
+    }
+
+    /** Groups rows by the values of the columns, summary rows follow first appearance order. */
+    public Builder groupBy(String... columnNames) {
+      groupBy.addAll(List.of(columnNames));
+      return this;
+    }
+
+    public Builder count(String columnName) {
+      return measure(Aggregate.COUNT, columnName);
+    }
+
+    /**
+     * Sums numeric values, primitive columns in a long or double and {@link java.math.BigDecimal}
+     * values exactly. Long overflow throws {@link ArithmeticException}.
+     */
+    public Builder sum(String columnName) {
+      return measure(Aggregate.SUM, columnName);
+    }
+
+    /** Minimum of the column values, which must be comparable. */
+    public Builder min(String columnName) {
+      return measure(Aggregate.MIN, columnName);
+    }
+
+    /** Maximum of the column values, which must be comparable. */
+    public Builder max(String columnName) {
+      return measure(Aggregate.MAX, columnName);
+    }
+
+    /** Average of numeric values, integral and decimal averages keep 16 significant digits. */
+    public Builder avg(String columnName) {
+      return measure(Aggregate.AVG, columnName);
+    }
+
+    private Builder measure(Aggregate aggregate, String columnName) {
+      measures.add(new Measure(aggregate, columnName));
+      return this;
+    }
+
+    /**
+     * Input rows arrive ordered by the group-by columns: a group is completed as soon as its key
+     * changes, so only the current group is kept in memory. Summary rows of completed groups are
+     * written to the {@link #companionFile}, or staged in a temp file until they are appended
+     * after the report rows. Groups which are not contiguous get several summary rows.
+     */
+    public Builder sortedInput(boolean sortedInput) {
+      this.sortedInput = sortedInput;
+      return this;
+    }
+
+    public Builder grandTotal(boolean grandTotal) {
+      this.grandTotal = grandTotal;
+      return this;
+    }
+
+    public Builder labels(String subtotalLabel, String totalLabel) {
+      this.subtotalLabel = subtotalLabel;
+      this.totalLabel = totalLabel;
+      return this;
+    }
+
+    /**
+     * Writes summary rows with the columns header into the file, created or truncated, instead of
+     * appending them to the report. Completed groups of {@link #sortedInput} are written as they
+     * complete, keeping memory constant.
+     */
+    public Builder companionFile(Path companionFile) {
+      this.companionFile = companionFile;
+      return this;
+    }
+  }
+}
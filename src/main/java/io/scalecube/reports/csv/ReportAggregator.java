@@ -0,0 +1,749 @@
+package io.scalecube.reports.csv;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Computes the {@link ReportAggregation} of a report from the rows passed to {@link #accept}, on
+ * the thread reading the data source. Key values are dictionary encoded per column, primitive and
+ * integral keys through {@link LongIntHashMap}s, and a group is found by chaining the key ids
+ * through one more map per further group-by column. Aggregates live in primitive arrays indexed by
+ * group, slot 0 holds the grand total. With sorted input only the current group is kept, summary
+ * rows of completed groups are staged in a temp file until they are appended to the report.
+ */
+final class ReportAggregator<T> implements Consumer<T>, Closeable {
+
+  private static final int INITIAL_GROUPS = 16;
+  private static final int SUMMARY_BUFFER_SIZE = 16 * 1024;
+
+  private static final int EMPTY = -1;
+  private static final int LABEL = -2;
+
+  private final CsvReport<T> report;
+  private final ReportAggregation aggregation;
+  private final KeyColumn<T>[] keys;
+  private final Measure<T>[] measures;
+  private final CellWriter<T>[] cellWriters;
+  private final int[] roles;
+  private final int labelColumn;
+
+  // Hash mode: groups of key id prefixes per further group-by column, slots of complete keys
+  private final LongIntHashMap[] levels;
+  private int[] slotOfGroup = new int[INITIAL_GROUPS];
+  private int[] slotKeyIds = new int[INITIAL_GROUPS];
+  private int slots = 1;
+
+  // Sorted mode
+  private boolean hasGroup;
+
+  // Summary rows appended to the report, staged on heap or, with sorted input, in a temp file
+  private final HeapByteSink staging;
+  private final FileChannel stagingFile;
+  private final Utf8CsvWriter summaryWriter;
+  private final CsvRow row;
+  private long summaryRows;
+
+  /** Returns aggregator of the report, null when the report is not aggregated. */
+  static <T> ReportAggregator<T> create(CsvReport<T> report) {
+    return report.aggregation() != null ? new ReportAggregator<>(report) : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private ReportAggregator(CsvReport<T> report) {
+    validate(report);
+    this.report = report;
+    this.aggregation = report.aggregation();
+    final List<CsvColumn<T>> columns = report.columns();
+
+    roles = new int[columns.size()];
+    Arrays.fill(roles, EMPTY);
+    keys = (KeyColumn<T>[]) new KeyColumn<?>[aggregation.groupBy().size()];
+    for (int k = 0; k < keys.length; k++) {
+      final int index = indexOf(report, aggregation.groupBy().get(k));
+      keys[k] = new KeyColumn<>(columns.get(index));
+      roles[index] = k;
+    }
+    measures = (Measure<T>[]) new Measure<?>[aggregation.measures().size()];
+    for (int m = 0; m < measures.length; m++) {
+      final ReportAggregation.Measure measure = aggregation.measures().get(m);
+      final int index = indexOf(report, measure.columnName());
+      measures[m] = new Measure<>(measure.aggregate(), columns.get(index));
+      roles[index] = keys.length + m;
+    }
+    int label = EMPTY;
+    for (int i = 0; i < roles.length && label == EMPTY; i++) {
+      if (roles[i] == EMPTY) {
+        label = i;
+        roles[i] = LABEL;
+      }
+    }
+    labelColumn = label;
+    cellWriters = (CellWriter<T>[]) new CellWriter<?>[columns.size()];
+    for (int i = 0; i < cellWriters.length; i++) {
+      cellWriters[i] = new CellWriter<>(report, columns.get(i));
+    }
+
+    levels = new LongIntHashMap[keys.length];
+    for (int k = 1; k < keys.length; k++) {
+      levels[k] = new LongIntHashMap(INITIAL_GROUPS);
+    }
+    Arrays.fill(slotOfGroup, EMPTY);
+
+    row = new CsvRow(columns.size());
+    if (aggregation.companionFile() != null) {
+      staging = null;
+      stagingFile = null;
+      try {
+        final var channel =
+            FileChannel.open(aggregation.companionFile(), CREATE, WRITE, TRUNCATE_EXISTING);
+        summaryWriter = new Utf8CsvWriter(new ChannelByteSink(channel), SUMMARY_BUFFER_SIZE);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      summaryWriter.writeNext(report.columnsHeader());
+    } else if (aggregation.sortedInput()) {
+      staging = null;
+      try {
+        stagingFile =
+            FileChannel.open(
+                Files.createTempFile("report-summary-", ".csv"), READ, WRITE, DELETE_ON_CLOSE);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      summaryWriter =
+          new Utf8CsvWriter(
+              new ChannelByteSink(stagingFile, SUMMARY_BUFFER_SIZE), SUMMARY_BUFFER_SIZE);
+    } else {
+      staging = new HeapByteSink(SUMMARY_BUFFER_SIZE);
+      stagingFile = null;
+      summaryWriter = new Utf8CsvWriter(staging, SUMMARY_BUFFER_SIZE);
+    }
+  }
+
+  static void validate(CsvReport<?> report) {
+    final ReportAggregation aggregation = report.aggregation();
+    if (aggregation == null) {
+      return;
+    }
+    if (aggregation.groupBy().isEmpty() && aggregation.measures().isEmpty()) {
+      throw new IllegalArgumentException("Aggregation could not be empty");
+    }
+    final boolean[] used = new boolean[report.columns().size()];
+    for (String columnName : aggregation.groupBy()) {
+      final int index = indexOf(report, columnName);
+      if (used[index]) {
+        throw new IllegalArgumentException(
+            "Aggregation column could not be repeated: " + columnName);
+      }
+      used[index] = true;
+    }
+    for (ReportAggregation.Measure measure : aggregation.measures()) {
+      if (measure.aggregate() == null) {
+        throw new IllegalArgumentException("Aggregate could not be null");
+      }
+      final int index = indexOf(report, measure.columnName());
+      if (used[index]) {
+        throw new IllegalArgumentException(
+            "Aggregation column could not be repeated: " + measure.columnName());
+      }
+      used[index] = true;
+    }
+  }
+
+  private static int indexOf(CsvReport<?> report, String columnName) {
+    for (int i = 0; i < report.columns().size(); i++) {
+      if (report.columns().get(i).columnName().equals(columnName)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Aggregation column could not be found: " + columnName);
+  }
+
+  @Override
+  public void accept(T value) {
+    final int slot;
+    if (keys.length == 0) {
+      slot = 0;
+    } else if (aggregation.sortedInput()) {
+      slot = currentSlot(value);
+    } else {
+      slot = groupSlot(value);
+    }
+    for (Measure<T> measure : measures) {
+      measure.add(value, slot);
+    }
+  }
+
+  private int groupSlot(T value) {
+    for (KeyColumn<T> key : keys) {
+      key.read(value);
+      key.resolveId();
+    }
+    int group = keys[0].id;
+    for (int k = 1; k < keys.length; k++) {
+      final LongIntHashMap level = levels[k];
+      group = level.getOrPut(((long) group << 32) | keys[k].id, level.size());
+    }
+
+    if (group >= slotOfGroup.length) {
+      final int length = slotOfGroup.length;
+      slotOfGroup = Arrays.copyOf(slotOfGroup, Math.max(group + 1, 2 * length));
+      Arrays.fill(slotOfGroup, length, slotOfGroup.length, EMPTY);
+    }
+    int slot = slotOfGroup[group];
+    if (slot == EMPTY) {
+      slot = slots++;
+      slotOfGroup[group] = slot;
+      if (slot * keys.length + keys.length > slotKeyIds.length) {
+        slotKeyIds = Arrays.copyOf(slotKeyIds, 2 * (slot + 1) * keys.length);
+      }
+      for (int k = 0; k < keys.length; k++) {
+        slotKeyIds[slot * keys.length + k] = keys[k].id;
+      }
+    }
+    return slot;
+  }
+
+  private int currentSlot(T value) {
+    boolean same = hasGroup;
+    for (KeyColumn<T> key : keys) {
+      key.read(value);
+      same = same && key.isCurrent();
+    }
+    if (!same) {
+      if (hasGroup) {
+        writeCurrentGroup();
+      }
+      for (KeyColumn<T> key : keys) {
+        key.keepCurrent();
+      }
+      for (Measure<T> measure : measures) {
+        measure.reset(1);
+      }
+      hasGroup = true;
+    }
+    return 1;
+  }
+
+  /** Writes summary rows after the report rows, or completes the companion file. */
+  void finish(ReportOutput output) {
+    if (aggregation.sortedInput()) {
+      if (hasGroup) {
+        writeCurrentGroup();
+      }
+    } else if (keys.length > 0) {
+      for (int slot = 1; slot < slots; slot++) {
+        writeGroup(slot);
+      }
+    }
+    if (aggregation.grandTotal()) {
+      writeTotal();
+    }
+    summaryWriter.flush();
+    if (staging != null && summaryRows > 0) {
+      new StagedRows(output).copy(staging.array(), staging.size());
+    }
+    if (stagingFile != null && summaryRows > 0) {
+      copyStaged(new StagedRows(output));
+    }
+  }
+
+  private void copyStaged(StagedRows rows) {
+    final ByteBuffer buffer = ByteBuffer.allocate(SUMMARY_BUFFER_SIZE);
+    try {
+      for (long position = 0, size = stagingFile.size(); position < size; ) {
+        buffer.clear();
+        final int read = stagingFile.read(buffer, position);
+        rows.copy(buffer.array(), read);
+        position += read;
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void writeGroup(int slot) {
+    row.clear();
+    for (int i = 0; i < roles.length; i++) {
+      final int role = roles[i];
+      if (role >= keys.length) {
+        measures[role - keys.length].writeResult(slot, cellWriters[i], row);
+      } else if (role >= 0) {
+        cellWriters[i].write(keys[role].value(slotKeyIds[slot * keys.length + role]), false, row);
+      } else {
+        writeLabel(role, aggregation.subtotalLabel());
+      }
+    }
+    writeSummaryRow();
+  }
+
+  private void writeCurrentGroup() {
+    row.clear();
+    for (int i = 0; i < roles.length; i++) {
+      final int role = roles[i];
+      if (role >= keys.length) {
+        measures[role - keys.length].writeResult(1, cellWriters[i], row);
+      } else if (role >= 0) {
+        cellWriters[i].write(keys[role].currentValue(), false, row);
+      } else {
+        writeLabel(role, aggregation.subtotalLabel());
+      }
+    }
+    writeSummaryRow();
+  }
+
+  private void writeTotal() {
+    row.clear();
+    for (int i = 0; i < roles.length; i++) {
+      final int role = roles[i];
+      if (role >= keys.length) {
+        measures[role - keys.length].writeResult(0, cellWriters[i], row);
+      } else if (role == 0 && labelColumn == EMPTY) {
+        // No free column, the grand total is labelled in the first group-by column
+        cellWriters[i].write(aggregation.totalLabel(), false, row);
+      } else if (role >= 0) {
+        row.endNullCell();
+      } else {
+        writeLabel(role, aggregation.totalLabel());
+      }
+    }
+    writeSummaryRow();
+  }
+
+  private void writeLabel(int role, String label) {
+    if (role == LABEL && label != null) {
+      row.append(label).endCell();
+    } else {
+      row.endNullCell();
+    }
+  }
+
+  private void writeSummaryRow() {
+    summaryWriter.writeRow(row);
+    summaryRows++;
+  }
+
+  /** Closes the companion file, or deletes the staged summary rows. */
+  @Override
+  public void close() throws IOException {
+    if (staging == null) {
+      summaryWriter.close();
+    }
+  }
+
+  /**
+   * Appends staged summary rows to the output one by one, so that parts roll over between summary
+   * rows as between report rows. Rows end at line feeds outside quotes, quoted cells may span
+   * lines and chunks of the staged bytes may end within a row.
+   */
+  private static final class StagedRows {
+
+    private static final byte QUOTE = '"';
+    private static final byte NEW_LINE = '\n';
+
+    private final ReportOutput output;
+    // Writer of the row begun in a previous chunk
+    private Utf8CsvWriter rowWriter;
+    private boolean quoted;
+
+    private StagedRows(ReportOutput output) {
+      this.output = output;
+    }
+
+    private void copy(byte[] bytes, int length) {
+      int start = 0;
+      for (int i = 0; i < length; i++) {
+        if (bytes[i] == QUOTE) {
+          quoted = !quoted;
+        } else if (bytes[i] == NEW_LINE && !quoted) {
+          rowWriter().writeEncoded(bytes, start, i + 1 - start);
+          rowWriter = null;
+          start = i + 1;
+        }
+      }
+      if (start < length) {
+        rowWriter().writeEncoded(bytes, start, length - start);
+      }
+    }
+
+    private Utf8CsvWriter rowWriter() {
+      if (rowWriter == null) {
+        rowWriter = output.writer(1);
+      }
+      return rowWriter;
+    }
+  }
+
+  /** Group-by column: value of the current row, its dictionary and the current sorted group. */
+  private static final class KeyColumn<T> {
+
+    private final Predicate<T> presence;
+    private final ToLongFunction<T> longMapper;
+    private final Function<T, Object> mapper;
+
+    private boolean isNull;
+    private boolean integral;
+    private long longValue;
+    private Object value;
+    private int id;
+
+    // Id 0 is null
+    private final LongIntHashMap integralIds = new LongIntHashMap(INITIAL_GROUPS);
+    private final Map<Object, Integer> objectIds = new HashMap<>();
+    private Object[] values = new Object[INITIAL_GROUPS];
+    private int nextId = 1;
+
+    private boolean currentNull;
+    private boolean currentIntegral;
+    private long currentLong;
+    private Object currentValue;
+
+    private KeyColumn(CsvColumn<T> column) {
+      final CsvColumn.PrimitiveMapper<T> primitiveMapper = column.primitiveMapper();
+      if (primitiveMapper instanceof CsvColumn.LongMapper<T> longColumn) {
+        presence = longColumn.presence();
+        longMapper = longColumn.mapper();
+      } else if (primitiveMapper instanceof CsvColumn.IntMapper<T> intColumn) {
+        presence = intColumn.presence();
+        longMapper = intColumn.mapper()::applyAsInt;
+      } else {
+        presence = null;
+        longMapper = null;
+      }
+      mapper = column.mapper();
+    }
+
+    private void read(T row) {
+      if (longMapper != null) {
+        isNull = presence != null && !presence.test(row);
+        integral = true;
+        longValue = isNull ? 0 : longMapper.applyAsLong(row);
+        return;
+      }
+      value = mapper.apply(row);
+      isNull = value == null;
+      integral = value instanceof Long
+          || value instanceof Integer
+          || value instanceof Short
+          || value instanceof Byte;
+      longValue = integral ? ((Number) value).longValue() : 0;
+    }
+
+    private void resolveId() {
+      if (isNull) {
+        id = 0;
+        return;
+      }
+      if (integral) {
+        id = integralIds.getOrPut(longValue, nextId);
+      } else {
+        final Integer known = objectIds.putIfAbsent(value, nextId);
+        id = known != null ? known : nextId;
+      }
+      if (id == nextId) {
+        if (nextId == values.length) {
+          values = Arrays.copyOf(values, 2 * nextId);
+        }
+        values[nextId++] = longMapper != null ? Long.valueOf(longValue) : value;
+      }
+    }
+
+    private Object value(int id) {
+      return values[id];
+    }
+
+    private boolean isCurrent() {
+      if (isNull || currentNull) {
+        return isNull == currentNull;
+      }
+      if (integral != currentIntegral) {
+        return false;
+      }
+      return integral ? longValue == currentLong : value.equals(currentValue);
+    }
+
+    private void keepCurrent() {
+      currentNull = isNull;
+      currentIntegral = integral;
+      currentLong = longValue;
+      currentValue = longMapper != null ? null : value;
+    }
+
+    private Object currentValue() {
+      if (currentNull) {
+        return null;
+      }
+      return longMapper != null ? Long.valueOf(currentLong) : currentValue;
+    }
+  }
+
+  /** Aggregate of a column per slot, primitive columns accumulate without boxing. */
+  private static final class Measure<T> {
+
+    private final ReportAggregation.Aggregate aggregate;
+    private final Predicate<T> presence;
+    private final ToLongFunction<T> longMapper;
+    private final ToDoubleFunction<T> doubleMapper;
+    private final Function<T, Object> mapper;
+
+    private long[] counts = new long[INITIAL_GROUPS];
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+
+    private Measure(ReportAggregation.Aggregate aggregate, CsvColumn<T> column) {
+      this.aggregate = aggregate;
+      final CsvColumn.PrimitiveMapper<T> primitiveMapper = column.primitiveMapper();
+      if (primitiveMapper instanceof CsvColumn.LongMapper<T> longColumn) {
+        presence = longColumn.presence();
+        longMapper = longColumn.mapper();
+        doubleMapper = null;
+        longs = new long[INITIAL_GROUPS];
+      } else if (primitiveMapper instanceof CsvColumn.IntMapper<T> intColumn) {
+        presence = intColumn.presence();
+        longMapper = intColumn.mapper()::applyAsInt;
+        doubleMapper = null;
+        longs = new long[INITIAL_GROUPS];
+      } else if (primitiveMapper instanceof CsvColumn.DoubleMapper<T> doubleColumn) {
+        presence = doubleColumn.presence();
+        longMapper = null;
+        doubleMapper = doubleColumn.mapper();
+        doubles = new double[INITIAL_GROUPS];
+      } else {
+        presence = null;
+        longMapper = null;
+        doubleMapper = null;
+        objects = new Object[INITIAL_GROUPS];
+      }
+      mapper = column.mapper();
+    }
+
+    private void add(T row, int slot) {
+      if (slot >= counts.length) {
+        grow(slot);
+      }
+      if (longMapper != null) {
+        if (presence == null || presence.test(row)) {
+          final long value = longMapper.applyAsLong(row);
+          addLong(slot, value);
+          if (slot != 0) {
+            addLong(0, value);
+          }
+        }
+      } else if (doubleMapper != null) {
+        if (presence == null || presence.test(row)) {
+          final double value = doubleMapper.applyAsDouble(row);
+          addDouble(slot, value);
+          if (slot != 0) {
+            addDouble(0, value);
+          }
+        }
+      } else {
+        final Object value = mapper.apply(row);
+        if (value != null) {
+          addObject(slot, value);
+          if (slot != 0) {
+            addObject(0, value);
+          }
+        }
+      }
+    }
+
+    private void addLong(int slot, long value) {
+      final long count = ++counts[slot];
+      switch (aggregate) {
+        case SUM, AVG -> longs[slot] = Math.addExact(longs[slot], value);
+        case MIN -> longs[slot] = count == 1 ? value : Math.min(longs[slot], value);
+        case MAX -> longs[slot] = count == 1 ? value : Math.max(longs[slot], value);
+        default -> {
+          // Count only
+        }
+      }
+    }
+
+    private void addDouble(int slot, double value) {
+      final long count = ++counts[slot];
+      switch (aggregate) {
+        case SUM, AVG -> doubles[slot] += value;
+        case MIN -> doubles[slot] = count == 1 ? value : Math.min(doubles[slot], value);
+        case MAX -> doubles[slot] = count == 1 ? value : Math.max(doubles[slot], value);
+        default -> {
+          // Count only
+        }
+      }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void addObject(int slot, Object value) {
+      final long count = ++counts[slot];
+      switch (aggregate) {
+        case SUM, AVG -> objects[slot] = add((Number) objects[slot], value);
+        case MIN -> {
+          if (count == 1 || ((Comparable) value).compareTo(objects[slot]) < 0) {
+            objects[slot] = value;
+          }
+        }
+        case MAX -> {
+          if (count == 1 || ((Comparable) value).compareTo(objects[slot]) > 0) {
+            objects[slot] = value;
+          }
+        }
+        default -> {
+          // Count only
+        }
+      }
+    }
+
+    private static Number add(Number sum, Object value) {
+      if (!(value instanceof Number number)) {
+        throw new IllegalArgumentException(
+            "Aggregated value is not a number: " + value.getClass().getName());
+      }
+      if (sum == null) {
+        return number;
+      }
+      if (isDecimal(sum) || isDecimal(number)) {
+        return toDecimal(sum).add(toDecimal(number));
+      }
+      if (isFloating(sum) || isFloating(number)) {
+        return sum.doubleValue() + number.doubleValue();
+      }
+      return Math.addExact(sum.longValue(), number.longValue());
+    }
+
+    private static boolean isDecimal(Number number) {
+      return number instanceof BigDecimal || number instanceof BigInteger;
+    }
+
+    private static boolean isFloating(Number number) {
+      return number instanceof Double || number instanceof Float;
+    }
+
+    private static BigDecimal toDecimal(Number number) {
+      if (number instanceof BigDecimal decimal) {
+        return decimal;
+      }
+      if (number instanceof BigInteger integer) {
+        return new BigDecimal(integer);
+      }
+      return isFloating(number)
+          ? BigDecimal.valueOf(number.doubleValue())
+          : BigDecimal.valueOf(number.longValue());
+    }
+
+    private void reset(int slot) {
+      if (slot >= counts.length) {
+        grow(slot);
+      }
+      counts[slot] = 0;
+      if (longs != null) {
+        longs[slot] = 0;
+      } else if (doubles != null) {
+        doubles[slot] = 0;
+      } else {
+        objects[slot] = null;
+      }
+    }
+
+    private void grow(int slot) {
+      final int length = Math.max(slot + 1, 2 * counts.length);
+      counts = Arrays.copyOf(counts, length);
+      if (longs != null) {
+        longs = Arrays.copyOf(longs, length);
+      } else if (doubles != null) {
+        doubles = Arrays.copyOf(doubles, length);
+      } else {
+        objects = Arrays.copyOf(objects, length);
+      }
+    }
+
+    private void writeResult(int slot, CellWriter<?> cellWriter, CsvRow row) {
+      final long count = slot < counts.length ? counts[slot] : 0;
+      if (aggregate == ReportAggregation.Aggregate.COUNT) {
+        cellWriter.write(count, true, row);
+        return;
+      }
+      if (count == 0) {
+        row.endNullCell();
+        return;
+      }
+      final boolean average = aggregate == ReportAggregation.Aggregate.AVG;
+      if (longs != null) {
+        final long value = longs[slot];
+        if (average) {
+          cellWriter.write(
+              BigDecimal.valueOf(value).divide(BigDecimal.valueOf(count), MathContext.DECIMAL64),
+              false,
+              row);
+        } else {
+          cellWriter.write(value, aggregate == ReportAggregation.Aggregate.SUM, row);
+        }
+      } else if (doubles != null) {
+        cellWriter.write(average ? doubles[slot] / count : doubles[slot], false, row);
+      } else if (average) {
+        final Number sum = (Number) objects[slot];
+        cellWriter.write(
+            isFloating(sum)
+                ? sum.doubleValue() / count
+                : toDecimal(sum).divide(BigDecimal.valueOf(count), MathContext.DECIMAL64),
+            false,
+            row);
+      } else {
+        cellWriter.write(objects[slot], aggregate == ReportAggregation.Aggregate.SUM, row);
+      }
+    }
+  }
+
+  /** Formats summary cells of a column as the report would, caching the last formatter. */
+  private static final class CellWriter<T> {
+
+    private final CsvReport<T> report;
+    private final CsvColumn<T> column;
+    private Class<?> cachedClass;
+    private CellFormatter cachedFormatter;
+
+    private CellWriter(CsvReport<T> report, CsvColumn<T> column) {
+      this.report = report;
+      this.column = column;
+    }
+
+    /** Counts and sums of integral values are written as plain numbers, not e.g. timestamps. */
+    private void write(Object value, boolean plain, CsvRow row) {
+      if (value == null) {
+        row.endNullCell();
+        return;
+      }
+      if (plain && (value instanceof Long || value instanceof Integer)) {
+        row.appendLong(((Number) value).longValue()).endCell();
+        return;
+      }
+      final Class<?> valueClass = value.getClass();
+      if (valueClass != cachedClass) {
+        cachedFormatter = report.resolveFormatter(valueClass, column);
+        cachedClass = valueClass;
+      }
+      cachedFormatter.format(value, row);
+    }
+  }
+}
@@ -0,0 +1,383 @@
+package io.scalecube.reports.csv;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Cache of generated report files in a managed directory, keyed by a caller supplied data version
+ * and a fingerprint of the report definition: column names, types and mapper classes, patterns,
+ * zone, custom formatters, aggregation, compression, output format and sort keys. Mappers and
+ * formatters are identified by class only, definitions with ones that hold state (capturing
+ * lambdas, bound method references, objects with instance fields) are rejected, since reports of
+ * different state would share an entry.
+ *
+ * <p>Entries expire {@code ttl} after generation and least recently used entries are evicted to
+ * keep the total size within {@code maxSizeBytes}. Concurrent requests for the same key share one
+ * generation. The index is kept in memory (mapper classes are not stable across JVM runs), files
+ * named by a previous cache ({@code report-cache-<key>...}) are deleted on start, other files in
+ * the directory are left as is. Returned files may be deleted by a later eviction and should be
+ * consumed promptly.
+ */
+public class ReportCache {
+
+  private static final String FILE_PREFIX = "report-cache-";
+  private static final String TEMP_SUFFIX = ".tmp";
+  // Hex encoded SHA-256
+  private static final int KEY_LENGTH = 64;
+
+  private final Path directory;
+  private final long maxSizeBytes;
+  private final long ttlNanos;
+
+  // Access ordered, guarded by itself
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long sizeBytes;
+
+  private final Map<String, CompletableFuture<File>> inFlight = new ConcurrentHashMap<>();
+
+  public ReportCache(Path directory, long maxSizeBytes, Duration ttl) {
+    if (directory == null) {
+      throw new IllegalArgumentException("Cache directory could not be null");
+    }
+    if (maxSizeBytes < 1) {
+      throw new IllegalArgumentException("Cache max size could not be less than 1");
+    }
+    if (ttl == null || ttl.isNegative()) {
+      throw new IllegalArgumentException("Cache ttl is invalid");
+    }
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+    this.ttlNanos = ttl.toNanos();
+
+    try {
+      Files.createDirectories(directory);
+      try (Stream<Path> files = Files.list(directory)) {
+        for (Iterator<Path> it = files.iterator(); it.hasNext(); ) {
+          final Path file = it.next();
+          if (isCacheFile(file.getFileName().toString())) {
+            Files.deleteIfExists(file);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public <T> File getOrGenerate(
+      String dataVersion,
+      Consumer<CsvReport.Builder<T>> builder,
+      Supplier<Stream<T>> dataSource) {
+    return getOrGenerate(dataVersion, builder, dataSource, options -> {});
+  }
+
+  /**
+   * Returns cached report for the data version and report definition, or generates it from the
+   * data source, which is only requested on a cache miss.
+   */
+  public <T> File getOrGenerate(
+      String dataVersion,
+      Consumer<CsvReport.Builder<T>> builder,
+      Supplier<Stream<T>> dataSource,
+      Consumer<GenerationOptions.Builder> options) {
+    if (dataVersion == null) {
+      throw new IllegalArgumentException("Data version could not be null");
+    }
+    final CsvReport.Builder<T> reportBuilder = new CsvReport.Builder<>();
+    builder.accept(reportBuilder);
+    final var optionsBuilder = new GenerationOptions.Builder();
+    options.accept(optionsBuilder);
+    final String key = key(dataVersion, reportBuilder.build(), optionsBuilder.build());
+
+    File file = lookup(key);
+    if (file != null) {
+      return file;
+    }
+
+    final var generation = new CompletableFuture<File>();
+    final var existing = inFlight.putIfAbsent(key, generation);
+    if (existing != null) {
+      try {
+        return existing.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    try {
+      // Generation for the key could complete before this one was registered
+      file = lookup(key);
+      if (file == null) {
+        final var generationOptions = optionsBuilder.build();
+        final String suffix =
+            CsvGenerator.fileSuffix(
+                generationOptions.outputFormat(), generationOptions.compression());
+        file = generate(FILE_PREFIX + key + suffix, builder, dataSource, options);
+        put(key, file);
+      }
+      generation.complete(file);
+      return file;
+    } catch (RuntimeException | Error e) {
+      generation.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, generation);
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+        delete(it.next());
+        it.remove();
+      }
+    }
+  }
+
+  public long sizeBytes() {
+    synchronized (entries) {
+      return sizeBytes;
+    }
+  }
+
+  private File lookup(String key) {
+    synchronized (entries) {
+      final Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (isExpired(entry, System.nanoTime()) || !entry.file.exists()) {
+        entries.remove(key);
+        delete(entry);
+        return null;
+      }
+      return entry.file;
+    }
+  }
+
+  private void put(String key, File file) {
+    synchronized (entries) {
+      final Entry previous = entries.put(key, new Entry(file, file.length(), System.nanoTime()));
+      if (previous != null) {
+        sizeBytes -= previous.size;
+      }
+      sizeBytes += file.length();
+      evict(key);
+    }
+  }
+
+  // Drops expired entries, then least recently used ones above the max size, keeps the new entry
+  private void evict(String newKey) {
+    final long now = System.nanoTime();
+    for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+      final Map.Entry<String, Entry> entry = it.next();
+      if (sizeBytes <= maxSizeBytes && !isExpired(entry.getValue(), now)) {
+        continue;
+      }
+      if (!entry.getKey().equals(newKey)) {
+        delete(entry.getValue());
+        it.remove();
+      }
+    }
+  }
+
+  private boolean isExpired(Entry entry, long now) {
+    return now - entry.createdNanos >= ttlNanos;
+  }
+
+  private void delete(Entry entry) {
+    sizeBytes -= entry.size;
+    try {
+      Files.deleteIfExists(entry.file.toPath());
+    } catch (IOException e) {
+      // Best effort, the file is not referenced anymore
+    }
+  }
+
+  private <T> File generate(
+      String fileName,
+      Consumer<CsvReport.Builder<T>> builder,
+      Supplier<Stream<T>> dataSource,
+      Consumer<GenerationOptions.Builder> options) {
+    try {
+      final Path tempFile = Files.createTempFile(directory, fileName, TEMP_SUFFIX);
+      try {
+        try (var channel = FileChannel.open(tempFile, WRITE)) {
+          CsvGenerator.generateTo(builder, dataSource.get(), channel, options);
+        }
+        return Files.move(
+                tempFile,
+                directory.resolve(fileName),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING)
+            .toFile();
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static boolean isCacheFile(String fileName) {
+    final int keyEnd = FILE_PREFIX.length() + KEY_LENGTH;
+    if (!fileName.startsWith(FILE_PREFIX) || fileName.length() < keyEnd) {
+      return false;
+    }
+    for (int i = FILE_PREFIX.length(); i < keyEnd; i++) {
+      if (!HexFormat.isHexDigit(fileName.charAt(i))) {
+        return false;
+      }
+    }
+    final String suffix = fileName.substring(keyEnd);
+    if (suffix.endsWith(TEMP_SUFFIX)) {
+      return true;
+    }
+    for (OutputFormat outputFormat : OutputFormat.values()) {
+      for (Compression compression : Compression.values()) {
+        if (suffix.equals(CsvGenerator.fileSuffix(outputFormat, compression))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  static String key(String dataVersion, CsvReport<?> report, GenerationOptions options) {
+    final var fingerprint = new StringBuilder();
+    fingerprint.append("version=").append(dataVersion).append('\n');
+    if (report.columns() != null) {
+      for (CsvColumn<?> column : report.columns()) {
+        fingerprint
+            .append("column=")
+            .append(column.columnName())
+            .append('|')
+            .append(column.type())
+            .append('|')
+            // Mappers of primitive columns box the primitive mapper
+            .append(
+                column.primitiveMapper() == null
+                    ? className(column.mapper())
+                    : className(column.primitiveMapper()))
+            .append('|')
+            .append(column.decimalScale())
+            .append('\n');
+      }
+    }
+    fingerprint.append("dateTimePattern=").append(describe(report.dateTimePattern())).append('\n');
+    fingerprint.append("datePattern=").append(describe(report.datePattern())).append('\n');
+    fingerprint.append("zoneId=").append(report.zoneId()).append('\n');
+    report.customFormatter().entrySet().stream()
+        .sorted(Comparator.comparing(entry -> entry.getKey().getName()))
+        .forEach(
+            entry ->
+                fingerprint
+                    .append("formatter=")
+                    .append(entry.getKey().getName())
+                    .append('|')
+                    .append(className(entry.getValue()))
+                    .append('\n'));
+    fingerprint.append("aggregation=").append(report.aggregation()).append('\n');
+    fingerprint.append("compression=").append(options.compression()).append('\n');
+    fingerprint.append("outputFormat=").append(options.outputFormat()).append('\n');
+    options
+        .sortKeys()
+        .forEach(
+            sortKey ->
+                fingerprint
+                    .append("sortKey=")
+                    .append(sortKey.columnName())
+                    .append('|')
+                    .append(sortKey.descending())
+                    .append('\n'));
+
+    try {
+      final byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(fingerprint.toString().getBytes(UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static String describe(DateTimeFormatter formatter) {
+    if (formatter == null) {
+      return "null";
+    }
+    return formatter
+        + "|"
+        + formatter.getLocale()
+        + "|"
+        + formatter.getZone()
+        + "|"
+        + formatter.getChronology()
+        + "|"
+        + formatter.getDecimalStyle();
+  }
+
+  private static String className(Object value) {
+    if (value instanceof CsvColumn.LongMapper<?> mapper) {
+      return "long:" + className(mapper.mapper()) + ":" + className(mapper.presence());
+    }
+    if (value instanceof CsvColumn.IntMapper<?> mapper) {
+      return "int:" + className(mapper.mapper()) + ":" + className(mapper.presence());
+    }
+    if (value instanceof CsvColumn.DoubleMapper<?> mapper) {
+      return "double:" + className(mapper.mapper()) + ":" + className(mapper.presence());
+    }
+    if (value instanceof SharedAccessor.Mapper<?, ?> mapper) {
+      final SharedAccessor<?, ?> accessor = mapper.accessor();
+      return "shared:"
+          + accessor.name()
+          + ":"
+          + className(accessor.accessor())
+          + ":"
+          + className(mapper.mapper());
+    }
+    if (value == null) {
+      return "null";
+    }
+    if (value instanceof Enum<?> constant) {
+      return constant.getDeclaringClass().getName() + "." + constant.name();
+    }
+    for (Class<?> type = value.getClass(); type != Object.class; type = type.getSuperclass()) {
+      for (Field field : type.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          throw new IllegalArgumentException(
+              "Report definition could not be cached, found stateful function: "
+                  + value.getClass().getName());
+        }
+      }
+    }
+    return value.getClass().getName();
+  }
+
+  private record Entry(File file, long size, long createdNanos) {}
+}
@@ -0,0 +1,8 @@
+package io.scalecube.reports.csv;
+
+/**
+ * Consistent state of a resumable report file: data rows and bytes of the file written up to the
+ * row the {@code resumeToken} was taken from ({@code null} before the first row). Bytes after
+ * {@code offset} are discarded on resume.
+ */
+public record ReportCheckpoint(long rows, long offset, String resumeToken) {}
@@ -0,0 +1,33 @@
+package io.scalecube.reports.csv;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("io.scalecube.reports.ReportGeneration")
+@Label("Report Generation")
+@Category({"ScaleCube", "Reports"})
+@Description("Generation of one report, from start to end")
+final class ReportGenerationEvent extends Event {
+
+  @Label("Report Name")
+  String reportName;
+
+  @Label("Rows")
+  long rows;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  @Label("Time To First Row")
+  @Timespan
+  long timeToFirstRow;
+
+  @Label("Failed")
+  boolean failed;
+}
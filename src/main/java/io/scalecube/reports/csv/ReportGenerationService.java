@@ -0,0 +1,236 @@
+package io.scalecube.reports.csv;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Generates report files asynchronously, at most {@code maxConcurrency} at a time. Queued
+ * {@link Priority#INTERACTIVE} jobs start before any queued {@link Priority#BATCH} job, and batch
+ * jobs never take more than {@code maxBatchConcurrency} slots, so large exports leave room for
+ * small interactive reports. Jobs of the same priority start in submission order. Completed
+ * futures can be adapted with e.g. {@code Mono.fromFuture(job.future())}.
+ */
+public final class ReportGenerationService implements AutoCloseable {
+
+  public enum Priority {
+    INTERACTIVE,
+    BATCH
+  }
+
+  private final int maxConcurrency;
+  private final int maxBatchConcurrency;
+  private final Executor executor;
+  private final ExecutorService ownExecutor;
+
+  // Guarded by queued
+  private final ArrayDeque<ReportJob> queued = new ArrayDeque<>();
+  private final ArrayDeque<ReportJob> queuedBatch = new ArrayDeque<>();
+  private final Set<ReportJob> running = new HashSet<>();
+  private int runningBatch;
+  private boolean closed;
+
+  private ReportGenerationService(Builder builder) {
+    this.maxConcurrency = builder.maxConcurrency;
+    this.maxBatchConcurrency =
+        builder.maxBatchConcurrency > 0
+            ? builder.maxBatchConcurrency
+            : Math.max(1, builder.maxConcurrency - 1);
+    if (builder.executor != null) {
+      this.executor = builder.executor;
+      this.ownExecutor = null;
+    } else {
+      final var threads = new AtomicInteger();
+      this.ownExecutor =
+          Executors.newFixedThreadPool(
+              maxConcurrency,
+              task -> {
+                final var thread =
+                    new Thread(task, "report-generation-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              });
+      this.executor = ownExecutor;
+    }
+  }
+
+  public <T> ReportJob submit(
+      Consumer<CsvReport.Builder<T>> builder,
+      Supplier<Stream<T>> dataSource,
+      String baseName,
+      Priority priority) {
+    return submit(builder, dataSource, baseName, priority, options -> {});
+  }
+
+  /**
+   * Queues generation of the report file, see {@link CsvGenerator#generateAsFile}. The data
+   * source is requested on the thread generating the report, once the job starts.
+   */
+  public <T> ReportJob submit(
+      Consumer<CsvReport.Builder<T>> builder,
+      Supplier<Stream<T>> dataSource,
+      String baseName,
+      Priority priority,
+      Consumer<GenerationOptions.Builder> options) {
+    if (dataSource == null) {
+      throw new IllegalArgumentException("Data source could not be null");
+    }
+    if (priority == null) {
+      throw new IllegalArgumentException("Priority could not be null");
+    }
+    final var job = new ReportJob(baseName, priority);
+    job.task(
+        () -> CsvGenerator.generateAsFile(builder, job.track(dataSource.get()), baseName, options));
+
+    synchronized (queued) {
+      if (closed) {
+        throw new IllegalStateException("Report generation service is closed");
+      }
+      (priority == Priority.BATCH ? queuedBatch : queued).add(job);
+    }
+    job.future()
+        .whenComplete(
+            (file, error) -> {
+              if (job.isCancelled()) {
+                cancel(job);
+              }
+            });
+    dispatch();
+    return job;
+  }
+
+  /** Number of jobs waiting for a slot. */
+  public int queuedJobs() {
+    synchronized (queued) {
+      return queued.size() + queuedBatch.size();
+    }
+  }
+
+  public int runningJobs() {
+    synchronized (queued) {
+      return running.size();
+    }
+  }
+
+  private void cancel(ReportJob job) {
+    synchronized (queued) {
+      if (queued.remove(job) || queuedBatch.remove(job)) {
+        return;
+      }
+    }
+    job.stop();
+  }
+
+  /** Starts queued jobs while there are free slots. */
+  private void dispatch() {
+    while (true) {
+      final ReportJob job;
+      synchronized (queued) {
+        if (closed || running.size() >= maxConcurrency) {
+          return;
+        }
+        if (!queued.isEmpty()) {
+          job = queued.poll();
+        } else if (runningBatch < maxBatchConcurrency && !queuedBatch.isEmpty()) {
+          job = queuedBatch.poll();
+          runningBatch++;
+        } else {
+          return;
+        }
+        running.add(job);
+      }
+      try {
+        executor.execute(() -> run(job));
+      } catch (RejectedExecutionException e) {
+        completed(job);
+        job.future().completeExceptionally(e);
+      }
+    }
+  }
+
+  private void run(ReportJob job) {
+    try {
+      job.run();
+    } finally {
+      completed(job);
+      dispatch();
+    }
+  }
+
+  private void completed(ReportJob job) {
+    synchronized (queued) {
+      if (running.remove(job) && job.priority() == Priority.BATCH) {
+        runningBatch--;
+      }
+    }
+  }
+
+  /** Cancels queued and running jobs and rejects new ones. */
+  @Override
+  public void close() {
+    final List<ReportJob> jobs;
+    synchronized (queued) {
+      closed = true;
+      jobs = new ArrayList<>(queued);
+      jobs.addAll(queuedBatch);
+      jobs.addAll(running);
+    }
+    jobs.forEach(ReportJob::cancel);
+    if (ownExecutor != null) {
+      ownExecutor.shutdown();
+    }
+  }
+
+  public static class Builder {
+
+    private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+    private int maxBatchConcurrency;
+    private Executor executor;
+
+    public ReportGenerationService build() {
+      if (maxConcurrency < 1) {
+        throw new IllegalArgumentException("Max concurrency could not be less than 1");
+      }
+      if (maxBatchConcurrency < 0 || maxBatchConcurrency > maxConcurrency) {
+        throw new IllegalArgumentException("Max batch concurrency is invalid");
+      }
+      return new ReportGenerationService(this);
+    }
+
+    /** Max number of reports generated at a time. Defaults to the number of processors. */
+    public Builder maxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Max number of batch reports generated at a time, defaults to one less than {@code
+     * maxConcurrency} (but at least 1) so an interactive report never waits for batch ones.
+     */
+    public Builder maxBatchConcurrency(int maxBatchConcurrency) {
+      this.maxBatchConcurrency = maxBatchConcurrency;
+      return this;
+    }
+
+    /**
+     * Executor running the jobs, e.g. {@code Executors.newVirtualThreadPerTaskExecutor()} for data
+     * sources doing blocking I/O. The service only bounds the number of jobs it runs at a time. By
+     * default a pool of {@code maxConcurrency} daemon threads is created and shut down on close.
+     */
+    public Builder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package io.scalecube.reports.csv;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects metrics of one generation for the {@link ReportMetricsListener} and JFR events. Only
+ * created when a listener is set or report events are enabled in a recording, otherwise generation
+ * runs the plain loops. Column mapper and formatter times are measured on every {@code
+ * metricsSampleInterval}-th row. Used from the generating thread only.
+ */
+final class ReportInstrumentation {
+
+  private final String reportName;
+  private final List<CsvColumn<?>> columns;
+  private final ReportMetricsListener listener;
+  private final int sampleInterval;
+  private final long progressInterval;
+  private final ReportOutput output;
+  private List<SpscRing<?>> stages = List.of();
+
+  private final ReportGenerationEvent event = new ReportGenerationEvent();
+  private final long[] columnNanos;
+  private long samples;
+  private int sampleCountdown;
+
+  private long startNanos;
+  private long timeToFirstRowNanos = -1;
+  private long rows;
+  private long nextProgress;
+
+  private ReportInstrumentation(
+      CsvReport<?> report, GenerationOptions options, String reportName, ReportOutput output) {
+    this.reportName = reportName;
+    this.columns = new ArrayList<>(report.columns());
+    this.listener = options.metricsListener();
+    this.sampleInterval = options.metricsSampleInterval();
+    this.progressInterval = options.metricsProgressInterval();
+    this.output = output;
+    this.columnNanos = new long[2 * columns.size()];
+    this.sampleCountdown = sampleInterval;
+    this.nextProgress = progressInterval;
+  }
+
+  /** Returns {@code null} when there is nothing to report to. */
+  static ReportInstrumentation create(
+      CsvReport<?> report, GenerationOptions options, String reportName, ReportOutput output) {
+    if (options.metricsListener() == null
+        && !new ReportGenerationEvent().isEnabled()
+        && !new ReportProgressEvent().isEnabled()) {
+      return null;
+    }
+    return new ReportInstrumentation(report, options, reportName, output);
+  }
+
+  /** Queues of pipeline stages to report occupancy of. */
+  void stages(List<SpscRing<?>> stages) {
+    this.stages = stages;
+  }
+
+  int sampleInterval() {
+    return sampleInterval;
+  }
+
+  void start() {
+    startNanos = System.nanoTime();
+    event.begin();
+    if (listener != null) {
+      listener.onStart(reportName);
+    }
+  }
+
+  void firstRow() {
+    if (timeToFirstRowNanos < 0) {
+      timeToFirstRowNanos = System.nanoTime() - startNanos;
+    }
+  }
+
+  /** Whether the next row should be encoded with {@link #columnNanos()} timings. */
+  boolean sampleRow() {
+    if (--sampleCountdown > 0) {
+      return false;
+    }
+    sampleCountdown = sampleInterval;
+    samples++;
+    return true;
+  }
+
+  long[] columnNanos() {
+    return columnNanos;
+  }
+
+  /** Adds column timings of rows sampled on another thread. */
+  void addSamples(long[] nanos, long count) {
+    for (int i = 0; i < nanos.length; i++) {
+      columnNanos[i] += nanos[i];
+    }
+    samples += count;
+  }
+
+  void rowsWritten(long count) {
+    rows += count;
+    if (rows >= nextProgress) {
+      nextProgress = (rows / progressInterval + 1) * progressInterval;
+      progress();
+    }
+  }
+
+  void complete() {
+    commitEvent(false);
+    if (listener != null) {
+      listener.onComplete(metrics());
+    }
+  }
+
+  void failed(Throwable error) {
+    commitEvent(true);
+    if (listener != null) {
+      listener.onError(metrics(), error);
+    }
+  }
+
+  private void progress() {
+    final var progressEvent = new ReportProgressEvent();
+    if (progressEvent.shouldCommit()) {
+      progressEvent.reportName = reportName;
+      progressEvent.rows = rows;
+      progressEvent.bytes = output.bytesWritten();
+      progressEvent.elapsed = System.nanoTime() - startNanos;
+      progressEvent.commit();
+    }
+    if (listener != null) {
+      listener.onProgress(metrics());
+    }
+  }
+
+  private void commitEvent(boolean failed) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.reportName = reportName;
+      event.rows = rows;
+      event.bytes = output.bytesWritten();
+      event.timeToFirstRow = timeToFirstRowNanos;
+      event.failed = failed;
+      event.commit();
+    }
+  }
+
+  private ReportMetrics metrics() {
+    final List<ReportMetrics.ColumnMetrics> columnMetrics = new ArrayList<>(columns.size());
+    for (int i = 0; i < columns.size(); i++) {
+      columnMetrics.add(
+          new ReportMetrics.ColumnMetrics(
+              columns.get(i).columnName(), samples, columnNanos[2 * i], columnNanos[2 * i + 1]));
+    }
+    final List<ReportMetrics.StageMetrics> stageMetrics = new ArrayList<>(stages.size());
+    for (SpscRing<?> stage : stages) {
+      stageMetrics.add(stage.metrics());
+    }
+    return new ReportMetrics(
+        reportName,
+        rows,
+        output.bytesWritten(),
+        timeToFirstRowNanos,
+        System.nanoTime() - startNanos,
+        columnMetrics,
+        stageMetrics);
+  }
+}
@@ -0,0 +1,117 @@
+package io.scalecube.reports.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Report generation submitted to a {@link ReportGenerationService}. Cancelling the job, or its
+ * future, removes a queued job or stops a running one at the next source row, interrupting its
+ * thread so blocking sources return. The partial report file, or one completed after the
+ * cancellation, is deleted.
+ */
+public final class ReportJob {
+
+  private final String name;
+  private final ReportGenerationService.Priority priority;
+  private final CompletableFuture<File> future = new CompletableFuture<>();
+  private final AtomicLong rowsRead = new AtomicLong();
+  private Supplier<File> task;
+
+  private volatile boolean cancelled;
+  // Guarded by this
+  private Thread runner;
+
+  ReportJob(String name, ReportGenerationService.Priority priority) {
+    this.name = name;
+    this.priority = priority;
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public ReportGenerationService.Priority priority() {
+    return priority;
+  }
+
+  /** Completes with the report file, or exceptionally when generation fails or is cancelled. */
+  public CompletableFuture<File> future() {
+    return future;
+  }
+
+  /** Number of rows read from the data source so far. */
+  public long rowsRead() {
+    return rowsRead.get();
+  }
+
+  public boolean cancel() {
+    return future.cancel(false);
+  }
+
+  public boolean isCancelled() {
+    return future.isCancelled();
+  }
+
+  void task(Supplier<File> task) {
+    this.task = task;
+  }
+
+  /** Counts rows of the data source, and stops it once the job is cancelled. */
+  <T> Stream<T> track(Stream<T> dataSource) {
+    return dataSource.peek(
+        row -> {
+          if (cancelled) {
+            throw new CancellationException("Report generation cancelled: " + name);
+          }
+          // Single reading thread
+          rowsRead.lazySet(rowsRead.get() + 1);
+        });
+  }
+
+  void run() {
+    synchronized (this) {
+      if (cancelled) {
+        return;
+      }
+      runner = Thread.currentThread();
+    }
+    try {
+      final File file = task.get();
+      if (!future.complete(file)) {
+        // Cancelled after the last row was read, nobody gets the file
+        delete(file);
+      }
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+    } finally {
+      synchronized (this) {
+        runner = null;
+      }
+      // Interrupt of a cancellation racing with completion must not leak to the next job
+      Thread.interrupted();
+    }
+  }
+
+  void stop() {
+    cancelled = true;
+    synchronized (this) {
+      if (runner != null) {
+        runner.interrupt();
+      }
+    }
+  }
+
+  private static void delete(File file) {
+    try {
+      Files.deleteIfExists(file.toPath());
+    } catch (IOException e) {
+      // Best effort, the file is not referenced anymore
+    }
+  }
+}
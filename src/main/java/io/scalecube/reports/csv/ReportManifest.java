@@ -0,0 +1,17 @@
+package io.scalecube.reports.csv;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Result of split report generation: part files in order, and the zip bundle of all parts when
+ * requested (otherwise {@code null}). Part {@code bytes} is the size of the part file.
+ */
+public record ReportManifest(File directory, List<Part> parts, File bundle) {
+
+  public long rows() {
+    return parts.stream().mapToLong(Part::rows).sum();
+  }
+
+  public record Part(File file, long rows, long bytes) {}
+}
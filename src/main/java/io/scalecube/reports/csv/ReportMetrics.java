@@ -0,0 +1,41 @@
+package io.scalecube.reports.csv;
+
+import java.util.List;
+
+/**
+ * Snapshot of report generation metrics. {@code bytes} counts CSV bytes before compression,
+ * {@code timeToFirstRowNanos} is -1 until the data source yields a row. Column times are summed
+ * over {@code samples} sampled rows. {@code stages} are the queues of a pipelined generation, empty
+ * otherwise.
+ */
+public record ReportMetrics(
+    String reportName,
+    long rows,
+    long bytes,
+    long timeToFirstRowNanos,
+    long durationNanos,
+    List<ColumnMetrics> columns,
+    List<StageMetrics> stages) {
+
+  public double rowsPerSecond() {
+    return durationNanos > 0 ? rows * 1e9 / durationNanos : 0;
+  }
+
+  public record ColumnMetrics(
+      String columnName, long samples, long mapperNanos, long formatterNanos) {}
+
+  /**
+   * Queue in front of a pipeline stage, {@code prefetch} between the fetching thread and encoding
+   * or {@code writer} between encoding and the writer thread. {@code averageOccupancy} is the
+   * number of queued elements seen by the consuming stage, {@code maxOccupancy} its high-water
+   * mark. A mostly full queue with {@code fullWaits} means the consuming stage limits throughput, a
+   * mostly empty one with {@code emptyWaits} the producing stage.
+   */
+  public record StageMetrics(
+      String stageName,
+      int capacity,
+      double averageOccupancy,
+      int maxOccupancy,
+      long fullWaits,
+      long emptyWaits) {}
+}
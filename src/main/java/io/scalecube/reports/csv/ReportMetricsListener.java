@@ -0,0 +1,25 @@
+package io.scalecube.reports.csv;
+
+/**
+ * Receives report generation metrics, see {@link GenerationOptions.Builder#metricsListener}.
+ * Callbacks run on the generating thread and should return quickly.
+ */
+public interface ReportMetricsListener {
+
+  default void onStart(String reportName) {
+    // no-op
+  }
+
+  /** Invoked every {@code metricsProgressInterval} rows. */
+  default void onProgress(ReportMetrics metrics) {
+    // no-op
+  }
+
+  default void onComplete(ReportMetrics metrics) {
+    // no-op
+  }
+
+  default void onError(ReportMetrics metrics, Throwable error) {
+    // no-op
+  }
+}
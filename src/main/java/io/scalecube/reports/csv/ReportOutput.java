@@ -0,0 +1,30 @@
+package io.scalecube.reports.csv;
+
+/** Destination of encoded rows, which may roll over to a new part file between rows. */
+interface ReportOutput {
+
+  /** Returns writer of the next {@code rows} rows, rolling over to a new part first if needed. */
+  Utf8CsvWriter writer(int rows);
+
+  /** Max number of rows of one part, a batch of rows passed to {@link #writer} must fit it. */
+  default long maxPartRows() {
+    return Long.MAX_VALUE;
+  }
+
+  /** Number of CSV bytes written to all parts. */
+  long bytesWritten();
+
+  static ReportOutput of(Utf8CsvWriter csvWriter) {
+    return new ReportOutput() {
+      @Override
+      public Utf8CsvWriter writer(int rows) {
+        return csvWriter;
+      }
+
+      @Override
+      public long bytesWritten() {
+        return csvWriter.bytesWritten();
+      }
+    };
+  }
+}
@@ -0,0 +1,30 @@
+package io.scalecube.reports.csv;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("io.scalecube.reports.ReportProgress")
+@Label("Report Progress")
+@Category({"ScaleCube", "Reports"})
+@Description("Rows and bytes written so far, emitted every metricsProgressInterval rows")
+final class ReportProgressEvent extends Event {
+
+  @Label("Report Name")
+  String reportName;
+
+  @Label("Rows")
+  long rows;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  @Label("Elapsed")
+  @Timespan
+  long elapsed;
+}
@@ -0,0 +1,212 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Publishes encoded report in buffers of up to {@code bufferSize} bytes. Source rows are pulled
+ * only while there is outstanding demand, so at most one buffer is held ahead of the subscriber.
+ */
+final class ReportPublisher<T> implements Flow.Publisher<ByteBuffer> {
+
+  private final CsvReport<T> report;
+  private final Stream<T> dataSource;
+  private final int bufferSize;
+  private final UnaryOperator<ByteSink> sinkDecorator;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  ReportPublisher(
+      CsvReport<T> report,
+      Stream<T> dataSource,
+      int bufferSize,
+      UnaryOperator<ByteSink> sinkDecorator) {
+    this.report = report;
+    this.dataSource = dataSource;
+    this.bufferSize = bufferSize;
+    this.sinkDecorator = sinkDecorator;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(
+          new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+              // no-op
+            }
+
+            @Override
+            public void cancel() {
+              // no-op
+            }
+          });
+      subscriber.onError(new IllegalStateException("Report publisher allows only one subscriber"));
+      return;
+    }
+    subscriber.onSubscribe(new ReportSubscription(subscriber));
+  }
+
+  private final class ReportSubscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super ByteBuffer> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable pendingError;
+
+    // Accessed from the drain loop only
+    private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+    private ByteSink sink;
+    private Utf8CsvWriter csvWriter;
+    private CsvRowEncoder<T> encoder;
+    private CsvRow row;
+    private Iterator<T> rows;
+    private ReportAggregator<T> aggregator;
+    private boolean exhausted;
+    private boolean done;
+
+    private ReportSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        pendingError = new IllegalArgumentException("Requested number of buffers must be positive");
+      } else {
+        requested.getAndAccumulate(
+            n,
+            (current, add) -> {
+              final long sum = current + add;
+              return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        if (!done) {
+          final Throwable error = pendingError;
+          if (error != null) {
+            terminate();
+            subscriber.onError(error);
+          } else if (cancelled) {
+            terminate();
+          } else {
+            try {
+              emit();
+            } catch (Throwable e) {
+              terminate();
+              subscriber.onError(e);
+            }
+          }
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      if (done) {
+        return;
+      }
+      if (csvWriter == null) {
+        start();
+      }
+      while (!cancelled && pendingError == null) {
+        if (exhausted && buffers.isEmpty()) {
+          terminate();
+          subscriber.onComplete();
+          return;
+        }
+        if (requested.get() == 0) {
+          return;
+        }
+        if (!buffers.isEmpty()) {
+          requested.decrementAndGet();
+          subscriber.onNext(buffers.poll());
+        } else if (rows != null && rows.hasNext()) {
+          encoder.encode(rows.next(), row);
+          csvWriter.writeRow(row);
+        } else {
+          exhausted = true;
+          if (aggregator != null) {
+            aggregator.finish(ReportOutput.of(csvWriter));
+          }
+          csvWriter.flush();
+        }
+      }
+    }
+
+    private void start() {
+      sink = sinkDecorator.apply(new QueueByteSink(buffers));
+      csvWriter = new Utf8CsvWriter(sink, bufferSize);
+      csvWriter.writeNext(report.columnsHeader());
+      aggregator = ReportAggregator.create(report);
+      if (dataSource != null) {
+        encoder = report.newEncoder();
+        row = new CsvRow(encoder.columnCount());
+        rows = aggregator != null ? dataSource.peek(aggregator).iterator() : dataSource.iterator();
+      }
+    }
+
+    private void terminate() {
+      done = true;
+      buffers.clear();
+      if (dataSource != null) {
+        dataSource.close();
+      }
+      // Flushed once exhausted, otherwise the remaining output is dropped
+      if (sink instanceof ParallelGzipByteSink gzipSink) {
+        gzipSink.release();
+      }
+      if (aggregator != null) {
+        try {
+          aggregator.close();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+  }
+
+  private static final class QueueByteSink implements ByteSink {
+
+    private final ArrayDeque<ByteBuffer> buffers;
+
+    private QueueByteSink(ArrayDeque<ByteBuffer> buffers) {
+      this.buffers = buffers;
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+      final var copy = ByteBuffer.allocate(buffer.remaining());
+      copy.put(buffer).flip();
+      buffers.add(copy);
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+  }
+}
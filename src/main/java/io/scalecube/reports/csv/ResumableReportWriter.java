@@ -0,0 +1,219 @@
+package io.scalecube.reports.csv;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Appends rows of a {@link ResumableSource} to a report file, recording a {@link ReportCheckpoint}
+ * in a {@code .checkpoint} file next to it every {@code checkpointInterval} rows and at the end.
+ * Report bytes are forced to disk before the checkpoint is atomically replaced, so the file is
+ * consistent up to the checkpoint offset whenever the process dies. A later run truncates the file
+ * to that offset and continues after the checkpointed row, a file without checkpoint is rewritten.
+ */
+final class ResumableReportWriter<T> {
+
+  private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+  private static final String ROWS = "rows";
+  private static final String OFFSET = "offset";
+  private static final String RESUME_TOKEN = "resumeToken";
+  private static final String COLUMNS = "columns";
+
+  private final CsvReport<T> report;
+  private final ResumableSource<T> source;
+  private final GenerationOptions options;
+  private final Path reportFile;
+  private final Path checkpointFile;
+  private final String columns;
+
+  private FileChannel channel;
+  private Utf8CsvWriter csvWriter;
+  private long startOffset;
+  private long rows;
+  private T lastRow;
+  private String resumeToken;
+
+  ResumableReportWriter(
+      CsvReport<T> report, ResumableSource<T> source, GenerationOptions options, Path reportFile) {
+    this.report = report;
+    this.source = source;
+    this.options = options;
+    this.reportFile = reportFile;
+    this.checkpointFile = reportFile.resolveSibling(reportFile.getFileName() + CHECKPOINT_SUFFIX);
+    this.columns = String.join(",", report.columnsHeader());
+  }
+
+  ReportCheckpoint write() {
+    try {
+      final ReportCheckpoint checkpoint = open();
+      try (Stream<T> dataSource = source.open(checkpoint.resumeToken())) {
+        writeRows(dataSource.iterator());
+        return checkpoint();
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      close();
+    }
+  }
+
+  private void close() {
+    try {
+      if (csvWriter != null) {
+        csvWriter.close();
+      } else if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Opens the report file at the last checkpoint, or creates it with the columns header. A file
+   * without checkpoint was left by a run which died before its first checkpoint and starts over.
+   */
+  private ReportCheckpoint open() throws IOException {
+    if (Files.exists(checkpointFile)) {
+      final ReportCheckpoint checkpoint = readCheckpoint();
+      if (!Files.exists(reportFile)) {
+        throw new IllegalStateException(
+            "Report file of checkpoint could not be found: " + reportFile);
+      }
+      channel = FileChannel.open(reportFile, WRITE);
+      if (channel.size() < checkpoint.offset()) {
+        throw new IllegalStateException(
+            "Report file is shorter than its checkpoint: " + reportFile);
+      }
+      channel.truncate(checkpoint.offset());
+      channel.position(checkpoint.offset());
+      csvWriter = new Utf8CsvWriter(new ChannelByteSink(channel), options.bufferSize());
+      startOffset = checkpoint.offset();
+      rows = checkpoint.rows();
+      resumeToken = checkpoint.resumeToken();
+      return checkpoint;
+    }
+
+    channel = FileChannel.open(reportFile, CREATE, WRITE, TRUNCATE_EXISTING);
+    csvWriter = new Utf8CsvWriter(new ChannelByteSink(channel), options.bufferSize());
+    csvWriter.writeNext(report.columnsHeader());
+    return checkpoint();
+  }
+
+  private void writeRows(Iterator<T> iterator) throws IOException {
+    final var encoder = report.newEncoder();
+    final var csvRow = new CsvRow(encoder.columnCount());
+    final var instrumentation =
+        ReportInstrumentation.create(
+            report, options, reportFile.getFileName().toString(), ReportOutput.of(csvWriter));
+    final long interval = options.checkpointInterval();
+    long sinceCheckpoint = 0;
+
+    if (instrumentation != null) {
+      instrumentation.start();
+    }
+    try {
+      while (iterator.hasNext()) {
+        final T row = iterator.next();
+        if (instrumentation == null) {
+          encoder.encode(row, csvRow);
+        } else {
+          instrumentation.firstRow();
+          if (instrumentation.sampleRow()) {
+            encoder.encodeTimed(row, csvRow, instrumentation.columnNanos());
+          } else {
+            encoder.encode(row, csvRow);
+          }
+        }
+        csvWriter.writeRow(csvRow);
+        lastRow = row;
+        rows++;
+        if (instrumentation != null) {
+          instrumentation.rowsWritten(1);
+        }
+        if (++sinceCheckpoint == interval) {
+          checkpoint();
+          sinceCheckpoint = 0;
+        }
+      }
+    } catch (RuntimeException | Error e) {
+      if (instrumentation != null) {
+        instrumentation.failed(e);
+      }
+      throw e;
+    }
+    if (instrumentation != null) {
+      instrumentation.complete();
+    }
+  }
+
+  /** Makes written rows durable, then records them in the checkpoint file. */
+  private ReportCheckpoint checkpoint() throws IOException {
+    csvWriter.flush();
+    channel.force(false);
+    if (lastRow != null) {
+      resumeToken = source.resumeToken(lastRow);
+      lastRow = null;
+    }
+    final var checkpoint =
+        new ReportCheckpoint(rows, startOffset + csvWriter.bytesWritten(), resumeToken);
+    writeCheckpoint(checkpoint);
+    return checkpoint;
+  }
+
+  private ReportCheckpoint readCheckpoint() throws IOException {
+    final var properties = new Properties();
+    properties.load(new StringReader(Files.readString(checkpointFile, UTF_8)));
+    if (!columns.equals(properties.getProperty(COLUMNS))) {
+      throw new IllegalStateException("Checkpoint columns do not match the report: " + reportFile);
+    }
+    try {
+      return new ReportCheckpoint(
+          Long.parseLong(properties.getProperty(ROWS)),
+          Long.parseLong(properties.getProperty(OFFSET)),
+          properties.getProperty(RESUME_TOKEN));
+    } catch (NumberFormatException e) {
+      throw new IllegalStateException("Checkpoint is invalid: " + checkpointFile, e);
+    }
+  }
+
+  private void writeCheckpoint(ReportCheckpoint checkpoint) throws IOException {
+    final var properties = new Properties();
+    properties.setProperty(COLUMNS, columns);
+    properties.setProperty(ROWS, Long.toString(checkpoint.rows()));
+    properties.setProperty(OFFSET, Long.toString(checkpoint.offset()));
+    if (checkpoint.resumeToken() != null) {
+      properties.setProperty(RESUME_TOKEN, checkpoint.resumeToken());
+    }
+    final var text = new StringWriter();
+    properties.store(text, null);
+
+    final Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+    try (var tempChannel = FileChannel.open(tempFile, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      final ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(UTF_8));
+      while (bytes.hasRemaining()) {
+        tempChannel.write(bytes);
+      }
+      tempChannel.force(true);
+    }
+    Files.move(
+        tempFile,
+        checkpointFile,
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+}
@@ -0,0 +1,34 @@
+package io.scalecube.reports.csv;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Data source of {@link CsvGenerator#generateResumable}, which can be reopened after a given row,
+ * e.g. by a key or sequence number. Rows must be returned in a stable order.
+ */
+public interface ResumableSource<T> {
+
+  /**
+   * Returns rows following the row of {@code resumeToken}, or all rows when it is {@code null}.
+   */
+  Stream<T> open(String resumeToken);
+
+  /** Returns opaque token of the row, passed to {@link #open} to continue after it. */
+  String resumeToken(T row);
+
+  static <T> ResumableSource<T> of(
+      Function<String, Stream<T>> open, Function<T, String> resumeToken) {
+    return new ResumableSource<>() {
+      @Override
+      public Stream<T> open(String token) {
+        return open.apply(token);
+      }
+
+      @Override
+      public String resumeToken(T row) {
+        return resumeToken.apply(row);
+      }
+    };
+  }
+}
@@ -0,0 +1,110 @@
+package io.scalecube.reports.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes report into {@code baseName-partN} files, rolling over to the next part once the current
+ * one holds {@code partMaxRows} rows or {@code partMaxBytes} CSV bytes (checked between rows, so a
+ * part may exceed the byte limit by the last rows written). Every part starts with the header.
+ */
+final class RollingReportOutput implements ReportOutput, AutoCloseable {
+
+  private final String[] header;
+  private final File directory;
+  private final String baseName;
+  private final String suffix;
+  private final long maxRows;
+  private final long maxBytes;
+  private final int bufferSize;
+  private final Function<File, ByteSink> sinkFactory;
+
+  private final List<ReportManifest.Part> parts = new ArrayList<>();
+  private long closedPartsBytes;
+
+  private File currentFile;
+  private Utf8CsvWriter current;
+  private long currentRows;
+
+  RollingReportOutput(
+      CsvReport<?> report,
+      File directory,
+      String baseName,
+      String suffix,
+      GenerationOptions options,
+      Function<File, ByteSink> sinkFactory) {
+    this.header = report.columnsHeader();
+    this.directory = directory;
+    this.baseName = baseName;
+    this.suffix = suffix;
+    this.maxRows = options.partMaxRows();
+    this.maxBytes = options.partMaxBytes();
+    this.bufferSize = options.bufferSize();
+    this.sinkFactory = sinkFactory;
+  }
+
+  @Override
+  public Utf8CsvWriter writer(int rows) {
+    if (current == null
+        || (currentRows > 0 && maxRows > 0 && currentRows + rows > maxRows)
+        || (currentRows > 0 && maxBytes > 0 && current.bytesWritten() >= maxBytes)) {
+      roll();
+    }
+    currentRows += rows;
+    return current;
+  }
+
+  @Override
+  public long maxPartRows() {
+    return maxRows > 0 ? maxRows : Long.MAX_VALUE;
+  }
+
+  @Override
+  public long bytesWritten() {
+    return closedPartsBytes + (current != null ? current.bytesWritten() : 0);
+  }
+
+  /** Closes the last part, an empty report still gets one part with the header. */
+  List<ReportManifest.Part> finish() {
+    if (current == null) {
+      roll();
+    }
+    closeCurrent();
+    return List.copyOf(parts);
+  }
+
+  @Override
+  public void close() throws IOException {
+    // Parts are left as is when generation failed
+    if (current != null) {
+      final var writer = current;
+      current = null;
+      writer.close();
+    }
+  }
+
+  private void roll() {
+    if (current != null) {
+      closeCurrent();
+    }
+    currentFile = new File(directory, baseName + "-part" + (parts.size() + 1) + suffix);
+    current = new Utf8CsvWriter(sinkFactory.apply(currentFile), bufferSize);
+    currentRows = 0;
+    current.writeNext(header);
+  }
+
+  private void closeCurrent() {
+    final var writer = current;
+    current = null;
+    closedPartsBytes += writer.bytesWritten();
+    try {
+      writer.close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    parts.add(new ReportManifest.Part(currentFile, currentRows, currentFile.length()));
+  }
+}
@@ -0,0 +1,25 @@
+package io.scalecube.reports.csv;
+
+import java.util.function.Function;
+
+/**
+ * Named derivation of a row, e.g. a nested lookup or a computed figure, read by several columns.
+ * Encoders compute it at most once per row, on first use, so it is not computed for rows of
+ * columns that were not selected. See {@link CsvReport.Builder#sharedAccessor}.
+ */
+public record SharedAccessor<T, V>(String name, Function<T, V> accessor) {
+
+  /**
+   * Column mapper of the accessor value, which is handed to {@code mapper} as is, {@code null}
+   * included. {@link CsvRowEncoder} memoizes the accessor value per row, other readers of column
+   * mappers apply the accessor every time.
+   */
+  record Mapper<T, V>(SharedAccessor<T, V> accessor, Function<? super V, Object> mapper)
+      implements Function<T, Object> {
+
+    @Override
+    public Object apply(T row) {
+      return mapper.apply(accessor.accessor().apply(row));
+    }
+  }
+}
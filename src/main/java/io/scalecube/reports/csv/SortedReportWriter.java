@@ -0,0 +1,611 @@
+package io.scalecube.reports.csv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * External merge sort of report rows. Rows are read in runs of {@code sortRunSize}, every row is
+ * encoded once together with a binary sort key whose unsigned byte order is the requested row
+ * order, runs are sorted and spilled to temp files and finally merged into the output. A report
+ * fitting in one run is sorted in memory. With an executor runs are encoded and sorted
+ * concurrently, at most {@code parallelism} of them at a time.
+ */
+final class SortedReportWriter<T> {
+
+  private static final int MAX_MERGE_FAN_IN = 64;
+  private static final int RUN_FILE_BUFFER_SIZE = 64 * 1024;
+  private static final int RUN_WRITER_BUFFER_SIZE = 64 * 1024;
+
+  private static final byte NULL = 0;
+  private static final byte NOT_NULL = 1;
+  private static final byte NEGATIVE = 0;
+  private static final byte ZERO = 1;
+  private static final byte POSITIVE = 2;
+
+  private final CsvReport<T> report;
+  private final List<KeyColumn<T>> keyColumns;
+  private final int runSize;
+  private final int maxInFlightRuns;
+  private final Executor executor;
+
+  /** {@code executor} is nullable, runs are then sorted on the calling thread. */
+  SortedReportWriter(CsvReport<T> report, GenerationOptions options, Executor executor) {
+    this.report = report;
+    this.keyColumns = new ArrayList<>(options.sortKeys().size());
+    for (GenerationOptions.SortKey sortKey : options.sortKeys()) {
+      keyColumns.add(new KeyColumn<>(column(report, sortKey.columnName()), sortKey.descending()));
+    }
+    this.runSize = options.sortRunSize();
+    this.maxInFlightRuns = executor != null ? options.parallelism() : 1;
+    this.executor = executor;
+  }
+
+  private static <T> CsvColumn<T> column(CsvReport<T> report, String columnName) {
+    for (CsvColumn<T> column : report.columns()) {
+      if (column.columnName().equals(columnName)) {
+        return column;
+      }
+    }
+    throw new IllegalArgumentException("Sort column could not be found: " + columnName);
+  }
+
+  /** {@code instrumentation} is nullable. */
+  void write(Iterator<T> rows, ReportOutput output, ReportInstrumentation instrumentation) {
+    if (!rows.hasNext()) {
+      return;
+    }
+    if (instrumentation != null) {
+      instrumentation.firstRow();
+    }
+
+    final Run<T> first = new Run<>(this);
+    first.fill(rows, runSize);
+    if (!rows.hasNext()) {
+      first.encodeAndSort();
+      first.writeTo(output, instrumentation);
+      return;
+    }
+
+    final ArrayDeque<Run<T>> inFlight = new ArrayDeque<>(maxInFlightRuns);
+    final List<RunFile> runFiles = new ArrayList<>();
+    Path directory = null;
+    try {
+      directory = Files.createTempDirectory("report-sort-");
+      Run<T> run = first;
+      int allocated = 1;
+      while (true) {
+        spillAsync(run, directory.resolve("run-" + runFiles.size()), runFiles);
+        inFlight.add(run);
+        if (!rows.hasNext()) {
+          break;
+        }
+        if (allocated < maxInFlightRuns) {
+          run = new Run<>(this);
+          allocated++;
+        } else {
+          run = inFlight.poll();
+          run.await();
+        }
+        run.fill(rows, runSize);
+      }
+      for (Run<T> pending = inFlight.poll(); pending != null; pending = inFlight.poll()) {
+        pending.await();
+      }
+
+      merge(runFiles, directory, output, instrumentation);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      // Runs not started yet are skipped, running spills finish before their files are deleted
+      for (Run<T> run : inFlight) {
+        run.skipped = true;
+      }
+      for (Run<T> run : inFlight) {
+        run.future.handle((ignored, error) -> null).join();
+      }
+      if (directory != null) {
+        delete(directory);
+      }
+    }
+  }
+
+  private void spillAsync(Run<T> run, Path file, List<RunFile> runFiles) {
+    final RunFile runFile = new RunFile(file, run.count);
+    runFiles.add(runFile);
+    final Runnable task =
+        () -> {
+          if (run.skipped) {
+            return;
+          }
+          run.encodeAndSort();
+          run.spill(file);
+        };
+    if (executor == null) {
+      task.run();
+      run.future = CompletableFuture.completedFuture(null);
+    } else {
+      run.future = CompletableFuture.runAsync(task, executor);
+    }
+  }
+
+  private static void merge(
+      List<RunFile> runFiles,
+      Path directory,
+      ReportOutput output,
+      ReportInstrumentation instrumentation)
+      throws IOException {
+    // Keep the number of open run files bounded, merge consecutive runs to keep rows stable
+    List<RunFile> runs = runFiles;
+    int pass = 0;
+    while (runs.size() > MAX_MERGE_FAN_IN) {
+      final List<RunFile> merged = new ArrayList<>();
+      for (int from = 0; from < runs.size(); from += MAX_MERGE_FAN_IN) {
+        final List<RunFile> group =
+            runs.subList(from, Math.min(from + MAX_MERGE_FAN_IN, runs.size()));
+        final Path file = directory.resolve("merge-" + pass + "-" + merged.size());
+        long rows = 0;
+        try (var out = runOutput(file)) {
+          merge(group, cursor -> cursor.copyTo(out));
+        }
+        for (RunFile runFile : group) {
+          rows += runFile.rows();
+          Files.delete(runFile.file());
+        }
+        merged.add(new RunFile(file, rows));
+      }
+      runs = merged;
+      pass++;
+    }
+
+    merge(
+        runs,
+        cursor -> {
+          output.writer(1).writeEncoded(cursor.row, 0, cursor.rowLength);
+          if (instrumentation != null) {
+            instrumentation.rowsWritten(1);
+          }
+        });
+  }
+
+  private static void merge(List<RunFile> runs, RowConsumer consumer) throws IOException {
+    final PriorityQueue<RunCursor> queue = new PriorityQueue<>(runs.size());
+    RunCursor cursor = null;
+    try {
+      for (int i = 0; i < runs.size(); i++) {
+        cursor = new RunCursor(runs.get(i), i);
+        if (cursor.next()) {
+          queue.add(cursor);
+        } else {
+          cursor.close();
+        }
+      }
+      for (cursor = queue.poll(); cursor != null; cursor = queue.poll()) {
+        consumer.accept(cursor);
+        if (cursor.next()) {
+          queue.add(cursor);
+        } else {
+          cursor.close();
+        }
+      }
+    } finally {
+      // Cursor polled or opened when failed is not in the queue
+      if (cursor != null) {
+        cursor.close();
+      }
+      for (RunCursor pending : queue) {
+        pending.close();
+      }
+    }
+  }
+
+  private static DataOutputStream runOutput(Path file) throws IOException {
+    return new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file), RUN_FILE_BUFFER_SIZE));
+  }
+
+  private static void delete(Path directory) {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(directory);
+    } catch (IOException e) {
+      // Best effort, temp files are not part of the result
+    }
+  }
+
+  private record RunFile(Path file, long rows) {}
+
+  private interface RowConsumer {
+
+    void accept(RunCursor cursor) throws IOException;
+  }
+
+  /** Reads sorted rows of a spilled run, ordered by key then by run index. */
+  private static final class RunCursor implements Comparable<RunCursor> {
+
+    private final DataInputStream in;
+    private final int index;
+    private long remaining;
+
+    private byte[] key = new byte[64];
+    private int keyLength;
+    private byte[] row = new byte[256];
+    private int rowLength;
+
+    private RunCursor(RunFile runFile, int index) throws IOException {
+      this.in =
+          new DataInputStream(
+              new BufferedInputStream(Files.newInputStream(runFile.file()), RUN_FILE_BUFFER_SIZE));
+      this.index = index;
+      this.remaining = runFile.rows();
+    }
+
+    private boolean next() throws IOException {
+      if (remaining == 0) {
+        return false;
+      }
+      remaining--;
+      keyLength = in.readInt();
+      if (keyLength > key.length) {
+        key = new byte[Math.max(keyLength, 2 * key.length)];
+      }
+      in.readFully(key, 0, keyLength);
+      rowLength = in.readInt();
+      if (rowLength > row.length) {
+        row = new byte[Math.max(rowLength, 2 * row.length)];
+      }
+      in.readFully(row, 0, rowLength);
+      return true;
+    }
+
+    private void copyTo(DataOutputStream out) throws IOException {
+      out.writeInt(keyLength);
+      out.write(key, 0, keyLength);
+      out.writeInt(rowLength);
+      out.write(row, 0, rowLength);
+    }
+
+    private void close() throws IOException {
+      in.close();
+    }
+
+    @Override
+    public int compareTo(RunCursor other) {
+      final int result =
+          Arrays.compareUnsigned(key, 0, keyLength, other.key, 0, other.keyLength);
+      return result != 0 ? result : Integer.compare(index, other.index);
+    }
+  }
+
+  /** Rows of one run with their encoded lines and sort keys, reused across runs. */
+  private static final class Run<T> {
+
+    private final List<KeyColumn<T>> keyColumns;
+    private final Object[] rows;
+    private int count;
+
+    private final CsvRowEncoder<T> encoder;
+    private final CsvRow row;
+    private final HeapByteSink lines;
+    private final Utf8CsvWriter writer;
+    private final int[] lineEnds;
+
+    private byte[] keys = new byte[1024];
+    private int keysSize;
+    private final int[] keyEnds;
+
+    private final int[] order;
+    private final int[] scratch;
+
+    private CompletableFuture<Void> future;
+    private volatile boolean skipped;
+
+    private Run(SortedReportWriter<T> sorter) {
+      keyColumns = sorter.keyColumns;
+      rows = new Object[sorter.runSize];
+      encoder = sorter.report.newEncoder();
+      row = new CsvRow(encoder.columnCount());
+      lines = new HeapByteSink(RUN_WRITER_BUFFER_SIZE);
+      writer = new Utf8CsvWriter(lines, RUN_WRITER_BUFFER_SIZE);
+      lineEnds = new int[sorter.runSize];
+      keyEnds = new int[sorter.runSize];
+      order = new int[sorter.runSize];
+      scratch = new int[sorter.runSize];
+    }
+
+    private void fill(Iterator<T> source, int limit) {
+      count = 0;
+      while (count < limit && source.hasNext()) {
+        rows[count++] = source.next();
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void encodeAndSort() {
+      lines.reset();
+      keysSize = 0;
+      final long base = writer.bytesWritten();
+      for (int i = 0; i < count; i++) {
+        final T value = (T) rows[i];
+        rows[i] = null;
+        for (KeyColumn<T> keyColumn : keyColumns) {
+          final int start = keysSize;
+          keyColumn.write(value, this);
+          if (keyColumn.descending) {
+            for (int j = start; j < keysSize; j++) {
+              keys[j] = (byte) ~keys[j];
+            }
+          }
+        }
+        keyEnds[i] = keysSize;
+        encoder.encode(value, row);
+        writer.writeRow(row);
+        lineEnds[i] = Math.toIntExact(writer.bytesWritten() - base);
+        order[i] = i;
+      }
+      writer.flush();
+      sort(0, count);
+    }
+
+    private void sort(int from, int to) {
+      if (to - from < 16) {
+        for (int i = from + 1; i < to; i++) {
+          final int current = order[i];
+          int j = i - 1;
+          while (j >= from && compare(order[j], current) > 0) {
+            order[j + 1] = order[j];
+            j--;
+          }
+          order[j + 1] = current;
+        }
+        return;
+      }
+      final int middle = (from + to) >>> 1;
+      sort(from, middle);
+      sort(middle, to);
+      if (compare(order[middle - 1], order[middle]) <= 0) {
+        return;
+      }
+      System.arraycopy(order, from, scratch, from, to - from);
+      int i = from;
+      int j = middle;
+      int k = from;
+      while (i < middle && j < to) {
+        order[k++] = compare(scratch[j], scratch[i]) < 0 ? scratch[j++] : scratch[i++];
+      }
+      while (i < middle) {
+        order[k++] = scratch[i++];
+      }
+      while (j < to) {
+        order[k++] = scratch[j++];
+      }
+    }
+
+    private int compare(int left, int right) {
+      return Arrays.compareUnsigned(
+          keys, keyStart(left), keyEnds[left], keys, keyStart(right), keyEnds[right]);
+    }
+
+    private int keyStart(int index) {
+      return index == 0 ? 0 : keyEnds[index - 1];
+    }
+
+    private int lineStart(int index) {
+      return index == 0 ? 0 : lineEnds[index - 1];
+    }
+
+    private void writeTo(ReportOutput output, ReportInstrumentation instrumentation) {
+      final byte[] bytes = lines.array();
+      for (int i = 0; i < count; i++) {
+        final int index = order[i];
+        final int start = lineStart(index);
+        output.writer(1).writeEncoded(bytes, start, lineEnds[index] - start);
+      }
+      if (instrumentation != null) {
+        instrumentation.rowsWritten(count);
+      }
+    }
+
+    private void spill(Path file) {
+      final byte[] bytes = lines.array();
+      try (var out = runOutput(file)) {
+        for (int i = 0; i < count; i++) {
+          final int index = order[i];
+          final int keyStart = keyStart(index);
+          out.writeInt(keyEnds[index] - keyStart);
+          out.write(keys, keyStart, keyEnds[index] - keyStart);
+          final int lineStart = lineStart(index);
+          out.writeInt(lineEnds[index] - lineStart);
+          out.write(bytes, lineStart, lineEnds[index] - lineStart);
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    private void await() {
+      try {
+        future.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    private void put(byte b) {
+      ensureKeyCapacity(1);
+      keys[keysSize++] = b;
+    }
+
+    private void putInt(int value) {
+      ensureKeyCapacity(Integer.BYTES);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        keys[keysSize++] = (byte) (value >>> shift);
+      }
+    }
+
+    private void putLong(long value) {
+      ensureKeyCapacity(Long.BYTES);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        keys[keysSize++] = (byte) (value >>> shift);
+      }
+    }
+
+    private void ensureKeyCapacity(int length) {
+      if (keysSize + length > keys.length) {
+        keys = Arrays.copyOf(keys, Math.max(keysSize + length, 2 * keys.length));
+      }
+    }
+  }
+
+  /**
+   * Writes order-preserving binary keys of a column: a null marker followed by a fixed-width or
+   * terminated encoding, so concatenated keys of several columns compare column by column.
+   */
+  private static final class KeyColumn<T> {
+
+    private final CsvColumn.PrimitiveMapper<T> primitiveMapper;
+    private final Function<T, Object> mapper;
+    private final boolean descending;
+
+    private KeyColumn(CsvColumn<T> column, boolean descending) {
+      this.primitiveMapper = column.primitiveMapper();
+      this.mapper = column.mapper();
+      this.descending = descending;
+    }
+
+    private void write(T row, Run<T> out) {
+      if (primitiveMapper instanceof CsvColumn.LongMapper<T> longMapper) {
+        if (longMapper.presence() != null && !longMapper.presence().test(row)) {
+          out.put(NULL);
+        } else {
+          out.put(NOT_NULL);
+          out.putLong(longMapper.mapper().applyAsLong(row) ^ Long.MIN_VALUE);
+        }
+      } else if (primitiveMapper instanceof CsvColumn.IntMapper<T> intMapper) {
+        if (intMapper.presence() != null && !intMapper.presence().test(row)) {
+          out.put(NULL);
+        } else {
+          out.put(NOT_NULL);
+          out.putLong(intMapper.mapper().applyAsInt(row) ^ Long.MIN_VALUE);
+        }
+      } else if (primitiveMapper instanceof CsvColumn.DoubleMapper<T> doubleMapper) {
+        if (doubleMapper.presence() != null && !doubleMapper.presence().test(row)) {
+          out.put(NULL);
+        } else {
+          out.put(NOT_NULL);
+          out.putLong(doubleKey(doubleMapper.mapper().applyAsDouble(row)));
+        }
+      } else {
+        writeValue(mapper.apply(row), out);
+      }
+    }
+
+    private static void writeValue(Object value, Run<?> out) {
+      if (value == null) {
+        out.put(NULL);
+        return;
+      }
+      out.put(NOT_NULL);
+      if (value instanceof Long || value instanceof Integer
+          || value instanceof Short || value instanceof Byte) {
+        out.putLong(((Number) value).longValue() ^ Long.MIN_VALUE);
+      } else if (value instanceof Double || value instanceof Float) {
+        out.putLong(doubleKey(((Number) value).doubleValue()));
+      } else if (value instanceof String string) {
+        writeString(string, out);
+      } else if (value instanceof BigDecimal decimal) {
+        writeDecimal(decimal, out);
+      } else if (value instanceof BigInteger integer) {
+        writeDecimal(new BigDecimal(integer), out);
+      } else if (value instanceof LocalDateTime dateTime) {
+        out.putLong(dateTime.toEpochSecond(ZoneOffset.UTC) ^ Long.MIN_VALUE);
+        out.putInt(dateTime.getNano());
+      } else if (value instanceof LocalDate date) {
+        out.putLong(date.toEpochDay() ^ Long.MIN_VALUE);
+      } else if (value instanceof Instant instant) {
+        out.putLong(instant.getEpochSecond() ^ Long.MIN_VALUE);
+        out.putInt(instant.getNano());
+      } else if (value instanceof LocalTime time) {
+        out.putLong(time.toNanoOfDay());
+      } else if (value instanceof Boolean bool) {
+        out.put((byte) (bool ? 1 : 0));
+      } else if (value instanceof Enum<?> constant) {
+        out.putInt(constant.ordinal());
+      } else {
+        throw new IllegalArgumentException(
+            "Sort key type is not supported: " + value.getClass().getName());
+      }
+    }
+
+    private static long doubleKey(double value) {
+      final long bits = Double.doubleToLongBits(value);
+      return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /** UTF-8 bytes with 0 escaped as 0 0xFF, terminated by 0 1. */
+    private static void writeString(String value, Run<?> out) {
+      for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+        out.put(b);
+        if (b == 0) {
+          out.put((byte) 0xFF);
+        }
+      }
+      out.put((byte) 0);
+      out.put((byte) 1);
+    }
+
+    /**
+     * Sign, then for non-zero values the decimal exponent and the significant digits terminated by
+     * 0, complemented for negative values.
+     */
+    private static void writeDecimal(BigDecimal value, Run<?> out) {
+      final int signum = value.signum();
+      if (signum == 0) {
+        out.put(ZERO);
+        return;
+      }
+      out.put(signum < 0 ? NEGATIVE : POSITIVE);
+      final int start = out.keysSize;
+      final BigDecimal stripped = value.stripTrailingZeros();
+      out.putInt((stripped.precision() - stripped.scale()) ^ Integer.MIN_VALUE);
+      final String digits = stripped.unscaledValue().abs().toString();
+      for (int i = 0; i < digits.length(); i++) {
+        out.put((byte) digits.charAt(i));
+      }
+      out.put((byte) 0);
+      if (signum < 0) {
+        for (int i = start; i < out.keysSize; i++) {
+          out.keys[i] = (byte) ~out.keys[i];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package io.scalecube.reports.csv;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Bounded single-producer single-consumer queue between two pipeline stages. Slots are reused in
+ * place, waiting threads are parked until the other side moves. The producer ends the queue with
+ * {@link #complete}, the consumer stops the producer with {@link #cancel}. A queue of preallocated
+ * elements hands the same elements around instead, filled in place between {@link #claim} and
+ * {@link #publish} and consumed in batches between {@link #available} and {@link #release}.
+ * Occupancy seen by the consumer and waits of both sides are kept for {@link
+ * ReportMetrics.StageMetrics}.
+ */
+final class SpscRing<E> {
+
+  private final String name;
+  private final Object[] slots;
+
+  // Next index to take, written by the consumer
+  private final AtomicLong head = new AtomicLong();
+  // Next index to put, written by the producer
+  private final AtomicLong tail = new AtomicLong();
+
+  private volatile Thread waitingProducer;
+  private volatile Thread waitingConsumer;
+  private volatile boolean completed;
+  private volatile boolean cancelled;
+  private volatile Throwable error;
+
+  // Each written by one side only
+  private volatile long takes;
+  private volatile long occupancySum;
+  private volatile int maxOccupancy;
+  private volatile long fullWaits;
+  private volatile long emptyWaits;
+
+  SpscRing(String name, int capacity) {
+    this.name = name;
+    this.slots = new Object[capacity];
+  }
+
+  /** Queue of preallocated elements, used with claim and publish, available and release. */
+  SpscRing(String name, int capacity, Supplier<? extends E> elements) {
+    this(name, capacity);
+    Arrays.setAll(slots, i -> elements.get());
+  }
+
+  int capacity() {
+    return slots.length;
+  }
+
+  /** Waits for a free slot, returns {@code false} when the consumer cancelled the queue. */
+  boolean put(E element) throws InterruptedException {
+    final long index = tail.get();
+    if (!awaitSlot(index)) {
+      return false;
+    }
+    slots[(int) (index % slots.length)] = element;
+    tail.set(index + 1);
+    LockSupport.unpark(waitingConsumer);
+    return true;
+  }
+
+  /**
+   * Waits for a free slot of a preallocated queue and returns its element to be filled in place,
+   * {@code null} when the consumer cancelled the queue. The element is handed to the consumer by
+   * {@link #publish()}.
+   */
+  @SuppressWarnings("unchecked")
+  E claim() throws InterruptedException {
+    final long index = tail.get();
+    if (!awaitSlot(index)) {
+      return null;
+    }
+    return (E) slots[(int) (index % slots.length)];
+  }
+
+  /** Hands the element of the last {@link #claim()} to the consumer. */
+  void publish() {
+    tail.set(tail.get() + 1);
+    LockSupport.unpark(waitingConsumer);
+  }
+
+  /** Puts the element without waiting, returns {@code false} when the queue is full. */
+  boolean offer(E element) {
+    final long index = tail.get();
+    if (index - head.get() == slots.length) {
+      return false;
+    }
+    slots[(int) (index % slots.length)] = element;
+    tail.set(index + 1);
+    LockSupport.unpark(waitingConsumer);
+    return true;
+  }
+
+  /** Takes an element without waiting, returns {@code null} when there is none. */
+  @SuppressWarnings("unchecked")
+  E poll() {
+    final long index = head.get();
+    if (tail.get() == index) {
+      return null;
+    }
+    final int slot = (int) (index % slots.length);
+    final E element = (E) slots[slot];
+    slots[slot] = null;
+    head.set(index + 1);
+    LockSupport.unpark(waitingProducer);
+    return element;
+  }
+
+  /**
+   * Waits for the next element, returns {@code null} once the producer completed and all elements
+   * were taken. Rethrows the error the producer completed with.
+   */
+  @SuppressWarnings("unchecked")
+  E take() throws InterruptedException {
+    final long index = head.get();
+    if (awaitElements(index) == index) {
+      return null;
+    }
+    final int slot = (int) (index % slots.length);
+    final E element = (E) slots[slot];
+    slots[slot] = null;
+    head.set(index + 1);
+    LockSupport.unpark(waitingProducer);
+    return element;
+  }
+
+  /**
+   * Waits for published elements of a preallocated queue, returns the number of elements to
+   * {@link #peek} or 0 once the producer completed and all elements were released. Rethrows the
+   * error the producer completed with.
+   */
+  int available() throws InterruptedException {
+    final long index = head.get();
+    return (int) (awaitElements(index) - index);
+  }
+
+  /** Returns the n-th available element, which stays in its slot. */
+  @SuppressWarnings("unchecked")
+  E peek(int n) {
+    return (E) slots[(int) ((head.get() + n) % slots.length)];
+  }
+
+  /** Frees the slots of {@code n} available elements for the producer to claim again. */
+  void release(int n) {
+    head.set(head.get() + n);
+    LockSupport.unpark(waitingProducer);
+  }
+
+  /** Ends the queue, {@code error} is nullable. Called by the producer. */
+  void complete(Throwable error) {
+    this.error = error;
+    completed = true;
+    LockSupport.unpark(waitingConsumer);
+  }
+
+  /** Makes the producer stop at its next {@code put}. Called by the consumer. */
+  void cancel() {
+    cancelled = true;
+    LockSupport.unpark(waitingProducer);
+  }
+
+  boolean isCancelled() {
+    return cancelled;
+  }
+
+  private boolean awaitSlot(long index) throws InterruptedException {
+    if (index - head.get() == slots.length) {
+      fullWaits++;
+      final Thread thread = Thread.currentThread();
+      while (index - head.get() == slots.length && !cancelled) {
+        waitingProducer = thread;
+        if (index - head.get() == slots.length && !cancelled) {
+          LockSupport.park(this);
+        }
+        waitingProducer = null;
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+      }
+    }
+    return !cancelled;
+  }
+
+  /** Returns the tail seen by the consumer, {@code index} once completed. */
+  private long awaitElements(long index) throws InterruptedException {
+    long available = tail.get();
+    if (available == index) {
+      emptyWaits++;
+      final Thread thread = Thread.currentThread();
+      while ((available = tail.get()) == index) {
+        if (completed) {
+          // Completion is published after the last element
+          if ((available = tail.get()) != index) {
+            break;
+          }
+          final Throwable failure = error;
+          if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+          }
+          if (failure instanceof Error fatal) {
+            throw fatal;
+          }
+          if (failure != null) {
+            throw new RuntimeException(failure);
+          }
+          return index;
+        }
+        waitingConsumer = thread;
+        if (tail.get() == index && !completed) {
+          LockSupport.park(this);
+        }
+        waitingConsumer = null;
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+      }
+    }
+    final long occupancy = available - index;
+    takes++;
+    occupancySum += occupancy;
+    if (occupancy > maxOccupancy) {
+      maxOccupancy = (int) occupancy;
+    }
+    return available;
+  }
+
+  ReportMetrics.StageMetrics metrics() {
+    final long count = takes;
+    return new ReportMetrics.StageMetrics(
+        name,
+        slots.length,
+        count > 0 ? (double) occupancySum / count : 0,
+        maxOccupancy,
+        fullWaits,
+        emptyWaits);
+  }
+}
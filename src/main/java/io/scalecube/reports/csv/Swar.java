@@ -0,0 +1,80 @@
+package io.scalecube.reports.csv;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/** SIMD-within-a-register helpers scanning byte arrays eight bytes at a time. */
+final class Swar {
+
+  static final long ONES = 0x0101010101010101L;
+  static final long HIGH_BITS = 0x8080808080808080L;
+  static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+  static final long QUOTES = ONES * '"';
+  static final long SEPARATORS = ONES * ',';
+  static final long NEW_LINES = ONES * '\n';
+  static final long CARRIAGE_RETURNS = ONES * '\r';
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private Swar() {
+    // Do not instantiate
+  }
+
+  static long getLong(byte[] bytes, int index) {
+    return (long) LONGS.get(bytes, index);
+  }
+
+  /** Returns word with the high bit set in every byte of {@code word} equal to zero. */
+  static long zeroBytes(long word) {
+    return (word - ONES) & ~word & HIGH_BITS;
+  }
+
+  /** Returns word with the high bit set in every byte of {@code word} equal to {@code pattern}. */
+  static long matches(long word, long pattern) {
+    return zeroBytes(word ^ pattern);
+  }
+
+  /**
+   * Same as {@link #matches(long, long)} without false positives in bytes following a match, for
+   * callers counting matches rather than looking for the first one.
+   */
+  static long exactMatches(long word, long pattern) {
+    final long x = word ^ pattern;
+    return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+  }
+
+  /** Returns index of the first matching byte of a non-zero {@link #matches} result. */
+  static int firstIndex(long matches) {
+    return Long.numberOfTrailingZeros(matches) >>> 3;
+  }
+
+  static long csvSpecials(long word) {
+    return matches(word, QUOTES)
+        | matches(word, SEPARATORS)
+        | matches(word, NEW_LINES)
+        | matches(word, CARRIAGE_RETURNS);
+  }
+
+  /**
+   * Whether ASCII bytes in range contain a quote, separator, {@code \n} or {@code \r}. Bytes with
+   * the high bit set are not expected, callers only scan the ASCII encoded runs.
+   */
+  static boolean containsCsvSpecial(byte[] bytes, int from, int to) {
+    int i = from;
+    for (; i + Long.BYTES <= to; i += Long.BYTES) {
+      if (csvSpecials(getLong(bytes, i)) != 0) {
+        return true;
+      }
+    }
+    for (; i < to; i++) {
+      final byte b = bytes[i];
+      if (b == '"' || b == ',' || b == '\n' || b == '\r') {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,269 @@
+package io.scalecube.reports.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * CSV writer encoding fields straight to UTF-8 bytes into a reusable buffer handed to a {@link
+ * ByteSink} in large blocks. ASCII runs are copied byte per char and checked for quote,
+ * separator, {@code \n} and {@code \r} eight bytes at a time, other chars take the general UTF-8
+ * path. Quoting rules are the same as {@link BufferedCsvWriter}.
+ */
+public class Utf8CsvWriter implements AutoCloseable {
+
+  public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+  private static final byte SEPARATOR = ',';
+  private static final byte QUOTE = '"';
+  private static final byte NEW_LINE = '\n';
+
+  // Max UTF-8 bytes per UTF-16 char, surrogate pairs take 4 bytes for 2 chars
+  private static final int MAX_BYTES_PER_CHAR = 3;
+
+  private final ByteSink sink;
+  private final byte[] buffer;
+  private final ByteBuffer bufferView;
+  private int position;
+  private long flushedBytes;
+
+  private char[] scratch = new char[64];
+
+  public Utf8CsvWriter(ByteSink sink) {
+    this(sink, DEFAULT_BUFFER_SIZE);
+  }
+
+  public Utf8CsvWriter(ByteSink sink, int bufferSize) {
+    if (bufferSize < 16) {
+      throw new IllegalArgumentException("Buffer size could not be less than 16");
+    }
+    this.sink = sink;
+    this.buffer = new byte[bufferSize];
+    this.bufferView = ByteBuffer.wrap(buffer);
+  }
+
+  public void writeNext(String[] nextLine) {
+    if (nextLine == null) {
+      return;
+    }
+    for (int i = 0; i < nextLine.length; i++) {
+      if (i > 0) {
+        put(SEPARATOR);
+      }
+      final String field = nextLine[i];
+      if (field != null) {
+        final int length = field.length();
+        if (scratch.length < length) {
+          scratch = new char[Math.max(length, scratch.length * 2)];
+        }
+        field.getChars(0, length, scratch, 0);
+        writeCell(scratch, 0, length);
+      }
+    }
+    put(NEW_LINE);
+  }
+
+  public void writeRow(CsvRow row) {
+    final char[] chars = row.buffer();
+    for (int i = 0; i < row.size(); i++) {
+      if (i > 0) {
+        put(SEPARATOR);
+      }
+      final byte[] encoded = row.encoded(i);
+      if (encoded != null) {
+        writeEncoded(encoded, 0, encoded.length);
+      } else {
+        writeCell(chars, row.start(i), row.end(i));
+      }
+    }
+    put(NEW_LINE);
+  }
+
+  /** Returns writer for {@link #encodeCell} of cells of up to {@code maxLength} chars. */
+  static Utf8CsvWriter cellEncoder(int maxLength) {
+    return new Utf8CsvWriter(
+        new HeapByteSink(16), Math.max(16, maxLength * MAX_BYTES_PER_CHAR + 2));
+  }
+
+  /**
+   * Returns the cell escaped and encoded as {@link #writeRow} writes it. The cell is encoded in the
+   * buffer of this writer, which must be empty, only the returned array is allocated.
+   */
+  byte[] encodeCell(char[] chars, int start, int end) {
+    if (position != 0 || (long) (end - start) * MAX_BYTES_PER_CHAR + 2 > buffer.length) {
+      throw new IllegalArgumentException("Cell could not be encoded in the writer buffer");
+    }
+    writeCell(chars, start, end);
+    final byte[] cell = Arrays.copyOf(buffer, position);
+    position = 0;
+    return cell;
+  }
+
+  /** Appends bytes which are already encoded and escaped, e.g. rows encoded by another writer. */
+  public void writeEncoded(byte[] bytes, int offset, int length) {
+    if (length > buffer.length - position) {
+      flushBuffer();
+      if (length >= buffer.length) {
+        try {
+          sink.write(ByteBuffer.wrap(bytes, offset, length));
+          flushedBytes += length;
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+        return;
+      }
+    }
+    System.arraycopy(bytes, offset, buffer, position, length);
+    position += length;
+  }
+
+  /** Number of CSV bytes written so far, including bytes still buffered. */
+  public long bytesWritten() {
+    return flushedBytes + position;
+  }
+
+  public void flush() {
+    flushBuffer();
+    try {
+      sink.flush();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flushBuffer();
+    } finally {
+      sink.close();
+    }
+  }
+
+  private void writeCell(char[] chars, int start, int end) {
+    final long maxBytes = (long) (end - start) * MAX_BYTES_PER_CHAR + 2;
+    if (maxBytes > buffer.length - position) {
+      flushBuffer();
+      if (maxBytes > buffer.length) {
+        writeLargeCell(chars, start, end);
+        return;
+      }
+    }
+
+    final int begin = position;
+    int p = begin;
+    int i = start;
+    for (; i < end; i++) {
+      final char c = chars[i];
+      if (c >= 0x80) {
+        break;
+      }
+      buffer[p++] = (byte) c;
+    }
+
+    if (!Swar.containsCsvSpecial(buffer, begin, p)) {
+      if (i == end) {
+        position = p;
+        return;
+      }
+      if (!BufferedCsvWriter.needsQuotes(chars, i, end)) {
+        position = encode(chars, i, end, p);
+        return;
+      }
+    }
+
+    // Rare case, start over enclosing the field in quotes
+    buffer[begin] = QUOTE;
+    p = begin + 1;
+    int from = start;
+    for (int j = start; j < end; j++) {
+      if (chars[j] == '"') {
+        p = encode(chars, from, j + 1, p);
+        buffer[p++] = QUOTE;
+        from = j + 1;
+      }
+    }
+    p = encode(chars, from, end, p);
+    buffer[p++] = QUOTE;
+    position = p;
+  }
+
+  private void writeLargeCell(char[] chars, int start, int end) {
+    final boolean quoted = BufferedCsvWriter.needsQuotes(chars, start, end);
+    if (quoted) {
+      put(QUOTE);
+    }
+    for (int i = start; i < end; i++) {
+      // Surrogate pair encodes to 4 bytes, a quote to 2
+      if (buffer.length - position < 4) {
+        flushBuffer();
+      }
+      final char c = chars[i];
+      final int next =
+          Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])
+              ? i + 2
+              : i + 1;
+      position = encode(chars, i, next, position);
+      if (quoted && c == '"') {
+        buffer[position++] = QUOTE;
+      }
+      i = next - 1;
+    }
+    if (quoted) {
+      put(QUOTE);
+    }
+  }
+
+  /**
+   * Encodes chars as UTF-8 at {@code p} and returns the new position. Unpaired surrogates are
+   * replaced with {@code '?'} like {@link String#getBytes(java.nio.charset.Charset)} does.
+   */
+  private int encode(char[] chars, int from, int to, int p) {
+    final byte[] bytes = buffer;
+    for (int i = from; i < to; i++) {
+      final char c = chars[i];
+      if (c < 0x80) {
+        bytes[p++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[p++] = (byte) (0xC0 | (c >> 6));
+        bytes[p++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(chars[i + 1])) {
+          final int cp = Character.toCodePoint(c, chars[++i]);
+          bytes[p++] = (byte) (0xF0 | (cp >> 18));
+          bytes[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+          bytes[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+          bytes[p++] = (byte) (0x80 | (cp & 0x3F));
+        } else {
+          bytes[p++] = '?';
+        }
+      } else {
+        bytes[p++] = (byte) (0xE0 | (c >> 12));
+        bytes[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        bytes[p++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return p;
+  }
+
+  private void put(byte b) {
+    if (position == buffer.length) {
+      flushBuffer();
+    }
+    buffer[position++] = b;
+  }
+
+  private void flushBuffer() {
+    if (position == 0) {
+      return;
+    }
+    try {
+      bufferView.clear().limit(position);
+      sink.write(bufferView);
+      flushedBytes += position;
+      position = 0;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
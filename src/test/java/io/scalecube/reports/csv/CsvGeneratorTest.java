@@ -1,13 +1,22 @@
 package io.scalecube.reports.csv;
 
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static java.time.format.DateTimeFormatter.ofPattern;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import com.opencsv.CSVReader;
 import io.scalecube.reports.csv.CsvReport.Builder;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
@@ -15,11 +24,26 @@
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import reactor.adapter.JdkFlowAdapter;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -35,6 +59,632 @@ void generateReportSuccessfully(TestData testData) {
     assertReport(testData.columnNames, testData.expectedRows, reportFile);
   }
 
+  @ParameterizedTest
+  @MethodSource("generateReportSuccessfullyMethodSource")
+  void generateReportMemoryMapped(TestData testData) {
+    File reportFile =
+        CsvGenerator.generateAsFile(
+            testData.mapper,
+            testData.dataSource,
+            BASE_REPORT_NAME,
+            options -> options.fileOutputMode(FileOutputMode.MEMORY_MAPPED).mappedRegionSize(64));
+    assertReport(testData.columnNames, testData.expectedRows, reportFile);
+  }
+
+  @ParameterizedTest
+  @MethodSource("generateReportSuccessfullyMethodSource")
+  void generateReportInParallel(TestData testData) {
+    File reportFile =
+        CsvGenerator.generateAsFile(
+            testData.mapper,
+            testData.dataSource,
+            BASE_REPORT_NAME,
+            options -> options.parallelism(2).chunkSize(1).maxInFlightChunks(2));
+    assertReport(testData.columnNames, testData.expectedRows, reportFile);
+  }
+
+  @ParameterizedTest
+  @MethodSource("generateReportSuccessfullyMethodSource")
+  void generateReportToOutputStream(TestData testData) throws Exception {
+    File reportFile = Files.createTempFile(BASE_REPORT_NAME, ".csv").toFile();
+    try (OutputStream outputStream = Files.newOutputStream(reportFile.toPath())) {
+      CsvGenerator.generateTo(testData.mapper, testData.dataSource, outputStream);
+    }
+    assertReport(testData.columnNames, testData.expectedRows, reportFile);
+  }
+
+  @ParameterizedTest
+  @MethodSource("generateReportSuccessfullyMethodSource")
+  void generateReportAsPublisher(TestData testData) throws Exception {
+    File reportFile = Files.createTempFile(BASE_REPORT_NAME, ".csv").toFile();
+    try (FileChannel channel = FileChannel.open(reportFile.toPath(), WRITE)) {
+      StepVerifier.create(
+              JdkFlowAdapter.flowPublisherToFlux(
+                      CsvGenerator.generateAsPublisher(
+                          testData.mapper, testData.dataSource, options -> options.bufferSize(16)))
+                  .doOnNext(buffer -> writeFully(channel, buffer)),
+              1)
+          .thenRequest(Long.MAX_VALUE)
+          .thenConsumeWhile(buffer -> true)
+          .verifyComplete();
+    }
+    assertReport(testData.columnNames, testData.expectedRows, reportFile);
+  }
+
+  @ParameterizedTest
+  @MethodSource("generateReportSuccessfullyMethodSource")
+  void generateCompressedReport(TestData testData) throws Exception {
+    File compressedFile =
+        CsvGenerator.generateAsFile(
+            testData.mapper,
+            testData.dataSource,
+            BASE_REPORT_NAME,
+            options -> options.compression(Compression.GZIP).compressionBlockSize(1024));
+    assertThat(compressedFile.getName()).endsWith(".csv.gz");
+
+    File reportFile = Files.createTempFile(BASE_REPORT_NAME, ".csv").toFile();
+    try (InputStream inputStream =
+        new GZIPInputStream(Files.newInputStream(compressedFile.toPath()))) {
+      Files.write(reportFile.toPath(), inputStream.readAllBytes());
+    }
+    assertReport(testData.columnNames, testData.expectedRows, reportFile);
+  }
+
+  @ParameterizedTest
+  @MethodSource("generateReportSuccessfullyMethodSource")
+  void generateReportsFromOneSource(TestData testData) {
+    final var builders = new LinkedHashMap<String, Consumer<Builder<Item>>>();
+    builders.put(BASE_REPORT_NAME + "-first", testData.mapper);
+    builders.put(BASE_REPORT_NAME + "-second", testData.mapper);
+
+    Map<String, File> reportFiles =
+        CsvGenerator.generateAsFiles(
+            builders, testData.dataSource, options -> options.parallelism(2).chunkSize(1));
+    assertThat(reportFiles).containsOnlyKeys(builders.keySet());
+    for (File reportFile : reportFiles.values()) {
+      assertReport(testData.columnNames, testData.expectedRows, reportFile);
+    }
+  }
+
+  @Test
+  void generateReportsFromFailingSourceDeletesReportFiles() throws Exception {
+    final var builders = new LinkedHashMap<String, Consumer<Builder<Item>>>();
+    builders.put("failed-first", report -> report.addColumn("Item ID", Item::id));
+    builders.put("failed-second", report -> report.addColumn("Item name", Item::name));
+    final Stream<Item> dataSource =
+        Stream.of(new Item(1, "item", null, null, null, null, null, null))
+            .peek(
+                item -> {
+                  throw new IllegalStateException("Source failed");
+                });
+
+    assertThatThrownBy(() -> CsvGenerator.generateAsFiles(builders, dataSource))
+        .hasMessage("Source failed");
+    try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+      assertThat(files.filter(file -> file.getFileName().toString().startsWith("failed-")))
+          .isEmpty();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("generateReportSuccessfullyMethodSource")
+  void generateReportInParts(TestData testData) throws Exception {
+    ReportManifest manifest =
+        CsvGenerator.generateAsParts(
+            testData.mapper,
+            testData.dataSource,
+            BASE_REPORT_NAME,
+            options -> options.partMaxRows(2).parallelism(2).chunkSize(1).zipParts(true));
+    assertThat(manifest.rows()).isEqualTo(testData.expectedRows.size());
+
+    int offset = 0;
+    for (int i = 0; i < manifest.parts().size(); i++) {
+      ReportManifest.Part part = manifest.parts().get(i);
+      assertThat(part.file().getName()).isEqualTo(BASE_REPORT_NAME + "-part" + (i + 1) + ".csv");
+      assertThat(part.rows()).isBetween(i == 0 ? 0L : 1L, 2L);
+      assertThat(part.bytes()).isEqualTo(part.file().length());
+      assertReport(
+          testData.columnNames,
+          testData.expectedRows.subList(offset, offset + (int) part.rows()),
+          part.file());
+      offset += (int) part.rows();
+    }
+
+    try (ZipFile bundle = new ZipFile(manifest.bundle())) {
+      assertThat(bundle.size()).isEqualTo(manifest.parts().size());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2})
+  void generateSortedReport(int parallelism) {
+    final List<Item> items =
+        IntStream.range(0, 1000)
+            .mapToObj(
+                i ->
+                    new Item(
+                        i % 7 == 0 ? null : (i * 31) % 97,
+                        i % 11 == 0 ? null : "record_" + (i * 17) % 13,
+                        null,
+                        BigDecimal.valueOf((i * 7) % 23 - 11, i % 3),
+                        null,
+                        null,
+                        null,
+                        null))
+            .toList();
+    final Consumer<Builder<Item>> builder =
+        report ->
+            report
+                .addColumn("Item ID", Item::id)
+                .addColumn("Item name", Item::name)
+                .addColumn("Quantity", Item::quantity);
+
+    File reportFile =
+        CsvGenerator.generateAsFile(
+            builder,
+            items.stream(),
+            BASE_REPORT_NAME,
+            options ->
+                options
+                    .sortBy("Item name")
+                    .sortByDescending("Quantity")
+                    .sortRunSize(64)
+                    .parallelism(parallelism));
+
+    final List<Item> sorted = new ArrayList<>(items);
+    sorted.sort(
+        Comparator.comparing(Item::name, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Item::quantity, Comparator.reverseOrder()));
+    assertReport(
+        List.of("Item ID", "Item name", "Quantity"),
+        sorted.stream()
+            .map(
+                item ->
+                    new String[] {
+                      item.id() != null ? item.id().toString() : "",
+                      item.name() != null ? item.name() : "",
+                      item.quantity().stripTrailingZeros().toPlainString()
+                    })
+            .toList(),
+        reportFile);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void generateReportWithSubtotals(boolean sortedInput) {
+    final List<Item> items =
+        List.of(
+            new Item(1, "a", null, new BigDecimal("1.5"), null, null, Status.ENABLED, null),
+            new Item(2, "a", null, new BigDecimal("2"), null, null, Status.ENABLED, null),
+            new Item(3, "b", null, new BigDecimal("3"), null, null, Status.DISABLED, null),
+            new Item(4, "b", null, null, null, null, Status.ENABLED, null),
+            new Item(null, "b", null, new BigDecimal("4.25"), null, null, Status.ENABLED, null));
+    final Consumer<Builder<Item>> builder =
+        report ->
+            report
+                .addColumn("Status", Item::status)
+                .addColumn("Item name", Item::name)
+                .addColumn("Item ID", Item::id)
+                .addColumn("Quantity", Item::quantity)
+                .aggregate(
+                    aggregation ->
+                        aggregation
+                            .groupBy("Item name")
+                            .count("Item ID")
+                            .sum("Quantity")
+                            .sortedInput(sortedInput));
+
+    File reportFile = CsvGenerator.generateAsFile(builder, items.stream(), BASE_REPORT_NAME);
+
+    assertReport(
+        List.of("Status", "Item name", "Item ID", "Quantity"),
+        List.of(
+            new String[] {"ENABLED", "a", "1", "1.5"},
+            new String[] {"ENABLED", "a", "2", "2"},
+            new String[] {"DISABLED", "b", "3", "3"},
+            new String[] {"ENABLED", "b", "4", ""},
+            new String[] {"ENABLED", "b", "", "4.25"},
+            new String[] {"Subtotal", "a", "2", "3.5"},
+            new String[] {"Subtotal", "b", "2", "7.25"},
+            new String[] {"Total", "", "4", "10.75"}),
+        reportFile);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void generateReportWithSubtotalsInParts(boolean sortedInput) {
+    final List<Item> items =
+        IntStream.range(0, 9)
+            .mapToObj(
+                i ->
+                    new Item(i, "record_" + i / 2, null, BigDecimal.ONE, null, null, null, null))
+            .toList();
+    final Consumer<Builder<Item>> builder =
+        report ->
+            report
+                .addColumn("Label", item -> null)
+                .addColumn("Item name", Item::name)
+                .addColumn("Quantity", Item::quantity)
+                .aggregate(
+                    aggregation ->
+                        aggregation
+                            .groupBy("Item name")
+                            .sum("Quantity")
+                            .sortedInput(sortedInput));
+
+    ReportManifest manifest =
+        CsvGenerator.generateAsParts(
+            builder, items.stream(), BASE_REPORT_NAME, options -> options.partMaxRows(2));
+
+    final List<String[]> expectedRows = new ArrayList<>();
+    items.forEach(item -> expectedRows.add(new String[] {"", item.name(), "1"}));
+    for (int group = 0; group < 5; group++) {
+      expectedRows.add(new String[] {"Subtotal", "record_" + group, group < 4 ? "2" : "1"});
+    }
+    expectedRows.add(new String[] {"Total", "", "9"});
+    assertThat(manifest.rows()).isEqualTo(expectedRows.size());
+    int offset = 0;
+    for (ReportManifest.Part part : manifest.parts()) {
+      assertThat(part.rows()).isBetween(1L, 2L);
+      assertReport(
+          List.of("Label", "Item name", "Quantity"),
+          expectedRows.subList(offset, offset + (int) part.rows()),
+          part.file());
+      offset += (int) part.rows();
+    }
+    assertThat(offset).isEqualTo(expectedRows.size());
+  }
+
+  @Test
+  void generateResumableReport(@TempDir Path directory) throws Exception {
+    final List<Item> items =
+        IntStream.range(0, 100)
+            .mapToObj(
+                i ->
+                    new Item(
+                        i, "record_" + i, null, BigDecimal.valueOf(i), null, null, null, null))
+            .toList();
+    final Consumer<Builder<Item>> builder =
+        report ->
+            report
+                .addColumn("Item ID", Item::id)
+                .addColumn("Item name", Item::name)
+                .addColumn("Quantity", Item::quantity);
+    final int[] available = {60};
+    final int[] failAt = {45};
+    final ResumableSource<Item> source =
+        ResumableSource.of(
+            token ->
+                items.stream()
+                    .skip(token == null ? 0 : Integer.parseInt(token) + 1)
+                    .limit(available[0] - (token == null ? 0 : Integer.parseInt(token) + 1))
+                    .peek(
+                        item -> {
+                          if (item.id() == failAt[0]) {
+                            throw new IllegalStateException("Source failed");
+                          }
+                        }),
+            item -> item.id().toString());
+    final Path reportFile = directory.resolve("report.csv");
+    // Left by a run which died before its first checkpoint
+    Files.writeString(reportFile, "Item ID,Item");
+
+    // Interrupted after the checkpoint of 40 rows, with a torn row left behind
+    assertThatThrownBy(
+            () ->
+                CsvGenerator.generateResumable(
+                    builder, source, reportFile, options -> options.checkpointInterval(10)))
+        .hasMessage("Source failed");
+    Files.writeString(reportFile, "41,\"record", APPEND);
+
+    failAt[0] = -1;
+    ReportCheckpoint checkpoint =
+        CsvGenerator.generateResumable(
+            builder, source, reportFile, options -> options.checkpointInterval(10));
+    assertThat(checkpoint.rows()).isEqualTo(60);
+    assertThat(checkpoint.resumeToken()).isEqualTo("59");
+
+    // Incremental append of rows added to the source since
+    available[0] = 100;
+    checkpoint = CsvGenerator.generateResumable(builder, source, reportFile);
+    assertThat(checkpoint.rows()).isEqualTo(100);
+    assertThat(checkpoint.offset()).isEqualTo(Files.size(reportFile));
+
+    assertReport(
+        List.of("Item ID", "Item name", "Quantity"),
+        items.stream()
+            .map(
+                item ->
+                    new String[] {
+                      item.id().toString(), item.name(), item.quantity().toPlainString()
+                    })
+            .toList(),
+        reportFile.toFile());
+  }
+
+  @Test
+  void generatePostgresBinaryReport() throws Exception {
+    final Consumer<Builder<Item>> builder =
+        report ->
+            report
+                .addColumn("Item ID", Item::id)
+                .addColumn("Item name", Item::name)
+                .addColumn("Quantity", Item::quantity)
+                .addColumn("Date", Item::date);
+    final Stream<Item> items =
+        Stream.of(
+            new Item(
+                1,
+                "a",
+                null,
+                new BigDecimal("-123.45"),
+                LocalDate.of(2000, 1, 2),
+                null,
+                null,
+                null),
+            new Item(null, null, null, null, null, null, null, null));
+
+    File reportFile =
+        CsvGenerator.generateAsFile(
+            builder,
+            items,
+            BASE_REPORT_NAME,
+            options -> options.outputFormat(OutputFormat.POSTGRES_BINARY));
+
+    assertThat(reportFile.getName()).endsWith(".pgcopy");
+    final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(reportFile.toPath()));
+    final byte[] signature = new byte[11];
+    buffer.get(signature);
+    assertThat(signature).isEqualTo("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1));
+    assertThat(buffer.getInt()).isZero();
+    assertThat(buffer.getInt()).isZero();
+
+    // 1, 'a', -123.45 as numeric digits [123, 4500] with weight 0 and scale 2, 2000-01-02
+    assertThat(buffer.getShort()).isEqualTo((short) 4);
+    assertThat(buffer.getInt()).isEqualTo(8);
+    assertThat(buffer.getLong()).isEqualTo(1);
+    assertThat(buffer.getInt()).isEqualTo(1);
+    assertThat(buffer.get()).isEqualTo((byte) 'a');
+    assertThat(buffer.getInt()).isEqualTo(12);
+    assertThat(new short[] {buffer.getShort(), buffer.getShort(), buffer.getShort()})
+        .containsExactly(2, 0, 0x4000);
+    assertThat(new short[] {buffer.getShort(), buffer.getShort(), buffer.getShort()})
+        .containsExactly(2, 123, 4500);
+    assertThat(buffer.getInt()).isEqualTo(4);
+    assertThat(buffer.getInt()).isEqualTo(1);
+
+    // All nulls
+    assertThat(buffer.getShort()).isEqualTo((short) 4);
+    for (int i = 0; i < 4; i++) {
+      assertThat(buffer.getInt()).isEqualTo(-1);
+    }
+    assertThat(buffer.getShort()).isEqualTo((short) -1);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  void generateColumnarReport() throws Exception {
+    final Consumer<Builder<Item>> builder =
+        report ->
+            report
+                .addColumn("Item ID", Item::id)
+                .addColumn("Item name", Item::name)
+                .addColumn("Quantity", Item::quantity);
+    final Stream<Item> items =
+        Stream.of(
+            new Item(1000, "a", null, new BigDecimal("-1.5"), null, null, null, null),
+            new Item(1001, "a", null, null, null, null, null, null),
+            new Item(null, "b", null, new BigDecimal("2"), null, null, null, null));
+
+    File reportFile =
+        CsvGenerator.generateAsFile(
+            builder,
+            items,
+            BASE_REPORT_NAME,
+            options -> options.outputFormat(OutputFormat.COLUMNAR).chunkSize(2));
+
+    assertThat(reportFile.getName()).endsWith(".rcol");
+    final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(reportFile.toPath()));
+    assertThat(nextBytes(buffer, 6)).isEqualTo(new byte[] {'R', 'C', 'O', 'L', 1, 3});
+    assertThat(nextBytes(buffer, 8)).isEqualTo(lengthPrefixed("Item ID"));
+    assertThat(nextBytes(buffer, 10)).isEqualTo(lengthPrefixed("Item name"));
+    assertThat(nextBytes(buffer, 9)).isEqualTo(lengthPrefixed("Quantity"));
+
+    // Chunk of 2 rows
+    assertThat(buffer.get()).isEqualTo((byte) 2);
+    // INT64, no nulls, delta of 3 bytes: zigzag varints of 1000 and 1
+    assertThat(nextBytes(buffer, 7))
+        .isEqualTo(new byte[] {1, 0, 1, 3, (byte) 0xD0, 0x0F, 2});
+    // TEXT, no nulls, dictionary of 5 bytes: 1 entry "a", indexes 0 and 0
+    assertThat(nextBytes(buffer, 9)).isEqualTo(new byte[] {7, 0, 2, 5, 1, 1, 'a', 0, 0});
+    // DECIMAL, nulls bitmap of the first row, plain of 3 bytes: zigzag scale 1, unscaled -15
+    assertThat(nextBytes(buffer, 8))
+        .isEqualTo(new byte[] {3, 1, 0b01, 0, 3, 2, 1, (byte) 0xF1});
+
+    // Chunk of the last row
+    assertThat(buffer.get()).isEqualTo((byte) 1);
+    // All nulls
+    assertThat(buffer.get()).isEqualTo((byte) 0);
+    // TEXT, no nulls, plain of 2 bytes as the only value is distinct
+    assertThat(nextBytes(buffer, 6)).isEqualTo(new byte[] {7, 0, 0, 2, 1, 'b'});
+    // DECIMAL, no nulls, plain of 3 bytes: scale 0, unscaled 2
+    assertThat(nextBytes(buffer, 7)).isEqualTo(new byte[] {3, 0, 0, 3, 0, 1, 2});
+
+    assertThat(buffer.get()).isZero();
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 2})
+  void generateReportFromPagedSource(int prefetchBatches) {
+    final List<List<Item>> pages =
+        List.of(
+            List.of(new Item(1, "a", null, null, null, null, null, null)),
+            List.of(
+                new Item(2, "b", null, null, null, null, null, null),
+                new Item(3, "c", null, null, null, null, null, null)));
+    final var nextPage = new AtomicInteger();
+    final var closed = new AtomicBoolean();
+    final PagedSource<Item> source =
+        new PagedSource<>() {
+          @Override
+          public List<Item> nextPage() {
+            final int page = nextPage.getAndIncrement();
+            return page < pages.size() ? pages.get(page) : null;
+          }
+
+          @Override
+          public void close() {
+            closed.set(true);
+          }
+        };
+    final var completed = new AtomicReference<ReportMetrics>();
+
+    File reportFile =
+        CsvGenerator.generateAsFile(
+            report -> report.addColumn("Item ID", Item::id).addColumn("Item name", Item::name),
+            source,
+            BASE_REPORT_NAME,
+            options ->
+                options
+                    .prefetchBatches(prefetchBatches)
+                    .writerQueueSize(prefetchBatches)
+                    .metricsListener(
+                        new ReportMetricsListener() {
+                          @Override
+                          public void onComplete(ReportMetrics metrics) {
+                            completed.set(metrics);
+                          }
+                        }));
+
+    assertReport(
+        List.of("Item ID", "Item name"),
+        List.of(
+            new String[] {"1", "a"}, new String[] {"2", "b"}, new String[] {"3", "c"}),
+        reportFile);
+    assertThat(closed).isTrue();
+    assertThat(completed.get().stages())
+        .extracting(ReportMetrics.StageMetrics::stageName)
+        .isEqualTo(prefetchBatches > 0 ? List.of("prefetch", "writer") : List.of());
+  }
+
+  @ParameterizedTest
+  @EnumSource(Durability.class)
+  void generateReportWithWriterThreadAndDurability(Durability durability) {
+    final var completed = new AtomicReference<ReportMetrics>();
+
+    File reportFile =
+        CsvGenerator.generateAsFile(
+            report -> report.addColumn("Item ID", Item::id).addColumn("Item name", Item::name),
+            IntStream.range(0, 100)
+                .mapToObj(i -> new Item(i, "item " + i, null, null, null, null, null, null)),
+            BASE_REPORT_NAME,
+            options ->
+                options
+                    .writerQueueSize(3)
+                    .writerBufferSize(16)
+                    .durability(durability)
+                    .forceInterval(64)
+                    .metricsListener(
+                        new ReportMetricsListener() {
+                          @Override
+                          public void onComplete(ReportMetrics metrics) {
+                            completed.set(metrics);
+                          }
+                        }));
+
+    assertReport(
+        List.of("Item ID", "Item name"),
+        IntStream.range(0, 100).mapToObj(i -> new String[] {"" + i, "item " + i}).toList(),
+        reportFile);
+    assertThat(completed.get().stages())
+        .singleElement()
+        .satisfies(
+            stage -> {
+              assertThat(stage.stageName()).isEqualTo("writer");
+              assertThat(stage.capacity()).isEqualTo(3);
+              assertThat(stage.maxOccupancy()).isBetween(1, 3);
+            });
+  }
+
+  @ParameterizedTest
+  @EnumSource(Durability.class)
+  void generateReportMemoryMappedWithDurability(Durability durability) {
+    File reportFile =
+        CsvGenerator.generateAsFile(
+            report -> report.addColumn("Item ID", Item::id).addColumn("Item name", Item::name),
+            IntStream.range(0, 100)
+                .mapToObj(i -> new Item(i, "item " + i, null, null, null, null, null, null)),
+            BASE_REPORT_NAME,
+            options ->
+                options
+                    .fileOutputMode(FileOutputMode.MEMORY_MAPPED)
+                    .mappedRegionSize(64)
+                    .durability(durability)
+                    .forceInterval(128));
+
+    assertReport(
+        List.of("Item ID", "Item name"),
+        IntStream.range(0, 100).mapToObj(i -> new String[] {"" + i, "item " + i}).toList(),
+        reportFile);
+  }
+
+  @ParameterizedTest
+  @MethodSource("generateReportSuccessfullyMethodSource")
+  void generateReportWithMetricsListener(TestData testData) {
+    final var completed = new AtomicReference<ReportMetrics>();
+    File reportFile =
+        CsvGenerator.generateAsFile(
+            testData.mapper,
+            testData.dataSource,
+            BASE_REPORT_NAME,
+            options ->
+                options
+                    .metricsSampleInterval(1)
+                    .metricsListener(
+                        new ReportMetricsListener() {
+                          @Override
+                          public void onComplete(ReportMetrics metrics) {
+                            completed.set(metrics);
+                          }
+                        }));
+    assertReport(testData.columnNames, testData.expectedRows, reportFile);
+
+    final var metrics = completed.get();
+    assertThat(metrics.reportName()).isEqualTo(reportFile.getName());
+    assertThat(metrics.rows()).isEqualTo(testData.expectedRows.size());
+    assertThat(metrics.bytes()).isEqualTo(reportFile.length());
+    assertThat(metrics.columns())
+        .extracting(ReportMetrics.ColumnMetrics::columnName)
+        .containsExactlyElementsOf(testData.columnNames);
+    assertThat(metrics.columns())
+        .allSatisfy(column -> assertThat(column.samples()).isEqualTo(metrics.rows()));
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) {
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static byte[] nextBytes(ByteBuffer buffer, int length) {
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /** ASCII text of less than 128 chars prefixed by its varint length. */
+  private static byte[] lengthPrefixed(String text) {
+    final byte[] bytes = new byte[text.length() + 1];
+    bytes[0] = (byte) text.length();
+    System.arraycopy(text.getBytes(StandardCharsets.US_ASCII), 0, bytes, 1, text.length());
+    return bytes;
+  }
+
   private record TestData(
       Stream<Item> dataSource,
       Consumer<Builder<Item>> mapper,
@@ -259,7 +909,65 @@ private static Stream<TestDataFailure> generateReportFailureMethodSource() {
                         builder.addColumn("COLUMN_1", item -> "").addColumn(null, item -> ""),
                     Stream.empty(),
                     BASE_REPORT_NAME),
-            "Report definition column[1] name is invalid"));
+            "Report definition column[1] name is invalid"),
+        new TestDataFailure(
+            () ->
+                CsvGenerator.generateAsFile(
+                    builder -> builder.addColumn("COLUMN_1", item -> ""),
+                    Stream.of(new Object()),
+                    BASE_REPORT_NAME,
+                    options -> options.sortBy("COLUMN_2")),
+            "Sort column could not be found: COLUMN_2"),
+        new TestDataFailure(
+            () ->
+                CsvGenerator.generateAsFile(
+                    builder ->
+                        builder
+                            .addColumn("COLUMN_1", item -> "")
+                            .aggregate(aggregation -> aggregation.sum("COLUMN_2")),
+                    Stream.empty(),
+                    BASE_REPORT_NAME),
+            "Aggregation column could not be found: COLUMN_2"),
+        new TestDataFailure(
+            () ->
+                CsvGenerator.generateAsParts(
+                    builder -> builder.addColumn("COLUMN_1", item -> ""),
+                    Stream.empty(),
+                    BASE_REPORT_NAME,
+                    options -> options.outputFormat(OutputFormat.COLUMNAR)),
+            "Output format COLUMNAR is only supported by generateAsFile and generateTo"),
+        new TestDataFailure(
+            () ->
+                CsvGenerator.generateAsFile(
+                    builder -> builder.addColumn("COLUMN_1", item -> ""),
+                    Stream.empty(),
+                    BASE_REPORT_NAME,
+                    options -> options.prefetchBatches(-1)),
+            "Prefetch batches could not be negative"),
+        new TestDataFailure(
+            () ->
+                CsvGenerator.generateAsFile(
+                    builder -> builder.addColumn("COLUMN_1", item -> ""),
+                    Stream.empty(),
+                    BASE_REPORT_NAME,
+                    options -> options.durability(null)),
+            "Durability could not be null"),
+        new TestDataFailure(
+            () ->
+                CsvGenerator.generateAsFiles(
+                    Map.<String, Consumer<Builder<Object>>>of(
+                        BASE_REPORT_NAME, builder -> builder.addColumn("COLUMN_1", item -> "")),
+                    Stream.empty(),
+                    options -> options.sortBy("COLUMN_1")),
+            "Multiple reports could not be sorted"),
+        new TestDataFailure(
+            () ->
+                CsvGenerator.generateAsFiles(
+                    Map.<String, Consumer<Builder<Object>>>of(
+                        BASE_REPORT_NAME, builder -> builder.addColumn("COLUMN_1", item -> "")),
+                    Stream.empty(),
+                    options -> options.writerQueueSize(2)),
+            "Multiple reports could not be prefetched, pipelined or instrumented"));
   }
 
   private enum Status {
@@ -0,0 +1,124 @@
+package io.scalecube.reports.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class CsvReaderTest {
+
+  private static final String[] VALUES = {
+    "", "a", "a,b", "q\"uote", "\"\"", "line\nbreak", "ünïcödé ✓",
+    "12345678901234567890", "x\"\n,\"y", "plain text value"
+  };
+
+  @TempDir Path directory;
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 7, 64, 1000})
+  void readSegmentsInParallel(int count) throws Exception {
+    final List<String[]> rows = randomRows(20_000);
+    final Path file = write(rows);
+
+    try (CsvReader reader = new CsvReader(file)) {
+      final List<CsvReader.Segment> segments = reader.split(count);
+      final List<List<String[]>> parts = new ArrayList<>();
+      segments.forEach(segment -> parts.add(new ArrayList<>()));
+      IntStream.range(0, segments.size())
+          .parallel()
+          .forEach(i -> segments.get(i).read(record -> parts.get(i).add(record.toArray())));
+
+      assertThat(segments).hasSizeLessThanOrEqualTo(count);
+      assertThat(parts.stream().flatMap(List::stream)).containsExactlyElementsOf(rows);
+    }
+  }
+
+  @Test
+  void fieldsAreCharSequenceViews() throws Exception {
+    final List<String[]> rows = randomRows(1000);
+    final Path file = write(rows);
+    final List<String> values = new ArrayList<>();
+
+    try (CsvReader reader = new CsvReader(file)) {
+      reader.read(
+          record -> {
+            for (int i = 0; i < record.size(); i++) {
+              final CsvReader.Field field = record.field(i);
+              final var chars = new StringBuilder(field);
+              assertThat(chars.toString()).isEqualTo(field.toString());
+              values.add(chars.toString());
+            }
+          });
+    }
+
+    assertThat(values).containsExactlyElementsOf(rows.stream().flatMap(List::of).toList());
+  }
+
+  @Test
+  void readCrLfLineEndings() throws Exception {
+    final Path file = directory.resolve("crlf.csv");
+    Files.writeString(file, "a,b\r\n\"c\"\"d\",\r\n\r\nlast");
+    final List<String[]> records = new ArrayList<>();
+    final List<Long> offsets = new ArrayList<>();
+
+    try (CsvReader reader = new CsvReader(file)) {
+      reader.read(
+          record -> {
+            records.add(record.toArray());
+            offsets.add(record.offset());
+          });
+    }
+
+    assertThat(records)
+        .containsExactly(
+            new String[] {"a", "b"},
+            new String[] {"c\"d", ""},
+            new String[] {""},
+            new String[] {"last"});
+    assertThat(offsets).containsExactly(0L, 5L, 14L, 16L);
+  }
+
+  @Test
+  void readEmptyFile() throws Exception {
+    final Path file = directory.resolve("empty.csv");
+    Files.createFile(file);
+    final List<String[]> records = new ArrayList<>();
+
+    try (CsvReader reader = new CsvReader(file)) {
+      reader.read(record -> records.add(record.toArray()));
+
+      assertThat(reader.split(4)).isEmpty();
+    }
+
+    assertThat(records).isEmpty();
+  }
+
+  private Path write(List<String[]> rows) throws Exception {
+    final Path file = Files.createTempFile(directory, "report", ".csv");
+    try (CsvWriter writer = new CsvWriter(Files.newBufferedWriter(file))) {
+      rows.forEach(writer::writeNext);
+    }
+    return file;
+  }
+
+  private static List<String[]> randomRows(int count) {
+    final Random random = new Random(42);
+    final List<String[]> rows = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final String[] row = new String[1 + random.nextInt(6)];
+      for (int j = 0; j < row.length; j++) {
+        row[j] = VALUES[random.nextInt(VALUES.length)] + (random.nextInt(4) == 0 ? i : "");
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+}
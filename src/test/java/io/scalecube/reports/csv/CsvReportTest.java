@@ -0,0 +1,325 @@
+package io.scalecube.reports.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class CsvReportTest {
+
+  private static final Item ITEM =
+      new Item(
+          1L,
+          "record_1",
+          BigDecimal.valueOf(1000, 2),
+          LocalDate.parse("2024-03-02"),
+          LocalDateTime.parse("2024-03-03T10:00:01"),
+          LocalDateTime.parse("2024-03-02T09:00:01").toEpochSecond(ZoneOffset.UTC));
+
+  private static final Item EMPTY_ITEM = new Item(null, null, null, null, null, null);
+
+  @Test
+  void mapRow() {
+    final var report = newReport();
+
+    assertThat(report.mapRow(ITEM))
+        .containsExactly(
+            "1", "record_1", "10", "2024-03-02", "2024-03-03 10:00:01", "2024-03-02 09:00:01");
+    assertThat(report.mapRow(EMPTY_ITEM)).containsExactly(null, null, null, null, null, null);
+  }
+
+  @Test
+  void encoderReusesRowBuffer() {
+    final var report = newReport();
+    final var encoder = report.newEncoder();
+    final var row = new CsvRow(encoder.columnCount());
+
+    for (Item item : List.of(ITEM, EMPTY_ITEM, ITEM)) {
+      encoder.encode(item, row);
+      assertThat(row.size()).isEqualTo(encoder.columnCount());
+      assertThat(row.toArray()).containsExactly(report.mapRow(item));
+    }
+  }
+
+  @Test
+  void encoderResolvesFormatterPerValueClass() {
+    final var report =
+        new CsvReport.Builder<Object>()
+            .customFormatter(Integer.class, o -> "int:" + o)
+            .addColumn("value", o -> o)
+            .build();
+    final var encoder = report.newEncoder();
+    final var row = new CsvRow();
+
+    for (Object value : List.of(42L, 42, "42", 42L)) {
+      encoder.encode(value, row);
+      assertThat(row.get(0)).isEqualTo(value instanceof Integer ? "int:42" : "42");
+    }
+  }
+
+  @Test
+  void encoderResolvesFormatterByTypeHierarchy() {
+    final var report =
+        new CsvReport.Builder<Object>()
+            .customFormatter(Enum.class, o -> "enum:" + ((Enum<?>) o).name())
+            .customFormatter(Temporal.class, o -> "temporal:" + o)
+            .customFormatter(CharSequence.class, o -> "chars:" + o)
+            .customFormatter(String.class, o -> "string:" + o)
+            .customFormatter(Number.class, o -> "number:" + o)
+            .addColumn("value", o -> o)
+            .build();
+    final var encoder = report.newEncoder();
+    final var row = new CsvRow();
+
+    for (int i = 0; i < 2; i++) {
+      encoder.encode(Status.ACTIVE, row);
+      assertThat(row.get(0)).isEqualTo("enum:ACTIVE");
+      encoder.encode(LocalDate.of(2024, 1, 2), row);
+      assertThat(row.get(0)).isEqualTo("temporal:2024-01-02");
+      encoder.encode(new StringBuilder("a"), row);
+      assertThat(row.get(0)).isEqualTo("chars:a");
+      encoder.encode("a", row);
+      assertThat(row.get(0)).isEqualTo("string:a");
+      encoder.encode(true, row);
+      assertThat(row.get(0)).isEqualTo("true");
+    }
+    assertThat(
+            new CsvReport.Builder<Long>()
+                .customFormatter(Number.class, o -> "number:" + o)
+                .addLongColumn("long", value -> value)
+                .build()
+                .mapRow(7L))
+        .containsExactly("number:7");
+  }
+
+  @Test
+  void encoderCachesRepeatedValues() {
+    final var report =
+        new CsvReport.Builder<Integer>()
+            .customFormatter(Status.class, status -> status == Status.NONE ? null : "s:" + status)
+            .addColumn("Name", i -> List.of("plain", "a,b", "q\"uote", "ünï", "").get(i % 5))
+            .addColumn("Status", i -> Status.values()[i % 3])
+            .addColumn("Unique", i -> "u" + i)
+            .cacheValues("Status")
+            .build();
+    final var encoder = report.newEncoder();
+    final var row = new CsvRow(encoder.columnCount());
+    final var cached = new HeapByteSink(1024);
+    final var expected = new HeapByteSink(1024);
+
+    try (var cachedWriter = new Utf8CsvWriter(cached, 64);
+        var expectedWriter = new Utf8CsvWriter(expected, 64)) {
+      for (int i = 0; i < 5000; i++) {
+        encoder.encode(i, row);
+        assertThat(row.toArray()).containsExactly(report.mapRow(i));
+        cachedWriter.writeRow(row);
+        expectedWriter.writeNext(report.mapRow(i));
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+
+    assertThat(Arrays.copyOf(cached.array(), cached.size()))
+        .isEqualTo(Arrays.copyOf(expected.array(), expected.size()));
+  }
+
+  @Test
+  void cacheValuesOfUnknownColumn() {
+    assertThatThrownBy(
+            () -> new CsvReport.Builder<Integer>().addColumn("Name", i -> i).cacheValues("Id"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Cache column could not be found: Id");
+  }
+
+  @Test
+  void encoderComputesSharedAccessorOncePerRow() {
+    final var calls = new AtomicInteger();
+    final var builder = new CsvReport.Builder<Integer>();
+    final var square =
+        builder.sharedAccessor(
+            "square",
+            i -> {
+              calls.incrementAndGet();
+              return i * i;
+            });
+    final var report =
+        builder
+            .addColumn("Id", i -> i)
+            .addAccessorColumn("Square", square, v -> v)
+            .addAccessorColumn("Half", square, v -> v / 2)
+            .addDecimalColumn("Decimal", 1, RoundingMode.UNNECESSARY, square, BigDecimal::valueOf)
+            .build();
+    final var encoder = report.newEncoder();
+    final var row = new CsvRow(encoder.columnCount());
+
+    encoder.encode(3, row);
+    assertThat(row.toArray()).containsExactly("3", "9", "4", "9.0");
+    encoder.encode(4, row);
+    assertThat(row.toArray()).containsExactly("4", "16", "8", "16.0");
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void selectedColumnsSkipOtherColumnsAndAccessors() {
+    final var calls = new AtomicInteger();
+    final var builder = new CsvReport.Builder<Integer>().selectColumns(List.of("Negated", "Id"));
+    final var square =
+        builder.sharedAccessor(
+            "square",
+            i -> {
+              calls.incrementAndGet();
+              return i * i;
+            });
+    final var report =
+        builder
+            .addColumn("Id", i -> i)
+            .addAccessorColumn("Square", square, v -> v)
+            .addColumn("Negated", i -> -i)
+            .build();
+
+    assertThat(report.columnsHeader()).containsExactly("Id", "Negated");
+    assertThat(report.mapRow(5)).containsExactly("5", "-5");
+    assertThat(calls).hasValue(0);
+    assertThatThrownBy(
+            () -> new CsvReport.Builder<Integer>().selectColumns(List.of("Name")).build())
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Selected column could not be found: Name");
+  }
+
+  @Test
+  void primitiveColumnsEncodeAsBoxedValues() {
+    final var primitive =
+        new CsvReport.Builder<Long>()
+            .addLongColumn("Long", value -> value)
+            .addLongColumn("Millis", ColumnType.MILLISECONDS_DATE_TIME, value -> value)
+            .addLongColumn(
+                "Seconds", ColumnType.SECONDS_DATE_TIME, value -> value % 2 == 0, value -> value)
+            .addIntColumn("Int", value -> value % 3 != 0, value -> (int) (value >> 2))
+            .addDoubleColumn("Double", value -> value / 8.0)
+            .addDoubleColumn("Double integral", value -> (double) (value % 20_000_000))
+            .build();
+    final var boxed =
+        new CsvReport.Builder<Long>()
+            .addColumn("Long", value -> value)
+            .addColumn("Millis", ColumnType.MILLISECONDS_DATE_TIME, value -> value)
+            .addColumn(
+                "Seconds", ColumnType.SECONDS_DATE_TIME, value -> value % 2 == 0 ? value : null)
+            .addColumn("Int", value -> value % 3 != 0 ? (int) (value >> 2) : null)
+            .addColumn("Double", value -> value / 8.0)
+            .addColumn("Double integral", value -> (double) (value % 20_000_000))
+            .build();
+    final var encoder = primitive.newEncoder();
+    final var row = new CsvRow();
+
+    for (long value : new long[] {0, -1, 1, 7, -8, 1_709_370_001_123L, Long.MIN_VALUE + 1}) {
+      encoder.encode(value, row);
+      assertThat(row.toArray()).containsExactly(boxed.mapRow(value));
+      assertThat(primitive.mapRow(value)).containsExactly(boxed.mapRow(value));
+    }
+  }
+
+  @Test
+  void encoderFormatsBigDecimals() {
+    final var report =
+        new CsvReport.Builder<BigDecimal>()
+            .addColumn("Amount", value -> value)
+            .addDecimalColumn("Rounded", 2, RoundingMode.HALF_EVEN, value -> value)
+            .build();
+    final var encoder = report.newEncoder();
+    final var row = new CsvRow();
+
+    for (String value :
+        List.of(
+            "0", "0.000", "-0.004", "10.00", "1E+3", "123.456", "-0.125", "0.0000015",
+            "99999999999999.995", "123456789012345678901234567890.12345")) {
+      final var decimal = new BigDecimal(value);
+      encoder.encode(decimal, row);
+      assertThat(row.get(0)).isEqualTo(decimal.stripTrailingZeros().toPlainString());
+      assertThat(row.get(1))
+          .isEqualTo(decimal.setScale(2, RoundingMode.HALF_EVEN).toPlainString());
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("timestampPatternsMethodSource")
+  void encoderFormatsTimestampsAsDateTimeFormatter(String pattern, String zone) {
+    final var formatter = DateTimeFormatter.ofPattern(pattern);
+    final var zoneId = zone != null ? ZoneId.of(zone) : null;
+    final var report =
+        new CsvReport.Builder<Long>()
+            .dateTimePattern(formatter)
+            .zoneId(zoneId)
+            .addColumn("Millis", ColumnType.MILLISECONDS_DATE_TIME, millis -> millis)
+            .addColumn("Seconds", ColumnType.SECONDS_DATE_TIME, millis -> millis / 1000)
+            .addColumn(
+                "Date time",
+                millis -> LocalDateTime.ofEpochSecond(millis / 1000, 0, ZoneOffset.UTC))
+            .build();
+    final var encoder = report.newEncoder();
+    final var row = new CsvRow();
+    final var zoneOrUtc = zoneId != null ? zoneId : ZoneOffset.UTC;
+
+    // Walk across DST transitions in 17 minutes steps
+    final long start = Instant.parse("2024-03-30T00:00:00.123Z").toEpochMilli();
+    for (long millis = start; millis < start + 3 * 24 * 3600_000L; millis += 17 * 60_000L + 1) {
+      encoder.encode(millis, row);
+      final var dateTime = Instant.ofEpochMilli(millis).atZone(zoneOrUtc);
+      assertThat(row.get(0)).isEqualTo(formatter.format(dateTime.toLocalDateTime()));
+      assertThat(row.get(1))
+          .isEqualTo(formatter.format(dateTime.withNano(0).toLocalDateTime()));
+      assertThat(row.get(2))
+          .isEqualTo(formatter.format(dateTime.withNano(0).toLocalDateTime()));
+    }
+  }
+
+  private static Stream<Arguments> timestampPatternsMethodSource() {
+    return Stream.of(
+        Arguments.of("yyyy-MM-dd HH:mm:ss", null),
+        Arguments.of("yyyy-MM-dd'T'HH:mm:ss.SSS", "Europe/Paris"),
+        Arguments.of("dd.MM.uuuu H:mm:ss", "America/New_York"),
+        Arguments.of("HH:mm:ss.SSSSSS yyyyMMdd", "Australia/Lord_Howe"),
+        // Not compilable, falls back to the formatter
+        Arguments.of("M/d/yy h:mm:ss a", "Asia/Kolkata"));
+  }
+
+  private static CsvReport<Item> newReport() {
+    return new CsvReport.Builder<Item>()
+        .addColumn("Id", Item::id)
+        .addColumn("Name", Item::name)
+        .addColumn("Amount", Item::amount)
+        .addColumn("Date", Item::date)
+        .addColumn("Timestamp", Item::timestamp)
+        .addColumn("Created At", ColumnType.SECONDS_DATE_TIME, Item::createdAt)
+        .build();
+  }
+
+  private enum Status {
+    ACTIVE,
+    CLOSED,
+    NONE
+  }
+
+  private record Item(
+      Long id,
+      String name,
+      BigDecimal amount,
+      LocalDate date,
+      LocalDateTime timestamp,
+      Long createdAt) {}
+}
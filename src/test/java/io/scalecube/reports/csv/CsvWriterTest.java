@@ -4,10 +4,14 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import com.opencsv.CSVReader;
+import java.io.ByteArrayOutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -31,6 +35,54 @@ void testCsvGeneration(List<String[]> expected) {
     }
   }
 
+  @ParameterizedTest
+  @MethodSource("csvBlocksProvider")
+  void testBufferedCsvGeneration(List<String[]> expected) {
+    StringWriter out = new StringWriter();
+    try (BufferedCsvWriter writer = new BufferedCsvWriter(out, 16)) {
+      for (String[] line : expected) {
+        writer.writeNext(line);
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    List<String[]> loaded = loadCSV(out.toString());
+    assertEquals(expected.size(), loaded.size());
+    for (int i = 0; i < loaded.size(); i++) {
+      assertArrayEquals(expected.get(i), loaded.get(i));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("csvBlocksProvider")
+  void testUtf8CsvGeneration(List<String[]> expected) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Utf8CsvWriter writer =
+        new Utf8CsvWriter(new ChannelByteSink(Channels.newChannel(out), 16), 16)) {
+      for (String[] line : expected) {
+        writer.writeNext(line);
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    List<String[]> loaded = loadCSV(out.toString(StandardCharsets.UTF_8));
+    assertEquals(expected.size(), loaded.size());
+    for (int i = 0; i < loaded.size(); i++) {
+      assertArrayEquals(expected.get(i), loaded.get(i));
+    }
+  }
+
+  @Test
+  void testBufferedCsvWriterQuotesCarriageReturn() {
+    StringWriter out = new StringWriter();
+    try (BufferedCsvWriter writer = new BufferedCsvWriter(out)) {
+      writer.writeNext(new String[] {"carriage\rreturn", null, "plain"});
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    assertEquals("\"carriage\rreturn\",,plain\n", out.toString());
+  }
+
   static Stream<List<String[]>> csvBlocksProvider() {
     return Stream.of(
         List.of(
@@ -44,7 +96,10 @@ static Stream<List<String[]>> csvBlocksProvider() {
             new String[] {"with\nnew line", " with a \"quote\"", "\""},
             new String[] {
               "with\nnew \"line\"", "random,separator,", "   with,\n\"all the,,,stuff \n\n  \""
-            }));
+            }),
+        List.of(
+            new String[] {"ünïcödé", "€ \"price\"", "emoji \uD83D\uDE00, ok"},
+            new String[] {"long ascii prefix before ß", "", "plain"}));
   }
 
   private static List<String[]> loadCSV(String string) {
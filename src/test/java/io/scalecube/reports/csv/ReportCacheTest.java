@@ -0,0 +1,145 @@
+package io.scalecube.reports.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReportCacheTest {
+
+  private static final Consumer<CsvReport.Builder<Long>> REPORT =
+      builder -> builder.addColumn("Id", value -> value);
+
+  @TempDir Path directory;
+
+  private final AtomicInteger generations = new AtomicInteger();
+
+  @Test
+  void reusesReportForSameVersionAndDefinition() throws Exception {
+    final var cache = new ReportCache(directory, 1024 * 1024, Duration.ofMinutes(5));
+
+    final File file = cache.getOrGenerate("v1", REPORT, dataSource(10));
+    assertThat(cache.getOrGenerate("v1", REPORT, dataSource(10))).isEqualTo(file);
+    assertThat(generations).hasValue(1);
+    assertThat(Files.readAllLines(file.toPath())).hasSize(11);
+
+    cache.getOrGenerate("v2", REPORT, dataSource(10));
+    cache.getOrGenerate(
+        "v1", REPORT.andThen(builder -> builder.zoneId(ZoneId.of("UTC"))), dataSource(10));
+    cache.getOrGenerate("v1", REPORT, dataSource(10), options -> options.compression(Compression.GZIP));
+    assertThat(generations).hasValue(4);
+  }
+
+  @Test
+  void sharesConcurrentGeneration() throws Exception {
+    final var cache = new ReportCache(directory, 1024 * 1024, Duration.ofMinutes(5));
+    final var started = new CountDownLatch(1);
+    final Supplier<Stream<Long>> slowDataSource =
+        () -> {
+          generations.incrementAndGet();
+          started.countDown();
+          sleep();
+          return LongStream.range(0, 10).boxed();
+        };
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<File>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(executor.submit(() -> cache.getOrGenerate("v1", REPORT, slowDataSource)));
+      }
+      final var files = new HashSet<File>();
+      for (Future<File> result : results) {
+        files.add(result.get());
+      }
+      assertThat(files).hasSize(1);
+      assertThat(generations).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedReports() {
+    final var cache = new ReportCache(directory, 1024, Duration.ofMinutes(5));
+
+    final File first = cache.getOrGenerate("v1", REPORT, dataSource(100));
+    for (int i = 2; i <= 10; i++) {
+      cache.getOrGenerate("v" + i, REPORT, dataSource(100));
+    }
+
+    assertThat(first).doesNotExist();
+    assertThat(cache.sizeBytes()).isLessThanOrEqualTo(1024);
+  }
+
+  @Test
+  void regeneratesExpiredReports() {
+    final var cache = new ReportCache(directory, 1024 * 1024, Duration.ZERO);
+
+    cache.getOrGenerate("v1", REPORT, dataSource(10));
+    cache.getOrGenerate("v1", REPORT, dataSource(10));
+
+    assertThat(generations).hasValue(2);
+  }
+
+  @Test
+  void keepsForeignFilesOnStart() throws Exception {
+    final Path foreign = Files.writeString(directory.resolve("foreign.csv"), "Id\n1\n");
+    final var cache = new ReportCache(directory, 1024 * 1024, Duration.ofMinutes(5));
+    final File file = cache.getOrGenerate("v1", REPORT, dataSource(10));
+
+    new ReportCache(directory, 1024 * 1024, Duration.ofMinutes(5));
+
+    assertThat(foreign).exists();
+    assertThat(file).doesNotExist();
+  }
+
+  @Test
+  void rejectsStatefulMappers() {
+    final var cache = new ReportCache(directory, 1024 * 1024, Duration.ofMinutes(5));
+    final long offset = 10;
+
+    assertThatThrownBy(
+            () ->
+                cache.getOrGenerate(
+                    "v1",
+                    builder -> builder.addColumn("Id", value -> value + offset),
+                    dataSource(10)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageStartingWith("Report definition could not be cached");
+    assertThat(generations).hasValue(0);
+  }
+
+  private Supplier<Stream<Long>> dataSource(int rows) {
+    return () -> {
+      generations.incrementAndGet();
+      return LongStream.range(0, rows).boxed();
+    };
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(200);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
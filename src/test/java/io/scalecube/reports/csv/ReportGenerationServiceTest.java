@@ -0,0 +1,171 @@
+package io.scalecube.reports.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.scalecube.reports.csv.ReportGenerationService.Priority;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class ReportGenerationServiceTest {
+
+  private static final Consumer<CsvReport.Builder<Long>> REPORT =
+      builder -> builder.addColumn("Id", value -> value);
+
+  @Test
+  void generatesReportAsynchronously() {
+    try (var service = new ReportGenerationService.Builder().maxConcurrency(2).build()) {
+      final ReportJob job =
+          service.submit(
+              REPORT, () -> LongStream.range(0, 100).boxed(), "report", Priority.INTERACTIVE);
+
+      StepVerifier.create(Mono.fromFuture(job.future()))
+          .assertNext(file -> assertThat(file).hasContent(expectedContent(100)))
+          .verifyComplete();
+      assertThat(job.rowsRead()).isEqualTo(100);
+    }
+  }
+
+  @Test
+  void startsInteractiveJobsBeforeBatchJobs() throws Exception {
+    final List<String> started = new CopyOnWriteArrayList<>();
+    final var release = new CountDownLatch(1);
+
+    try (var service = new ReportGenerationService.Builder().maxConcurrency(1).build()) {
+      final ReportJob blocking =
+          service.submit(
+              REPORT,
+              () -> {
+                started.add("blocking");
+                await(release);
+                return Stream.of(1L);
+              },
+              "blocking",
+              Priority.BATCH);
+      final ReportJob batch =
+          service.submit(REPORT, () -> dataSource(started, "batch"), "batch", Priority.BATCH);
+      final ReportJob interactive =
+          service.submit(
+              REPORT,
+              () -> dataSource(started, "interactive"),
+              "interactive",
+              Priority.INTERACTIVE);
+      assertThat(service.queuedJobs()).isEqualTo(2);
+
+      release.countDown();
+      blocking.future().join();
+      batch.future().join();
+      interactive.future().join();
+    }
+
+    assertThat(started).containsExactly("blocking", "interactive", "batch");
+  }
+
+  @Test
+  void cancelStopsGenerationAndDeletesReportFile() throws Exception {
+    try (var service = new ReportGenerationService.Builder().maxConcurrency(1).build()) {
+      final ReportJob job =
+          service.submit(
+              REPORT, () -> Stream.iterate(0L, value -> value + 1), "cancelled", Priority.BATCH);
+      while (job.rowsRead() == 0) {
+        Thread.sleep(10);
+      }
+
+      assertThat(job.cancel()).isTrue();
+      while (service.runningJobs() > 0) {
+        Thread.sleep(10);
+      }
+      assertThat(job.future()).isCancelled();
+      try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+        assertThat(files.filter(file -> file.getFileName().toString().startsWith("cancelled-")))
+            .isEmpty();
+      }
+    }
+  }
+
+  @Test
+  void cancelAfterLastRowDeletesReportFile() {
+    final var job = new ReportJob("cancelled-late", Priority.BATCH);
+    final var reportFile = new AtomicReference<File>();
+    job.task(
+        () -> {
+          reportFile.set(
+              CsvGenerator.generateAsFile(
+                  REPORT, job.track(LongStream.range(0, 10).boxed()), "cancelled-late"));
+          // Source ended before the cancellation reached the generation
+          job.cancel();
+          return reportFile.get();
+        });
+
+    job.run();
+
+    assertThat(job.future()).isCancelled();
+    assertThat(reportFile.get()).doesNotExist();
+  }
+
+  @Test
+  void generatesConcurrentReportsOfSameName() {
+    try (var service = new ReportGenerationService.Builder().maxConcurrency(4).build()) {
+      final List<ReportJob> jobs = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        jobs.add(
+            service.submit(
+                REPORT, () -> LongStream.range(0, 100).boxed(), "same", Priority.INTERACTIVE));
+      }
+
+      final Set<File> files = new HashSet<>();
+      for (ReportJob job : jobs) {
+        final File file = job.future().join();
+        assertThat(file).hasContent(expectedContent(100));
+        files.add(file);
+      }
+      assertThat(files).hasSize(8);
+      files.forEach(File::delete);
+    }
+  }
+
+  @Test
+  void rejectsJobsOnceClosed() {
+    final var service = new ReportGenerationService.Builder().maxConcurrency(1).build();
+    service.close();
+
+    assertThatThrownBy(() -> service.submit(REPORT, Stream::empty, "closed", Priority.BATCH))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Report generation service is closed");
+  }
+
+  private static Stream<Long> dataSource(List<String> started, String name) {
+    started.add(name);
+    return Stream.of(1L);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static String expectedContent(int rows) {
+    final var content = new StringBuilder("Id\n");
+    for (int i = 0; i < rows; i++) {
+      content.append(i).append('\n');
+    }
+    return content.toString();
+  }
+}